@@ -12,6 +12,11 @@ import java.awt.RenderingHints;
 import java.awt.event.ActionEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import javax.swing.BorderFactory;
 import javax.swing.DefaultListModel;
 import javax.swing.GroupLayout;
@@ -27,6 +32,10 @@ import javax.swing.ListSelectionModel;
 import javax.swing.UIManager;
 import javax.swing.UnsupportedLookAndFeelException;
 import javax.swing.WindowConstants;
+import simpletetris.Handling;
+import simpletetris.TetrisFrame;
+import simpletetris.TetrisPanel;
+import tetriscore.Replay;
 // import javax.swing.event.ListSelectionEvent;
 
 /**
@@ -141,7 +150,77 @@ public class LobbyWindow extends JFrame {
         String message = chatTextField.getText();
         chatTextField.setText("");
         
-        if(!message.equals("")) toAlert.sendLobbyMessage(message);
+        if(message.startsWith("/handling")) {
+            handling(message.substring(9).trim());
+        } else if(message.startsWith("/replay")) {
+            replay(message.substring(7).trim());
+        } else if(!message.equals("")) toAlert.sendLobbyMessage(message);
+    }
+    
+    /**
+     * Shows or changes the handling settings of this user.<br>
+     * Usage: <code>/handling [DAS] [ARR] [SDF]</code>
+     * @param args the arguments after the command
+     */
+    private void handling(String args) {
+        Handling h = Handling.get();
+        if(!args.isEmpty()) {
+            String[] data = args.split("\\s+");
+            try {
+                int das = Integer.parseInt(data[0]),
+                        arr = (data.length > 1) ? Integer.parseInt(data[1]) 
+                                : h.getArr(),
+                        sdf = (data.length > 2) ? Integer.parseInt(data[2]) 
+                                : h.getSdf();
+                if(!Handling.valid(das, arr, sdf)) {
+                    addLobbyMessage("DAS and ARR can't be negative and "
+                            + "SDF has to be between 1 and " 
+                            + Handling.MAX_SDF);
+                    return;
+                }
+                h.set(das, arr, sdf);
+            } catch (NumberFormatException nfe) {
+                addLobbyMessage("Usage: /handling [DAS] [ARR] [SDF]");
+                return;
+            }
+        }
+        addLobbyMessage("Handling: " + h);
+    }
+    
+    /**
+     * Plays back a replay of one of this user's games.<br>
+     * Usage: <code>/replay [file]</code>, where the file defaults to the 
+     * latest game
+     * @param args the arguments after the command
+     */
+    private void replay(String args) {
+        File file;
+        if(args.isEmpty()) {
+            File[] replays = new File(TetrisPanel.REPLAY_DIRECTORY)
+                    .listFiles((dir, name) -> name.endsWith(".replay"));
+            if(replays == null || replays.length == 0) {
+                addLobbyMessage("No replays have been saved yet");
+                return;
+            }
+            file = replays[0];
+            for(File f : replays) {
+                if(f.lastModified() > file.lastModified()) file = f;
+            }
+        } else {
+            file = new File(args);
+            if(!file.isFile()) 
+                file = new File(TetrisPanel.REPLAY_DIRECTORY, args);
+        }
+        try(InputStream in = new BufferedInputStream(
+                new FileInputStream(file))) {
+            new TetrisFrame(Replay.read(in));
+        } catch (IOException ex) {
+            addLobbyMessage("Couldn't read " + file.getName() + ": " 
+                    + ex.getMessage());
+        } catch (RuntimeException ex) {
+            ex.printStackTrace();
+            addLobbyMessage("Couldn't play " + file.getName() + ": " + ex);
+        }
     }
     
     /**
@@ -296,19 +375,15 @@ public class LobbyWindow extends JFrame {
                         BasicStroke.JOIN_ROUND));
                 int cbx = challengeButtonX(), cby = challengeButtonY(),
                         cbw = challengeButtonWidth();
-                if(isBusy) {
-                    g2D.setColor(Color.lightGray);
-                    g2D.fillRect(cbx, cby, cbw, cbh);
-                    g2D.setColor(Color.gray);
-                } else {
-                    g2D.setColor(Color.gray);
-                    g2D.fillRect(cbx, cby, cbw, cbh);
-                    g2D.setColor(Color.darkGray);
-                }
+                g2D.setColor(Color.gray);
+                g2D.fillRect(cbx, cby, cbw, cbh);
+                g2D.setColor(Color.darkGray);
                 g2D.drawRect(cbx, cby, cbw, cbh);
                 g2D.setFont(new Font("Consolas", Font.PLAIN, 
                         Math.min(cbh - 10, cbw / 5)));
-                g2D.drawString("CHALLENGE", cbx + 5, cby + cbh - 10);
+                // busy players can be watched instead
+                g2D.drawString(isBusy ? "SPECTATE" : "CHALLENGE", 
+                        cbx + 5, cby + cbh - 10);
             }
         }
         
@@ -319,9 +394,15 @@ public class LobbyWindow extends JFrame {
         private void mouseReleased(Point p) {
             int cbx = challengeButtonX(), cby = challengeButtonY();
             if(p.x >= cbx && p.x <= cbx + challengeButtonWidth() && 
-                    p.y >= cby && p.y <= cby + challengeButtonHeight() && 
-                    !toAlert.isPlayerBusy(playerList.getSelectedValue())) {
-                toAlert.challenge(playerList.getSelectedValue());
+                    p.y >= cby && p.y <= cby + challengeButtonHeight()) {
+                String selected = playerList.getSelectedValue();
+                Boolean isBusy = toAlert.isPlayerBusy(selected);
+                if(isBusy == null) return;
+                if(isBusy) {
+                    toAlert.spectate(selected);
+                } else {
+                    toAlert.challenge(selected);
+                }
             }
         }
         
@@ -16,22 +16,68 @@ import java.net.Socket;
 import java.net.SocketException;
 import java.net.UnknownHostException;
 import java.util.HashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import javafx.concurrent.ScheduledService;
+import javax.swing.JComboBox;
 import javax.swing.JFrame;
+import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import simpletetris.AudioPlayer;
-import simpletetris.TetrisBag;
 import simpletetris.TetrisFrame;
-import simpletetris.TetrisKeyAdapter;
+import tetriscore.GameAction;
+import tetriscore.KickTable;
+import tetriscore.MatrixState;
+import tetriscore.Randomizer;
+import tetriscore.Rollback;
+import tetriscore.Ruleset;
+import tetriscore.SplitMix64;
+import tetriscore.TetrisBag;
+import tetriscore.TetrisMatrix;
+import util.Scheduler;
 
 /**
  * A client to server communication
  * @author Jed Wang
  */
 public class ServerCommunication {
+    /**
+     * The newest protocol version this client speaks.
+     */
+    public static final int PROTOCOL_VERSION = 2;
+    
+    /**
+     * Capability flag: binary framing of in-game commands.
+     */
+    public static final int CAP_BINARY_FRAMING = 1;
+    
+    /**
+     * Capability flag: compression of frames.
+     */
+    public static final int CAP_COMPRESSION = 1 << 1;
+    
+    /**
+     * Capability flag: bags generated from a shared seed.
+     */
+    public static final int CAP_SEEDED_BAGS = 1 << 2;
+    
+    /**
+     * Capability flag: resuming a session after a dropped connection.
+     */
+    public static final int CAP_RESUMPTION = 1 << 3;
+    
+    /**
+     * All capability flags this client can agree to.
+     */
+    public static final int SUPPORTED_CAPS = 0;
+    
+    /**
+     * The capability flags agreed on with the server.
+     */
+    private int capabilities;
+    
     /**
      * The socket connection into this
      */
@@ -43,6 +89,12 @@ public class ServerCommunication {
      */
     protected PrintWriter out;
     
+    /**
+     * Sends in-game commands, so the game's thread never waits on the 
+     * network
+     */
+    private final ExecutorService outbox;
+    
     /**
      * Whether this client is in a game
      */
@@ -63,17 +115,58 @@ public class ServerCommunication {
      */
     private static String opponentName = null;
     
+    /**
+     * The kick system of the current match.
+     */
+    private static KickTable kickTable = KickTable.SRS;
+    
+    /**
+     * The name of the randomizer of the current match.
+     */
+    private static String randomizerName = Randomizer.SEVEN_BAG;
+    
+    /**
+     * The seed of the current match.
+     */
+    private static long matchSeed = 0;
+    
+    /**
+     * The attack rules of the current match.
+     */
+    private static Ruleset ruleset = Ruleset.STANDARD;
+    
+    /**
+     * Whether I challenged my opponent in the current match.
+     */
+    private static boolean challenger = false;
+    
     /**
      * My name.
      */
     private static String myName = null;
     
+    /**
+     * The names of the players in the match being watched, 
+     * or {@code null} if this client isn't spectating
+     */
+    private String[] spectated;
+    
+    /**
+     * The TetrisFrame showing the match being watched
+     */
+    private TetrisFrame sFrame;
+    
     /**
      * Standard constructor.
      */
     public ServerCommunication() {
         inGame = false;
         status = new HashMap<>();
+        outbox = Executors.newSingleThreadExecutor((Runnable r) -> {
+            Thread t = new Thread(r, "Outbox");
+            t.setDaemon(true);
+            return t;
+        });
         
         lw = LobbyWindow.run(this);
         Dimension screenSize = Toolkit.getDefaultToolkit().getScreenSize();
@@ -155,10 +248,15 @@ public class ServerCommunication {
             out = new PrintWriter(socket.getOutputStream(), true);
             
             TetrisFrame tFrame = null;
+            
+            String _name;
+            capabilities = 0;
+            // Only the server's greeting may offer HELLO; servers which 
+            // don't know it get the name on its own.
+            boolean greeted = false;
 
             // Process all messages from server, according to the protocol.
             int temp = 0;
-            String _name;
             while (true) {
                 // Reading input from the server
                 String line = null;
@@ -207,7 +305,7 @@ public class ServerCommunication {
                     String reason = line.substring(4);
                     JFrame active = (tFrame == null) ? lw : tFrame;
                     active.requestFocus();
-                    Executors.newSingleThreadScheduledExecutor().schedule(() -> {
+                    Scheduler.schedule(() -> {
                         System.exit(0);
                     }, 5000, TimeUnit.MILLISECONDS);
                     if ("".equals(reason)) {
@@ -230,7 +328,7 @@ public class ServerCommunication {
                     String reason = line.substring(3);
                     JFrame active = (tFrame == null) ? lw : tFrame;
                     active.requestFocus();
-                    Executors.newSingleThreadScheduledExecutor().schedule(() -> {
+                    Scheduler.schedule(() -> {
                         System.exit(0);
                     }, 5000, TimeUnit.MILLISECONDS);
                     if ("".equals(reason)) {
@@ -248,6 +346,9 @@ public class ServerCommunication {
                                 "You\'ve been banned", JOptionPane.ERROR_MESSAGE);
                     }
                     System.exit(0);
+                } else if (line.startsWith("SV")) {
+                    // a frame of the match being watched
+                    spectate_(line);
                 } else {
                     if (inGame) {
                         if (line.equals("EXIT")) {
@@ -279,55 +380,37 @@ public class ServerCommunication {
                                     inGame = false;
                                     AudioPlayer.stopBackgroundMusic();
                                     ((TetrisFrame) e.getWindow()).terminate();
-                                    out.println("EXIT");
+                                    // after whatever the game still sends
+                                    outbox.execute(() -> out.println("EXIT"));
                                 }
                             });
                             tFrame.setActionListener((ActionEvent e) -> {
-                                out.println(e.getActionCommand());
+                                String command = e.getActionCommand();
+                                outbox.execute(() -> out.println(command));
                             });
-                        } else {
-                            if (line.startsWith("NB")) {
-                                // new bag
-                                if (tFrame != null) {
-                                    tFrame.opponent.addBag(line.substring(2));
-                                }
-                            } else if (line.startsWith("LOCK")) {
-                                // lock
-                                if (tFrame != null) {
-                                    String[] data = line.substring(4).split(" ");
-                                    tFrame.opponent.lockFalling(
-                                            Integer.parseInt(data[0]),
-                                            Integer.parseInt(data[1]));
-                                }
-                            } else if (line.startsWith("M")) {
-                                // move
-                                if (tFrame != null) {
-                                    tFrame.opponent.executeAction(TetrisKeyAdapter.GameAction.fromShorthand(line.substring(1)));
-                                }
-                            } else if (line.startsWith("SB")) {
-                                // a "starting" bag 
-                                // a bags at the beginning of a round
-                                String[] bags = line.substring(2).split(" ");
-                                TetrisBag.RAM_BAG_THIS = bags[0];
-                                TetrisBag.RAM_BAG_THAT = bags[1];
-                            } else if (line.startsWith("GL")) {
-                                // add garbage lines
-                                if (tFrame != null) {
-                                    tFrame.opponent.dumpGarbage(line.substring(2));
-                                }
-                            } else if (line.startsWith("GC")) {
-                                // gravity command
-                                if (tFrame != null) {
-                                    switch (line.substring(2)) {
-                                        case "P":
-                                            tFrame.opponent.pauseGravity();
-                                            break;
-                                        case "R":
-                                            tFrame.opponent.resumeGravity();
-                                            break;
-                                    }
+                        } else if (line.startsWith("SB")) {
+                            // a "starting" bag 
+                            // a bags at the beginning of a round
+                            String[] bags = line.substring(2).split(" ");
+                            TetrisBag.RAM_BAG_THIS = bags[0];
+                            TetrisBag.RAM_BAG_THAT = bags[1];
+                        } else if (tFrame != null && line.startsWith("TICK")) {
+                            // when the commands after this happened
+                            Rollback rollback = tFrame.panel.opponentRollback;
+                            try {
+                                int tick = Integer.parseInt(line.substring(4));
+                                if (tick >= 0) {
+                                    tFrame.panel.post(() -> rollback.stamp(tick));
                                 }
+                            } catch (NumberFormatException nfe) {
+                                // not a stamp after all; ignore it
                             }
+                        } else if (tFrame != null) {
+                            // the game thread applies it between ticks
+                            Rollback rollback = tFrame.panel.opponentRollback;
+                            String command = line;
+                            tFrame.panel.post(() -> rollback.receive(
+                                    m -> applyCommand(m, command)));
                         }
                     } else {
                         if (line.equals("FULL")) {
@@ -339,19 +422,65 @@ public class ServerCommunication {
                         } else if (line.startsWith("SUBMITNAME")) {
                             // submit your name, duh
                             _name = getName(temp++ == 0);
-                            out.println(_name);
+                            if (!greeted && line.startsWith("SUBMITNAMEHELLO")) {
+                                // the server answers with a single WELCOME
+                                out.println("HELLO" + PROTOCOL_VERSION + " " 
+                                        + SUPPORTED_CAPS + " " + _name);
+                            } else {
+                                out.println(_name);
+                            }
+                            greeted = true;
                             System.out.println(_name);
                             myName = _name;
                         } else if (line.startsWith("NAMEACCEPTED")) {
                             // the server has accepted your name
                             temp = 0;
                             // init stuff
+                        } else if (line.startsWith("WELCOME")) {
+                            // the server has accepted the HELLO:
+                            // [version] [capabilities] [name:busy]...
+                            String[] data = line.substring(7).split(" ");
+                            try {
+                                capabilities = (data.length > 1) 
+                                        ? Integer.parseInt(data[1]) : 0;
+                            } catch (NumberFormatException nfe) {
+                                capabilities = 0;
+                            }
+                            for (int i = 2; i < data.length; i++) {
+                                int split = data[i].lastIndexOf(':');
+                                if (split < 0) continue;
+                                String player = data[i].substring(0, split);
+                                lw.addPlayer(player);
+                                status.put(player, Boolean.parseBoolean(
+                                        data[i].substring(split + 1)));
+                            }
+                            temp = 0;
                         } else if (line.startsWith("CHALLENGE_C")) {
                             // I'm being challenged!
                             Toolkit.getDefaultToolkit().beep();
-                            String challenger = line.substring(11);
+                            // [challenger] <kick system> <randomizer> <seed> 
+                            // <ruleset>
+                            String[] data = line.substring(11).split(" ");
+                            String challenger = data[0];
+                            KickTable kicks = KickTable.forName(
+                                    data.length > 1 ? data[1] : "SRS");
+                            String pieces = Randomizer.forName(
+                                    data.length > 2 ? data[2] : null, 0)
+                                    .getName();
+                            long seed = newSeed();
+                            try {
+                                if (data.length > 3) 
+                                    seed = Long.parseLong(data[3]);
+                            } catch (NumberFormatException e) {
+                                // an unreadable seed is as good as none
+                            }
+                            Ruleset rules = Ruleset.forName(
+                                    data.length > 4 ? data[4] : "Standard");
                             int choice = JOptionPane.showConfirmDialog(lw,
-                                    challenger + " has challenged you!\nDo you accept?",
+                                    challenger + " has challenged you!\n"
+                                    + "Kicks: " + kicks + "\nPieces: " 
+                                    + pieces + "\nRules: " + rules 
+                                    + "\nDo you accept?",
                                     "Challenge", JOptionPane.YES_NO_OPTION,
                                     JOptionPane.INFORMATION_MESSAGE);
                             // whether I accept the challenge
@@ -361,6 +490,11 @@ public class ServerCommunication {
                             out.println("CHALLENGE_R" + challenger + " " + accepted);
                             if (accepted) {
                                 opponentName = challenger;
+                                kickTable = kicks;
+                                randomizerName = pieces;
+                                matchSeed = seed;
+                                ruleset = rules;
+                                ServerCommunication.challenger = false;
                                 out.println("SB");
                             }
                         } else if (line.startsWith("CHALLENGE_R")) {
@@ -380,6 +514,123 @@ public class ServerCommunication {
         }
     }
     
+    /**
+     * Applies an in-game command from the server to a matrix.
+     * @param target the matrix the command is about
+     * @param line the command
+     */
+    private static void applyCommand(TetrisMatrix target, String line) {
+        if (line.startsWith("NB")) {
+            // new bag
+            target.addBag(line.substring(2));
+        } else if (line.startsWith("LOCK")) {
+            // lock
+            String[] data = line.substring(4).split(" ");
+            target.lockFalling(Integer.parseInt(data[0]), 
+                    Integer.parseInt(data[1]));
+        } else if (line.startsWith("M")) {
+            // move
+            target.executeAction(GameAction.fromShorthand(
+                    line.substring(1)));
+        } else if (line.startsWith("GL")) {
+            // add garbage lines
+            target.dumpGarbage(line.substring(2));
+        } else if (line.startsWith("GC")) {
+            // gravity command
+            switch (line.substring(2)) {
+                case "P":
+                    target.pauseGravity();
+                    break;
+                case "R":
+                    target.resumeGravity();
+                    break;
+            }
+        }
+    }
+    
+    /**
+     * Handles a frame of the match being watched.
+     * @param line the frame
+     */
+    private void spectate_(String line) {
+        if (line.startsWith("SVSTART")) {
+            // who is playing; the current round follows
+            spectated = line.substring(7).split(" ");
+            TetrisBag.RAM_BAG_THIS = null;
+            TetrisBag.RAM_BAG_THAT = null;
+        } else if (line.equals("SVEND")) {
+            // the match is over
+            spectated = null;
+            if (sFrame != null) {
+                Toolkit.getDefaultToolkit().beep();
+                JOptionPane.showMessageDialog(sFrame,
+                        "The match is over.",
+                        "Match over", JOptionPane.PLAIN_MESSAGE);
+                sFrame.dispose();
+            } else {
+                lw.addLobbyMessage("That match is already over");
+            }
+        } else if (spectated != null) {
+            // SV[side][command]
+            int side = line.charAt(2) - '0';
+            String command = line.substring(3);
+            if (command.startsWith("SB")) {
+                // a starting bag: a round starts once both have come in
+                String bag = command.substring(2).split(" ")[0];
+                if (side == 0) {
+                    TetrisBag.RAM_BAG_THIS = bag;
+                } else {
+                    TetrisBag.RAM_BAG_THAT = bag;
+                }
+                if (TetrisBag.RAM_BAG_THIS != null 
+                        && TetrisBag.RAM_BAG_THAT != null) {
+                    if (sFrame == null) {
+                        showSpectateFrame();
+                    } else {
+                        sFrame.panel.post(sFrame.panel::startRound);
+                    }
+                }
+            } else if (sFrame != null && command.startsWith("SNAP")) {
+                // a snapshot to catch up from, read off the game's thread
+                MatrixState state = new MatrixState();
+                try {
+                    state.readText(command.substring(4));
+                } catch (IOException ex) {
+                    System.err.println("Bad snapshot: " + ex);
+                    return;
+                }
+                TetrisFrame f = sFrame;
+                f.panel.post(() -> 
+                        (side == 0 ? f.player : f.opponent).restore(state));
+            } else if (sFrame != null) {
+                TetrisFrame f = sFrame;
+                f.panel.post(() -> applyCommand(
+                        side == 0 ? f.player : f.opponent, command));
+            }
+        }
+    }
+    
+    /**
+     * Opens the TetrisFrame showing the match being watched.
+     */
+    private void showSpectateFrame() {
+        Dimension ss = Toolkit.getDefaultToolkit().getScreenSize();
+        sFrame = new TetrisFrame(spectated[0], spectated[1]);
+        sFrame.setLocation((ss.width - sFrame.getWidth()) / 2,
+                (ss.height - sFrame.getHeight()) / 2);
+        sFrame.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                ((TetrisFrame) e.getWindow()).terminate();
+                sFrame = null;
+                if (spectated != null) {
+                    spectated = null;
+                    out.println("UNSPECTATE");
+                }
+            }
+        });
+    }
+    
     /**
      * Sends a message to the lobby chat
      * @param toSend the message to send
@@ -393,7 +644,44 @@ public class ServerCommunication {
      * @param player the player to challenge
      */
     public void challenge(String player) {
-        out.println("CHALLENGE_C" + player);
+        JComboBox<KickTable> kicks = new JComboBox<>(KickTable.values());
+        kicks.setSelectedItem(kickTable);
+        JComboBox<String> pieces = new JComboBox<>(Randomizer.names());
+        pieces.setSelectedItem(randomizerName);
+        JComboBox<Ruleset> rules = new JComboBox<>(Ruleset.values());
+        rules.setSelectedItem(ruleset);
+        int choice = JOptionPane.showConfirmDialog(lw, new Object[] {
+                "How should " + player + " and you play?", 
+                new JLabel("Kicks:"), kicks, 
+                new JLabel("Pieces:"), pieces, 
+                new JLabel("Rules:"), rules}, 
+                "Challenge", JOptionPane.OK_CANCEL_OPTION, 
+                JOptionPane.QUESTION_MESSAGE);
+        if(choice != JOptionPane.OK_OPTION) return;
+        kickTable = (KickTable) kicks.getSelectedItem();
+        randomizerName = (String) pieces.getSelectedItem();
+        ruleset = (Ruleset) rules.getSelectedItem();
+        matchSeed = newSeed();
+        challenger = true;
+        out.println("CHALLENGE_C" + player + " " + kickTable.getName() 
+                + " " + randomizerName + " " + matchSeed 
+                + " " + ruleset.getName());
+    }
+    
+    /**
+     * Picks a seed for a new match.
+     * @return the seed
+     */
+    private static long newSeed() {
+        return new SplitMix64(System.nanoTime()).nextLong();
+    }
+    
+    /**
+     * Starts watching a player's match
+     * @param player a player in the match to watch
+     */
+    public void spectate(String player) {
+        out.println("SPECTATE" + player);
     }
     
     /**
@@ -435,6 +723,15 @@ public class ServerCommunication {
         return s;
     }
     
+    /**
+     * Returns whether the server agreed to use the given capability.
+     * @param capability one of the {@code CAP_} flags
+     * @return whether the capability is in use
+     */
+    public boolean hasCapability(int capability) {
+        return (capabilities & capability) != 0;
+    }
+    
     /**
      * Exits the current game.
      */
@@ -459,4 +756,34 @@ public class ServerCommunication {
     public static String getOpponentName() {
         return opponentName;
     }
-}
\ No newline at end of file
+    
+    /**
+     * Returns the kick system of the current match.
+     * @return the kick system of the current match
+     */
+    public static KickTable getKickTable() {
+        return kickTable;
+    }
+    
+    /**
+     * Returns the attack rules of the current match.
+     * @return the attack rules of the current match
+     */
+    public static Ruleset getRuleset() {
+        return ruleset;
+    }
+    
+    /**
+     * Creates the randomizer which deals my pieces in the current match. 
+     * Both players' seeds are split from the seed of the match, so the 
+     * whole match can be dealt again from it.
+     * @return a new randomizer for my pieces
+     */
+    public static Randomizer getRandomizer() {
+        SplitMix64 seeds = new SplitMix64(matchSeed);
+        long challengerSeed = seeds.nextLong();
+        long challengedSeed = seeds.nextLong();
+        return Randomizer.forName(randomizerName, 
+                challenger ? challengerSeed : challengedSeed);
+    }
+}
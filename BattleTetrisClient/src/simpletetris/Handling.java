@@ -0,0 +1,152 @@
+package simpletetris;
+
+import java.util.prefs.BackingStoreException;
+import java.util.prefs.Preferences;
+
+/**
+ * How the keyboard feels: DAS, ARR and the soft drop factor.<br>
+ * The settings belong to the user of this computer and are kept with
+ * {@link Preferences}, so they survive restarts.
+ * @author Jed Wang
+ * @see http://tetris.wikia.com/wiki/DAS
+ */
+public final class Handling {
+    /**
+     * The default delayed auto shift, in milliseconds
+     */
+    public static final int DEFAULT_DAS = 300;
+
+    /**
+     * The default auto repeat rate, in milliseconds
+     */
+    public static final int DEFAULT_ARR = 35;
+
+    /**
+     * The default soft drop factor
+     */
+    public static final int DEFAULT_SDF = 20;
+
+    /**
+     * The highest soft drop factor allowed
+     */
+    public static final int MAX_SDF = 100;
+
+    /**
+     * Where the settings are kept
+     */
+    private static final Preferences PREFS =
+            Preferences.userNodeForPackage(Handling.class);
+
+    /**
+     * The settings of this user
+     */
+    private static final Handling INSTANCE = new Handling(
+            PREFS.getInt("das", DEFAULT_DAS),
+            PREFS.getInt("arr", DEFAULT_ARR),
+            PREFS.getInt("sdf", DEFAULT_SDF));
+
+    /**
+     * How long a direction has to be held before it repeats,
+     * in milliseconds
+     */
+    private volatile int das;
+
+    /**
+     * How long it takes between repeats, in milliseconds;
+     * the game can't repeat faster than once per tick
+     */
+    private volatile int arr;
+
+    /**
+     * How many times faster than gravity soft dropping is
+     */
+    private volatile int sdf;
+
+    /**
+     * Creates a new Handling.
+     * @param das the delayed auto shift
+     * @param arr the auto repeat rate
+     * @param sdf the soft drop factor
+     */
+    private Handling(int das, int arr, int sdf) {
+        if(!valid(das, arr, sdf)) {
+            das = DEFAULT_DAS;
+            arr = DEFAULT_ARR;
+            sdf = DEFAULT_SDF;
+        }
+        this.das = das;
+        this.arr = arr;
+        this.sdf = sdf;
+    }
+
+    /**
+     * Returns the settings of this user.
+     * @return the settings of this user
+     */
+    public static Handling get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Determines whether settings are allowed.
+     * @param das the delayed auto shift
+     * @param arr the auto repeat rate
+     * @param sdf the soft drop factor
+     * @return whether the settings are allowed
+     */
+    public static boolean valid(int das, int arr, int sdf) {
+        return das >= 0 && arr >= 0 && sdf >= 1 && sdf <= MAX_SDF;
+    }
+
+    /**
+     * Changes and saves the settings.
+     * @param das the delayed auto shift, in milliseconds
+     * @param arr the auto repeat rate, in milliseconds
+     * @param sdf the soft drop factor
+     */
+    public void set(int das, int arr, int sdf) {
+        if(!valid(das, arr, sdf))
+            throw new IllegalArgumentException("Illegal handling: DAS "
+                    + das + ", ARR " + arr + ", SDF " + sdf);
+        this.das = das;
+        this.arr = arr;
+        this.sdf = sdf;
+        PREFS.putInt("das", das);
+        PREFS.putInt("arr", arr);
+        PREFS.putInt("sdf", sdf);
+        try {
+            PREFS.flush();
+        } catch (BackingStoreException ex) {
+            System.err.println("Unable to save the handling settings");
+        }
+    }
+
+    /**
+     * Returns the delayed auto shift.
+     * @return the delayed auto shift, in milliseconds
+     */
+    public int getDas() {
+        return das;
+    }
+
+    /**
+     * Returns the auto repeat rate.
+     * @return the auto repeat rate, in milliseconds
+     */
+    public int getArr() {
+        return arr;
+    }
+
+    /**
+     * Returns the soft drop factor.
+     * @return the soft drop factor
+     */
+    public int getSdf() {
+        return sdf;
+    }
+
+    @Override
+    public String toString() {
+        return "DAS " + das + "ms, ARR " + arr + "ms, SDF " + sdf + "x";
+    }
+}
@@ -0,0 +1,460 @@
+package simpletetris;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.regex.Pattern;
+import javax.imageio.ImageIO;
+import tetriscore.BitBoard;
+import tetriscore.PieceShape;
+import tetriscore.TetrisMatrix.Snapshot;
+import static java.awt.Color.*;
+import static simpletetris.Mino.*;
+import static tetriscore.TetrisMatrix.HEIGHT;
+import static tetriscore.TetrisMatrix.WIDTH;
+
+/**
+ * Draws a TetrisMatrix, along with its hold, its next pieces and its 
+ * garbage bar, from the snapshots it publishes.
+ * @author Jed Wang
+ */
+public class MatrixRenderer {
+    /**
+     * The visible height of the matrix; playing field
+     */
+    public static final double VISIBLE_HEIGHT = 20.5;
+    
+    /**
+     * The height of the bars for garbage (incoming and outgoing)
+     */
+    public static final int BAR_HEIGHT = 400;
+    
+    /**
+     * The width of the bars for garbage (incoming and outgoing)
+     */
+    public static final int BAR_WIDTH = 20;
+    
+    /**
+     * The height of the inside of the bar
+     */
+    public static final int INNER_BAR_HEIGHT = 380;
+    
+    /**
+     * The width of the inside of the bar
+     */
+    public static final int INNER_BAR_WIDTH = 10;
+    
+    /**
+     * The height of a step on the bar
+     */
+    public static final int BAR_STEP_HEIGHT = INNER_BAR_HEIGHT / 20;
+    
+    /**
+     * The gap between the inner bar and the outer bar for the width
+     */
+    public static final int BAR_WIDTH_GAP = (BAR_WIDTH - INNER_BAR_WIDTH) / 2;
+    
+    /**
+     * The gap between the inner bar and the outer bar for the height
+     */
+    public static final int BAR_HEIGHT_GAP = (BAR_HEIGHT - INNER_BAR_HEIGHT) / 2;
+    
+    /**
+     * A block of the background
+     */
+    private static final BufferedImage BACKGROUND_BLOCK;
+    
+    /**
+     * The background image
+     */
+    private static final BufferedImage BACKGROUND_IMAGE;
+    
+    /**
+     * The background texture for the piece preview
+     */
+    private static final BufferedImage PIECE_BACKGROUND;
+    
+    /**
+     * The outline/border of the bar
+     */
+    private static final BufferedImage BAR_OUTLINE;
+    
+    /**
+     * The icon for incoming garbage
+     */
+    private static final BufferedImage IN_GARBAGE_ICON;
+    
+    /**
+     * The text/image that appears when an all-clear is executed.
+     */
+    private static final BufferedImage ALL_CLEAR;
+    
+    static {
+        BufferedImage temp = null;
+        try {
+            temp = ImageIO.read(new File("images/background_block.png"));
+        } catch (IOException ex) {
+            System.err.println("Background block image file not found");
+        }
+        BACKGROUND_BLOCK = temp;
+        
+        temp = null;
+        try {
+            temp = ImageIO.read(new File("images/background.jpg"));
+        } catch (IOException ex) {
+            System.err.println("Background image file not found");
+        }
+        BACKGROUND_IMAGE = temp;
+        
+        temp = null;
+        try {
+            temp = ImageIO.read(new File("images/texture.png"));
+        } catch (IOException ex) {
+            System.err.println("Piece background image file not found");
+        }
+        PIECE_BACKGROUND = temp;
+        
+        temp = null;
+        try {
+            temp = ImageIO.read(new File("images/bar.png"));
+        } catch (IOException ex) {
+            System.err.println("Bar background image file not found");
+        }
+        BAR_OUTLINE = temp;
+        
+        temp = null;
+        try {
+            temp = ImageIO.read(new File("images/inGarbage.png"));
+        } catch (IOException ex) {
+            System.err.println("Incoming garbage icon image file not found");
+        }
+        IN_GARBAGE_ICON = temp;
+        
+        temp = null;
+        try {
+            temp = ImageIO.read(new File("images/allClear.png"));
+        } catch (IOException ex) {
+            System.err.println("All clear text image file not found");
+        }
+        ALL_CLEAR = temp;
+    }
+    
+    /**
+     * Whether the TetrisMatrix drawn is on the left
+     */
+    private final boolean onLeft;
+    
+    /**
+     * Creates a new MatrixRenderer.
+     * @param onLeft whether the TetrisMatrix drawn is on the left side 
+     * of the pair
+     */
+    public MatrixRenderer(boolean onLeft) {
+        this.onLeft = onLeft;
+    }
+    
+    /**
+     * Draws a TetrisMatrix as it was when the snapshot was taken. 
+     * Nothing about the game is read while drawing.
+     * @param g2D the Graphics2D to draw with
+     * @param s what the TetrisMatrix looked like
+     */
+    public void draw(Graphics2D g2D, Snapshot s) {
+        g2D.setStroke(new BasicStroke(3, BasicStroke.CAP_ROUND, 
+                BasicStroke.JOIN_MITER));
+        g2D.setRenderingHint(RenderingHints.KEY_ANTIALIASING, 
+                RenderingHints.VALUE_ANTIALIAS_ON);
+        
+        g2D.translate(15, 0);
+        g2D.setColor(BLACK);
+        g2D.setFont(new Font("Consolas", 0, 36));
+        if(onLeft) {
+            g2D.drawImage(PIECE_BACKGROUND, null, 0, 157);
+            g2D.setFont(new Font("Consolas", 0, 17));
+            g2D.drawString("Lines Sent:", 5, 182);
+            g2D.setFont(new Font("Consolas", 0, 36));
+            g2D.drawString("" + s.linesSent, 5, 218);
+            g2D.drawRect(0, 157, 110, 70);
+            
+            g2D.drawString("HOLD", 15, 45);
+            
+            g2D.drawImage(PIECE_BACKGROUND, null, 0, 50);
+            if (s.hold != BitBoard.EMPTY) {
+                g2D.drawImage(getMiniImage(s.hold), 5, 55, 100, 60, null);
+            }
+            
+            g2D.drawRect(0, 50, 110, 70);
+            
+            g2D.translate(90 - BAR_WIDTH - BAR_WIDTH_GAP,
+                    MINO_WIDTH * VISIBLE_HEIGHT - 5 - BAR_HEIGHT + BAR_HEIGHT_GAP);
+            g2D.setColor(DARK_GRAY);
+            g2D.fillRect(0, 0, INNER_BAR_WIDTH, INNER_BAR_HEIGHT);
+            
+            int[] temp = s.inBarFill;
+            if (temp != null) {
+                for (int i = 0, yy = 0; i < temp.length; i++, yy += BAR_STEP_HEIGHT) {
+                    switch (temp[i]) {
+                        case 0:
+                            continue;
+                        case 1:
+                            g2D.setColor(yellow);
+                            break;
+                        case 2:
+                            g2D.setColor(orange);
+                            break;
+                        case 3:
+                            g2D.setColor(new Color(255, 150, 0));
+                            break;
+                        case 4:
+                            g2D.setColor(new Color(255, 100, 0));
+                            break;
+                        case 5:
+                            g2D.setColor(red);
+                            break;
+                        case 6:
+                        default:
+                            g2D.setColor(new Color(128, 0, 0));
+                            break;
+                    }
+                    g2D.fillRect(0, yy, INNER_BAR_WIDTH, BAR_STEP_HEIGHT);
+                }
+            }
+
+            //g2D.setColor(BLACK);
+            g2D.translate(-BAR_WIDTH_GAP, -BAR_HEIGHT_GAP);
+            g2D.drawImage(BAR_OUTLINE, null, 0, 0);
+            
+            g2D.drawImage(IN_GARBAGE_ICON, BAR_WIDTH / 2 - 26, -58, null);
+            
+            g2D.translate(-90 + BAR_WIDTH + BAR_WIDTH_GAP,
+                    -MINO_WIDTH * VISIBLE_HEIGHT + BAR_HEIGHT + 5);
+        } else {
+            g2D.drawString("NEXT", 15, 45);
+            
+            g2D.drawImage(PIECE_BACKGROUND, null, 0, 50);
+            
+            if (s.next[0] != BitBoard.EMPTY) {
+                g2D.drawImage(getMiniImage(s.next[0]), 5, 55, 100, 60, null);
+            }
+            
+            g2D.setColor(BLACK);
+            g2D.drawRect(0, 50, 110, 70);
+            
+            for (int i = 1; i < 3; i++) {
+                g2D.setClip(-3, 67 + 85 * i, 95, 63);
+                g2D.drawImage(PIECE_BACKGROUND, null, 0, 70 + 85 * i);
+                
+                if (s.next[i] != BitBoard.EMPTY) {
+                    BufferedImage miniImage = getMiniImage(s.next[i]);
+                    g2D.drawImage(miniImage, 5, 75 + 85 * i, 80, 48, null);
+                }
+                g2D.drawRect(0, 70 + 85 * i, 90, 58);
+            }
+            
+            g2D.setClip(null);
+            
+            String special = s.specialText;
+            boolean a = s.combo > 1, b = special != null;
+            if(a || b) {
+                g2D.translate(0, 500);
+                g2D.drawImage(PIECE_BACKGROUND, null, 0, 0);
+                if(a) {
+                    g2D.setFont(new Font("Consolas", 0, 20));
+                    g2D.drawString(s.combo + " Combo", 5, 25);
+                }
+                if(b) {
+                    g2D.setFont(new Font("Consolas", 0, 15));
+                    String[] data = special.split(Pattern.quote("|"));
+                    int y_ = 50;
+                    for(String line : data) {
+                        g2D.drawString(line, 5, y_);
+                        y_ += 15;
+                    }
+                }
+                g2D.drawRect(0, 0, 110, 70);
+                g2D.translate(0, -500);
+                g2D.setFont(new Font("Consolas", 0, 36));
+            }
+            
+            /*g2D.translate(-90 + BAR_WIDTH,
+                    -MINO_WIDTH * VISIBLE_HEIGHT + BAR_HEIGHT + 5);*/
+        }
+        
+        g2D.translate(110, 0);
+        g2D.setClip(0, 0, MINO_WIDTH*WIDTH, 
+                (int) (MINO_WIDTH*VISIBLE_HEIGHT));
+        g2D.drawImage(BACKGROUND_IMAGE, 0, 0, 
+                MINO_WIDTH*WIDTH, (int) (MINO_WIDTH*VISIBLE_HEIGHT), null);
+        
+        g2D.translate(0, -MINO_WIDTH*(HEIGHT - VISIBLE_HEIGHT));
+        
+        for(int i = 0; i < WIDTH; i++) {
+            for(int j = 0; j < HEIGHT; j++) {
+                
+                byte kind = s.kinds[j*WIDTH + i];
+                if(kind == BitBoard.EMPTY) {
+                    g2D.drawImage(BACKGROUND_BLOCK, null, 
+                            i*MINO_WIDTH, j*MINO_WIDTH);
+                } else {
+                    drawMino(i*MINO_WIDTH, j*MINO_WIDTH, kind, g2D);
+                }
+            }
+        }
+        
+        if(s.allClear) {
+            int acX = (MINO_WIDTH*WIDTH - ALL_CLEAR.getWidth())/2, 
+                    acY = 23*MINO_WIDTH;
+            g2D.drawImage(ALL_CLEAR, null, acX, acY);
+        }
+        
+        if(s.shape != null) {
+            int tlx = s.x * MINO_WIDTH, tly = s.y * MINO_WIDTH,
+                    tlGy = s.ghostY * MINO_WIDTH;
+            PieceShape shape = s.shape;
+            g2D.setColor(getOutline(shape.getKind()));
+            for (int n = 0; n < shape.getCellCount(); n++) {
+                int i = shape.getCellX(n), j = shape.getCellY(n);
+                g2D.drawRect(tlx + i * MINO_WIDTH + 7, tlGy + j * MINO_WIDTH + 7,
+                        MINO_WIDTH - 14, MINO_WIDTH - 14);
+                drawMino(tlx + i * MINO_WIDTH, tly + j * MINO_WIDTH,
+                        shape.getKind(), g2D);
+            }
+        }
+        
+        if(s.rowsCleared != null) {
+            Color whitish = new Color(255, 255, 255, s.clearAlpha);
+            g2D.setStroke(new BasicStroke());
+            g2D.setColor(whitish);
+            for(int row:s.rowsCleared) {
+                int yPos = MINO_WIDTH * row;
+                g2D.fillRect(0, yPos, MINO_WIDTH * WIDTH, MINO_WIDTH);
+            }
+            
+            g2D.setStroke(new BasicStroke(3, BasicStroke.CAP_ROUND, 
+                    BasicStroke.JOIN_MITER));
+        }
+        
+        g2D.setClip(null);
+        g2D.setColor(BLACK);
+        g2D.drawRect(0, (int) (MINO_WIDTH * (HEIGHT - VISIBLE_HEIGHT)),
+                    WIDTH * MINO_WIDTH, (int) (VISIBLE_HEIGHT * MINO_WIDTH));
+        
+        if(onLeft) {
+            g2D.translate(MINO_WIDTH * WIDTH, MINO_WIDTH * (HEIGHT - VISIBLE_HEIGHT));
+            g2D.drawString("NEXT", 15, 45);
+            
+            g2D.drawImage(PIECE_BACKGROUND, null, 0, 50);
+            
+            if (s.next[0] != BitBoard.EMPTY) {
+                g2D.drawImage(getMiniImage(s.next[0]), 5, 55, 100, 60, null);
+            }
+            
+            g2D.setColor(BLACK);
+            g2D.drawRect(0, 50, 110, 70);
+            
+            for (int i = 1; i < 3; i++) {
+                g2D.setClip(17, 67 + 85 * i, 95, 63);
+                g2D.drawImage(PIECE_BACKGROUND, null, 20, 70 + 85 * i);
+                
+                if (s.next[i] != BitBoard.EMPTY) {
+                    BufferedImage miniImage = getMiniImage(s.next[i]);
+                    g2D.drawImage(miniImage, 25, 75 + 85 * i, 80, 48, null);
+                }
+                g2D.drawRect(20, 70 + 85 * i, 90, 58);
+            }
+            
+            g2D.setClip(null);
+            
+            String special = s.specialText;
+            boolean a = s.combo > 1, b = special != null;
+            if(a || b) {
+                g2D.translate(0, 500);
+                g2D.drawImage(PIECE_BACKGROUND, null, 0, 0);
+                if(a) {
+                    g2D.setFont(new Font("Consolas", 0, 20));
+                    g2D.drawString(s.combo + " Combo", 5, 25);
+                }
+                if(b) {
+                    g2D.setFont(new Font("Consolas", 0, 15));
+                    String[] data = special.split(Pattern.quote("|"));
+                    int y_ = 50;
+                    for(String line : data) {
+                        g2D.drawString(line, 5, y_);
+                        y_ += 15;
+                    }
+                }
+                g2D.drawRect(0, 0, 110, 70);
+                g2D.translate(0, -500);
+                g2D.setFont(new Font("Consolas", 0, 36));
+            }
+        } else {
+            g2D.translate(MINO_WIDTH * WIDTH, MINO_WIDTH * (HEIGHT - VISIBLE_HEIGHT));
+            
+            g2D.drawImage(PIECE_BACKGROUND, null, 0, 157);
+            g2D.setFont(new Font("Consolas", 0, 17));
+            g2D.drawString("Lines Sent:", 5, 182);
+            g2D.setFont(new Font("Consolas", 0, 36));
+            g2D.drawString("" + s.linesSent, 5, 218);
+            g2D.drawRect(0, 157, 110, 70);
+            
+            g2D.drawString("HOLD", 15, 45);
+            
+            g2D.drawImage(PIECE_BACKGROUND, null, 0, 50);
+            if (s.hold != BitBoard.EMPTY) {
+                g2D.drawImage(getMiniImage(s.hold), 5, 55, 100, 60, null);
+            }
+            
+            g2D.drawRect(0, 50, 110, 70);
+            
+            g2D.translate(15 + BAR_WIDTH - BAR_WIDTH_GAP,
+                    MINO_WIDTH * VISIBLE_HEIGHT - 5 - BAR_HEIGHT + BAR_HEIGHT_GAP);
+            g2D.setColor(DARK_GRAY);
+            g2D.fillRect(0, 0, INNER_BAR_WIDTH, INNER_BAR_HEIGHT);
+            
+            int[] temp = s.inBarFill;
+            if (temp != null) {
+                for (int i = 0, yy = 0; i < temp.length; i++, yy += BAR_STEP_HEIGHT) {
+                    switch (temp[i]) {
+                        case 0:
+                            continue;
+                        case 1:
+                            g2D.setColor(yellow);
+                            break;
+                        case 2:
+                            g2D.setColor(orange);
+                            break;
+                        case 3:
+                            g2D.setColor(new Color(255, 150, 0));
+                            break;
+                        case 4:
+                            g2D.setColor(new Color(255, 100, 0));
+                            break;
+                        case 5:
+                            g2D.setColor(red);
+                            break;
+                        case 6:
+                        default:
+                            g2D.setColor(new Color(128, 0, 0));
+                            break;
+                    }
+                    g2D.fillRect(0, yy, INNER_BAR_WIDTH, BAR_STEP_HEIGHT);
+                }
+            }
+            
+            g2D.translate(-BAR_WIDTH_GAP, -BAR_HEIGHT_GAP);
+            g2D.drawImage(BAR_OUTLINE, null, 0, 0);
+            
+            g2D.drawImage(IN_GARBAGE_ICON, BAR_WIDTH / 2 - 26, -58, null);
+            
+            g2D.translate(BAR_WIDTH*7 - BAR_WIDTH_GAP - 103, 
+                    -MINO_WIDTH * VISIBLE_HEIGHT + BAR_HEIGHT + 5);
+        }
+        
+        g2D.translate(110, 0);
+    }
+}
@@ -1,200 +1,128 @@
 package simpletetris;
 
 import java.awt.Color;
-import static java.awt.Color.*;
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import javax.imageio.ImageIO;
+import tetriscore.BitBoard;
 
 /**
- * A class that controls the drawing of each, individual block / mino.
+ * A class that controls the drawing of each, individual block / mino,
+ * and of the pieces they make up.<br>
+ * Everything is looked up by the kind of mino, as stored in a
+ * {@link BitBoard}.
  * @author Jed Wang
  */
 public class Mino {
     /**
-     * A blue mino.
+     * The image of every kind of mino; the index is the kind
      */
-    public static final BufferedImage BLUE;
-    
-    /**
-     * A cyan mino.
-     */
-    public static final BufferedImage CYAN;
-    
-    /**
-     * A green mino.
-     */
-    public static final BufferedImage GREEN;
-    
-    /**
-     * A grey mino.
-     * This is a garbage block.
-     */
-    public static final BufferedImage GREY;
-    
-    /**
-     * An orange mino.
-     */
-    public static final BufferedImage ORANGE;
-    
-    /**
-     * A purple mino.
-     * Use {@code Color.magenta} to denote this mino.
-     */
-    public static final BufferedImage PURPLE;
-    
+    private static final BufferedImage[] MINOS;
+
     /**
-     * A red mino.
+     * The preview of every piece; the index is the kind of its minos
      */
-    public static final BufferedImage RED;
-    
+    private static final BufferedImage[] MINIS;
+
     /**
-     * A yellow mino.
+     * The color of every piece's outline; the index is the kind of
+     * its minos
      */
-    public static final BufferedImage YELLOW;
-    
+    private static final Color[] OUTLINES = {null,
+        new Color(26, 172, 217), new Color(17, 85, 180),
+        new Color(234, 101, 22), new Color(243, 205, 35),
+        new Color(106, 206, 46), new Color(146, 23, 156),
+        new Color(179, 20, 30), null};
+
     /**
      * Loading all image files.
      */
     static {
-        BufferedImage[] temp = new BufferedImage[8];
-        
-        try {
-            temp[0] = ImageIO.read(new File("images/blue.png"));
-        } catch (IOException ex) {
-            System.err.println("Couldn\'t find BLUE mino");
-            System.exit(1);
-        }
-        BLUE = temp[0];
-        
-        try {
-            temp[1] = ImageIO.read(new File("images/cyan.png"));
-        } catch (IOException ex) {
-            System.err.println("Couldn\'t find CYAN mino");
-            System.exit(1);
-        }
-        CYAN = temp[1];
-        
-        try {
-            temp[2] = ImageIO.read(new File("images/green.png"));
-        } catch (IOException ex) {
-            System.err.println("Couldn\'t find GREEN mino");
-            System.exit(1);
+        String[] minos = {null, "cyan", "blue", "orange", "yellow",
+            "green", "purple", "red", "grey"};
+        MINOS = new BufferedImage[minos.length];
+        for(int i = 1; i < minos.length; i++) {
+            try {
+                MINOS[i] = ImageIO.read(new File("images/" + minos[i]
+                        + ".png"));
+            } catch (IOException ex) {
+                System.err.println("Couldn\'t find "
+                        + minos[i].toUpperCase() + " mino");
+            }
         }
-        GREEN = temp[2];
-        
-        try {
-            temp[3] = ImageIO.read(new File("images/grey.png"));
-        } catch (IOException ex) {
-            System.err.println("Couldn\'t find GREY mino");
-            System.exit(1);
-        }
-        GREY = temp[3];
-        
-        try {
-            temp[4] = ImageIO.read(new File("images/orange.png"));
-        } catch (IOException ex) {
-            System.err.println("Couldn\'t find ORANGE mino");
-            System.exit(1);
-        }
-        ORANGE = temp[4];
-        
-        try {
-            temp[5] = ImageIO.read(new File("images/purple.png"));
-        } catch (IOException ex) {
-            System.err.println("Couldn\'t find PURPLE mino");
-            System.exit(1);
-        }
-        PURPLE = temp[5];
-        
-        try {
-            temp[6] = ImageIO.read(new File("images/red.png"));
-        } catch (IOException ex) {
-            System.err.println("Couldn\'t find RED mino");
-            System.exit(1);
-        }
-        RED = temp[6];
-        
-        try {
-            temp[7] = ImageIO.read(new File("images/yellow.png"));
-        } catch (IOException ex) {
-            System.err.println("Couldn\'t find YELLOW mino");
-            System.exit(1);
+
+        String pieces = "IJLOSTZ";
+        MINIS = new BufferedImage[minos.length];
+        for(int i = 0; i < pieces.length(); i++) {
+            String name = "mini" + pieces.charAt(i) + ".png";
+            try {
+                MINIS[i + 1] = ImageIO.read(new File("images/" + name));
+            } catch (IOException ex) {
+                System.err.println(name + " cannot be found");
+            }
         }
-        YELLOW = temp[7];
     }
-    
+
     /**
      * The width of a mino
      */
     public static final int MINO_WIDTH = 36;
-    
+
     /**
      * Can't touch this
      */
     private Mino() {}
-    
+
     /**
-     * Draws a mino of a given color.<br>
-     * If the color is null or not a stored color, nothing is drawn.<br>
+     * Draws a mino of a given kind.<br>
+     * If the kind is empty, nothing is drawn.<br>
      * @param x the x-coordinate of the top left corner
      * @param y the y-coordinate of the top left corner
-     * @param c the color of the mino to draw
+     * @param kind the kind of the mino to draw
      * @param g2D the Graphics2D to draw with
      */
-    public static void drawMino(int x, int y, Color c, Graphics2D g2D) {
-        g2D.drawImage(determineMino(c), null, x, y);
+    public static void drawMino(int x, int y, byte kind, Graphics2D g2D) {
+        g2D.drawImage(MINOS[kind], null, x, y);
     }
-    
+
     /**
-     * Draws a mino of a given color at the given size.<br>
-     * If the color is null or not a stored color, nothing is drawn.<br>
+     * Draws a mino of a given kind at the given size.<br>
+     * If the kind is empty, nothing is drawn.<br>
      * <br>
-     * NOTE: Be sure to do the following before executing this method for best 
+     * NOTE: Be sure to do the following before executing this method for best
      * results:<br>
-     * <code>g2D.setRenderingHint(RenderingHints.KEY_ANTIALIASING, 
+     * <code>g2D.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
      * RenderingHints.VALUE_ANTIALIAS_ON);</code>
      * @param x the x-coordinate of the top left corner
      * @param y the y-coordinate of the top left corner
      * @param width the width of the mino to be drawn
-     * @param c the color of the mino to draw
+     * @param kind the kind of the mino to draw
      * @param g2D the Graphics2D to draw with
      */
-    public static void drawMiniMino(int x, int y, int width, 
-            Color c, Graphics2D g2D) {
-        g2D.drawImage(determineMino(c), x, y, width, width, null);
+    public static void drawMiniMino(int x, int y, int width,
+            byte kind, Graphics2D g2D) {
+        g2D.drawImage(MINOS[kind], x, y, width, width, null);
     }
-    
+
     /**
-     * Determines which mino the given Color is referring to.<br>
-     * If the color is null or not a stored color, {@code null} is returned.
-     * @param c the given Color
-     * @return the image of the given mino
+     * Returns a mini-image or preview of a piece<br>
+     * The aspect ratio of the piece is 5 x 3.
+     * @param kind the kind of the piece's minos
+     * @return an image preview of the piece, or {@code null} if the
+     * kind is empty
      */
-    private static BufferedImage determineMino(Color c) {
-        if(c == null) 
-            return null;
-        int rgb = c.getRGB();
-        if(rgb == blue.getRGB()) {
-            return BLUE;
-        } else if(rgb == cyan.getRGB()) {
-            return CYAN;
-        } else if(rgb == green.getRGB()) {
-            return GREEN;
-        } else if(rgb == gray.getRGB()) {
-            return GREY;
-        } else if(rgb == orange.getRGB()) {
-            return ORANGE;
-        } else if(rgb == magenta.getRGB()) {
-            return PURPLE;
-        } else if(rgb == red.getRGB()) {
-            return RED;
-        } else if(rgb == yellow.getRGB()) {
-            return YELLOW;
-        }
-        
-        return null;
+    public static BufferedImage getMiniImage(byte kind) {
+        return MINIS[kind];
+    }
+
+    /**
+     * Returns the color of a piece's outline, used for its ghost.
+     * @param kind the kind of the piece's minos
+     * @return the color of the piece's outline
+     */
+    public static Color getOutline(byte kind) {
+        return OUTLINES[kind];
     }
-}
\ No newline at end of file
+}
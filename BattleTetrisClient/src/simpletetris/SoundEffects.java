@@ -0,0 +1,61 @@
+package simpletetris;
+
+import tetriscore.GameAction;
+import tetriscore.GameListener;
+import static tetriscore.GarbageHandler.*;
+
+/**
+ * Plays the sound effects of a TetrisMatrix.<br>
+ * The game itself never touches the {@link AudioPlayer}; attaching one of
+ * these to a matrix is what makes it heard.
+ * @author Jed Wang
+ */
+public class SoundEffects implements GameListener {
+    @Override
+    public void actionExecuted(GameAction action, boolean moved) {
+        switch(action) {
+            case ROTATE_LEFT:
+            case ROTATE_RIGHT:
+                if(moved) AudioPlayer.playMoveSFX(1.0);
+                break;
+            case MOVE_LEFT:
+            case MOVE_RIGHT:
+            case SOFT_DROP:
+                AudioPlayer.playMoveSFX(0.1);
+                break;
+            case HARD_DROP:
+                AudioPlayer.playMoveSFX(1.0);
+                break;
+        }
+    }
+
+    @Override
+    public void linesCleared(int lines, int clearType, int combo,
+            boolean allClear) {
+        if(lines == 0) return;
+        if(allClear) {
+            AudioPlayer.playAllClearSFX();
+            return;
+        }
+        switch(clearType) {
+            case NORMAL:
+                if(lines == 4) {
+                    AudioPlayer.playTSpinSFX(2);
+                } else {
+                    // the combo sounds start from the first clear
+                    AudioPlayer.playComboSFX(combo - 1);
+                }
+                break;
+            case T_SPIN:
+            case T_SPIN_MINI:
+            case ALL_SPIN:
+                AudioPlayer.playTSpinSFX(lines);
+                break;
+        }
+    }
+
+    @Override
+    public void garbageReceived(int lines) {
+        AudioPlayer.playGarbageSFX();
+    }
+}
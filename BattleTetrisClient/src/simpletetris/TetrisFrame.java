@@ -3,8 +3,14 @@ package simpletetris;
 import java.awt.Dimension;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
 import javax.swing.JFrame;
 import javax.swing.JOptionPane;
+import tetriscore.GameLoop;
+import tetriscore.Replay;
+import tetriscore.ReplayPlayer;
+import tetriscore.TetrisMatrix;
 
 /**
  * The Frame for this application
@@ -30,20 +36,11 @@ public class TetrisFrame extends JFrame {
      * Creates a new TetrisFrame.
      */
     public TetrisFrame() {
-        super("Simple Tetris");
-        panel = new TetrisPanel();
-        player = panel.playerMatrix;
-        opponent = panel.opponentMatrix;
-        
-        super.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
-        super.setSize(new Dimension(2*TetrisMatrix.WIDTH*Mino.MINO_WIDTH + 570, 
-                (int) ((TetrisMatrix.VISIBLE_HEIGHT+1)*Mino.MINO_WIDTH) + 105));
-        super.setResizable(true);
-        super.getContentPane().add(panel);
+        this("Simple Tetris", new TetrisPanel());
         
         TetrisKeyAdapter tka = new TetrisKeyAdapter(panel.playerMatrix);
         tka.setActionListener((ActionEvent e) -> {
-            notifyListener(e.getActionCommand());
+            panel.send(e.getActionCommand());
         });
         super.addKeyListener(tka);
         
@@ -74,6 +71,86 @@ public class TetrisFrame extends JFrame {
         display();
     }
     
+    /**
+     * Creates a new TetrisFrame which watches a match between two 
+     * other players.
+     * @param leftName the name of the player on the left
+     * @param rightName the name of the player on the right
+     */
+    public TetrisFrame(String leftName, String rightName) {
+        this("Simple Tetris - Spectating", 
+                new TetrisPanel(leftName, rightName));
+        
+        display();
+    }
+    
+    /**
+     * Creates a new TetrisFrame which plays back a replay. 
+     * Left and right jump back and ahead {@link #SEEK_SECONDS} seconds, 
+     * up and down double and halve the speed, space pauses and home 
+     * goes back to the start.
+     * @param replay the replay to play back
+     */
+    public TetrisFrame(Replay replay) {
+        this("Simple Tetris - Replay", 
+                new TetrisPanel(new ReplayPlayer(replay)));
+        
+        ReplayPlayer rp = panel.getReplay();
+        int seek = SEEK_SECONDS * GameLoop.TICKS_PER_SECOND;
+        super.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                switch(e.getKeyCode()) {
+                    case KeyEvent.VK_LEFT:
+                        panel.post(() -> 
+                                panel.seekReplay(rp.getTicks() - seek));
+                        break;
+                    case KeyEvent.VK_RIGHT:
+                        panel.post(() -> 
+                                panel.seekReplay(rp.getTicks() + seek));
+                        break;
+                    case KeyEvent.VK_HOME:
+                        panel.post(() -> panel.seekReplay(0));
+                        break;
+                    case KeyEvent.VK_UP:
+                        panel.post(() -> rp.setSpeed(rp.getSpeed() * 2));
+                        break;
+                    case KeyEvent.VK_DOWN:
+                        panel.post(() -> rp.setSpeed(rp.getSpeed() / 2));
+                        break;
+                    case KeyEvent.VK_SPACE:
+                        panel.post(() -> rp.setPaused(!rp.isPaused()));
+                        break;
+                }
+            }
+        });
+        
+        display();
+    }
+    
+    /**
+     * How far the arrow keys jump through a replay, in seconds
+     */
+    private static final int SEEK_SECONDS = 5;
+    
+    /**
+     * Sets up a TetrisFrame around the given panel.
+     * @param title the title of the frame
+     * @param panel the Panel for this application
+     */
+    private TetrisFrame(String title, TetrisPanel panel) {
+        super(title);
+        this.panel = panel;
+        player = panel.playerMatrix;
+        opponent = panel.opponentMatrix;
+        
+        super.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        super.setSize(new Dimension(2*TetrisMatrix.WIDTH*Mino.MINO_WIDTH + 570, 
+                (int) ((MatrixRenderer.VISIBLE_HEIGHT+1)*Mino.MINO_WIDTH) + 105));
+        super.setResizable(true);
+        super.getContentPane().add(panel);
+    }
+    
     /**
      * The listener which is listening in
      */
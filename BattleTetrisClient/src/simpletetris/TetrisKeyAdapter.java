@@ -5,8 +5,12 @@ import java.awt.event.ActionListener;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import static java.awt.event.KeyEvent.*;
-import java.util.HashMap;
-import static simpletetris.TetrisKeyAdapter.GameAction.*;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import tetriscore.GameAction;
+import tetriscore.GameLoop;
+import tetriscore.TetrisMatrix;
+import static tetriscore.GameAction.*;
 
 /**
  * A MouseAdapter which listens in to key presses.
@@ -19,9 +23,32 @@ public class TetrisKeyAdapter extends KeyAdapter {
     private TetrisMatrix matrix;
     
     /**
-     * Stores whether a key is pressed
+     * When each action's key was pressed, by {@link System#nanoTime()}, 
+     * or 0 if it isn't held. Written by the keyboard, read every tick.
      */
-    private volatile HashMap<GameAction, Boolean> pressed;
+    private final AtomicLongArray pressedAt;
+    
+    /**
+     * How many times each action's key has been pressed, so that a tap 
+     * shorter than a tick isn't lost. Written by the keyboard, read 
+     * every tick.
+     */
+    private final AtomicIntegerArray presses;
+    
+    /**
+     * How many presses of each action have been handled
+     */
+    private final int[] handled;
+    
+    /**
+     * How many times each held action has repeated
+     */
+    private final int[] repeats;
+    
+    /**
+     * Whether each held action is repeating
+     */
+    private final boolean[] repeating;
     
     /**
      * Creates a new TetrisMouseAdapter.
@@ -30,191 +57,163 @@ public class TetrisKeyAdapter extends KeyAdapter {
     public TetrisKeyAdapter(TetrisMatrix matrix) {
         this.matrix = matrix;
         
-        pressed = new HashMap<>();
-        for(GameAction value : values()) {
-            pressed.put(value, false);
-        }
+        int actions = values().length;
+        pressedAt = new AtomicLongArray(actions);
+        presses = new AtomicIntegerArray(actions);
+        handled = new int[actions];
+        repeats = new int[actions];
+        repeating = new boolean[actions];
     }
-
-    @Override
-    public void keyPressed(KeyEvent e) {
-        switch(e.getKeyCode()) {
+    
+    /**
+     * Determines which action a key does.
+     * @param keyCode the key
+     * @return the action, or {@code null} if the key does nothing
+     */
+    private static GameAction actionOf(int keyCode) {
+        switch(keyCode) {
             case VK_LEFT:
             case VK_NUMPAD4:
-                if(pressed.get(MOVE_LEFT))
-                    break;
-                pressed.put(MOVE_LEFT, true);
-                DASaction(MOVE_LEFT);
-                break;
+                return MOVE_LEFT;
             case VK_RIGHT:
             case VK_NUMPAD6:
-                if(pressed.get(MOVE_RIGHT))
-                    break;
-                pressed.put(MOVE_RIGHT, true);
-                DASaction(MOVE_RIGHT);
-                break;
+                return MOVE_RIGHT;
             case VK_SPACE:
             case VK_NUMPAD8:
-                if(pressed.get(HARD_DROP))
-                    break;
-                pressed.put(HARD_DROP, true);
-                executeAction(HARD_DROP);
-                // notifyListener("M" + HARD_DROP.shorthand);
-                break;
+                return HARD_DROP;
             case VK_DOWN:
             case VK_NUMPAD2:
-                if(pressed.get(SOFT_DROP))
-                    break;
-                pressed.put(SOFT_DROP, true);
-                DASaction(SOFT_DROP);
-                break;
+                return SOFT_DROP;
             case VK_UP:
             case VK_X:
             case VK_NUMPAD1:
             case VK_NUMPAD5:
             case VK_NUMPAD9:
-                if(pressed.get(ROTATE_RIGHT))
-                    break;
-                executeAction(ROTATE_RIGHT);
-                // notifyListener("M" + ROTATE_RIGHT.shorthand);
-                break;
+                return ROTATE_RIGHT;
             case VK_CONTROL:
             case VK_Z:
             case VK_NUMPAD3:
             case VK_NUMPAD7:
-                if(pressed.get(ROTATE_LEFT))
-                    break;
-                pressed.put(ROTATE_LEFT, true);
-                executeAction(ROTATE_LEFT);
-                // notifyListener("M" + ROTATE_LEFT.shorthand);
-                break;
+                return ROTATE_LEFT;
             case VK_SHIFT:
             case VK_C:
             case VK_NUMPAD0:
-                if(pressed.get(HOLD))
-                    break;
-                pressed.put(HOLD, true);
-                executeAction(HOLD);
-                // notifyListener("M" + HOLD.shorthand);
-                break;
+                return HOLD;
             /*case VK_ESCAPE:
             case VK_F1:
             case VK_P:
-                if(pressed.get(PAUSE))
-                    break;
-                pressed.put(PAUSE, true);
-                matrix.executeAction(PAUSE);
-                break;*/
+                return PAUSE;*/
+            default:
+                return null;
         }
     }
 
+    @Override
+    public void keyPressed(KeyEvent e) {
+        GameAction action = actionOf(e.getKeyCode());
+        if(action == null) return;
+        int i = action.ordinal();
+        // ignore the keyboard's own auto repeat
+        if(pressedAt.get(i) != 0) return;
+        pressedAt.set(i, System.nanoTime());
+        presses.incrementAndGet(i);
+    }
+
     @Override
     public void keyReleased(KeyEvent e) {
-        switch(e.getKeyCode()) {
-            case VK_LEFT:
-            case VK_NUMPAD4:
-                pressed.put(MOVE_LEFT, false);
-                break;
-            case VK_RIGHT:
-            case VK_NUMPAD6:
-                pressed.put(MOVE_RIGHT, false);
-                break;
-            case VK_SPACE:
-            case VK_NUMPAD8:
-                pressed.put(HARD_DROP, false);
-            case VK_DOWN:
-            case VK_NUMPAD2:
-                pressed.put(SOFT_DROP, false);
-                break;
-            case VK_UP:
-            case VK_X:
-            case VK_NUMPAD1:
-            case VK_NUMPAD5:
-            case VK_NUMPAD9:
-                pressed.put(ROTATE_RIGHT, false);
-                break;
-            case VK_CONTROL:
-            case VK_Z:
-            case VK_NUMPAD3:
-            case VK_NUMPAD7:
-                pressed.put(ROTATE_LEFT, false);
-                break;
-            case VK_SHIFT:
-            case VK_C:
-            case VK_NUMPAD0:
-                pressed.put(HOLD, false);
-                break;
-            /*case VK_ESCAPE:
-            case VK_F1:
-            case VK_P:
-                pressed.put(PAUSE, false);
-                break;*/
-        }
+        GameAction action = actionOf(e.getKeyCode());
+        if(action == null) return;
+        pressedAt.set(action.ordinal(), 0);
     }
     
     /**
-     * DAS-es an action
-     * @param action the action to DAS
+     * Samples the keyboard and performs every action which is due. 
+     * Called once per tick of the {@link GameLoop}.
      */
-    private void DASaction(GameAction action) {
-        new Thread(new DASer(action)).start();
+    public void tick() {
+        long now = System.nanoTime();
+        if(!listening) {
+            // drop anything pressed while not listening
+            for(GameAction action : values()) {
+                int i = action.ordinal();
+                handled[i] = presses.get(i);
+                stopRepeating(i);
+            }
+            return;
+        }
+        
+        for(GameAction action : new GameAction[]{HOLD, ROTATE_RIGHT, 
+                ROTATE_LEFT, HARD_DROP}) {
+            int i = action.ordinal(), p = presses.get(i);
+            while(handled[i] != p) {
+                handled[i]++;
+                executeAction(action);
+            }
+        }
+        
+        Handling h = Handling.get();
+        long das = h.getDas() * 1_000_000L, arr = h.getArr() * 1_000_000L, 
+                softDrop = TetrisMatrix.GRAVITY_TICKS * GameLoop.TICK_NANOS 
+                        / h.getSdf();
+        repeat(MOVE_LEFT, now, das, arr);
+        repeat(MOVE_RIGHT, now, das, arr);
+        repeat(SOFT_DROP, now, softDrop, softDrop);
     }
     
     /**
-     * counter
-    */
-    private static int cnt = 0;
-    
-    /**
-     * A class that handles DAS-ing: the delay as well as the repetition.
-     * @see http://tetris.wikia.com/wiki/DAS
+     * Performs a held action: once when it is pressed, then again 
+     * every interval once the delay has passed.
+     * @param action the action
+     * @param now the time of this tick, by {@link System#nanoTime()}
+     * @param delay how long the key has to be held before repeating, 
+     * in nanoseconds
+     * @param interval the time between repeats, in nanoseconds; 
+     * anything shorter than a tick repeats once every tick
      */
-    private class DASer implements Runnable {
-        /**
-         * The action to execute
-         */
-        private GameAction toExecute;
-
-        /**
-         * Creates a DASer and gives it an action to DAS
-         * @param toExecute the action to DAS
-         */
-        public DASer(GameAction toExecute) {
-            this.toExecute = toExecute;
+    private void repeat(GameAction action, long now, long delay, 
+            long interval) {
+        int i = action.ordinal(), p = presses.get(i);
+        if(handled[i] != p) {
+            handled[i] = p;
+            repeats[i] = 0;
+            executeAction(action);
         }
         
-        @Override
-        public void run() {
-            cnt++;
-            executeAction(toExecute);
-            try {
-                Thread.sleep(300);
-            } catch (InterruptedException ex) {
-                System.err.println("DAS thread interrupted.");
-            }
-            
+        long at = pressedAt.get(i);
+        if(at == 0) {
+            stopRepeating(i);
+            return;
+        }
+        long held = now - at;
+        if(held < delay) return;
+        
+        if(!repeating[i]) {
+            repeating[i] = true;
             matrix.pauseGravity();
-            while(pressed.get(toExecute)) {
-                if(cnt > 1) {
-                    cnt--;
-                    return;
-                }
-                executeAction(toExecute);
-                try {
-                    Thread.sleep(35);
-                } catch (InterruptedException ex) {
-                    System.err.println("DAS thread interrupted.");
-                }
-            }
+        }
+        interval = Math.max(interval, GameLoop.TICK_NANOS);
+        int due = (int) ((held - delay) / interval) + 1;
+        while(repeats[i] < due) {
+            repeats[i]++;
+            executeAction(action);
+        }
+    }
+    
+    /**
+     * Stops an action from repeating.
+     * @param i the ordinal of the action
+     */
+    private void stopRepeating(int i) {
+        if(repeating[i]) {
+            repeating[i] = false;
             matrix.resumeGravity();
-            cnt--;
         }
     }
     
     /**
      * Whether this TKA is listening to the keyboard or not
      */
-    private boolean listening = false;
+    private volatile boolean listening = false;
 
     /**
      * Returns whether this TKA is listening to the keyboard or not
@@ -240,7 +239,7 @@ public class TetrisKeyAdapter extends KeyAdapter {
      */
     private void executeAction(GameAction ga) {
         if(listening) {
-            notifyListener("M" + ga.shorthand);
+            notifyListener("M" + ga.getShorthand());
             matrix.executeAction(ga);
         }
     }
@@ -273,85 +272,4 @@ public class TetrisKeyAdapter extends KeyAdapter {
         if(listener != null)
             listener.actionPerformed(new ActionEvent(this, 0, message));
     }
-    
-    /**
-     * All possible game actions
-     */
-    public static enum GameAction {
-        /**
-         * Moves the active tetromino leftwards
-         */
-        MOVE_LEFT("L"), 
-
-        /**
-         * Moves the active tetromino rightwards
-         */
-        MOVE_RIGHT("R"), 
-
-        /**
-         * Hard drops the active tetromino
-         */
-        HARD_DROP("HD"), 
-
-        /**
-         * Drops the active tetromino down by 1
-         */
-        SOFT_DROP("SD"), 
-
-        /**
-         * Rotates the active tetromino clockwise
-         */
-        ROTATE_RIGHT("RR"),
-
-        /**
-         * Rotates the active tetromino counterclockwise
-         */
-        ROTATE_LEFT("RL"),
-
-        /**
-         * Switches the held tetromino with the currently active one
-         */
-        HOLD("H"),
-
-        /**
-         * Refers to when the active tetromino falls down due to gravity
-         */
-        GRAVITY("G");
-        
-        /**
-         * Shorthand notation for this move
-         */
-        private final String shorthand;
-
-        /**.
-         * Instantiates a GameAction.
-         * @param shorthand the shorthand notation for this action.
-         */
-        private GameAction(String shorthand) {
-            this.shorthand = shorthand;
-        }
-
-        /**
-         * Returns the shorthand notation for this move
-         * @return the shorthand notation for this move
-         */
-        public String getShorthand() {
-            return shorthand;
-        }
-        
-        /**
-         * Determines the GameAction referred to by the String and returns it.
-         * If the given String doesn't match a GameAction, null is returned.
-         * @param sh the String that represents the wanted GameAction
-         * @return the GameAction that is represented by the given String
-         */
-        public static GameAction fromShorthand(String sh) {
-            for(GameAction ga : values()) {
-                if(ga.getShorthand().equals(sh)) {
-                    return ga;
-                }
-            }
-            return null;
-        }
-    }
 }
@@ -2,6 +2,7 @@ package simpletetris;
 
 import java.awt.BasicStroke;
 import java.awt.Color;
+import java.awt.EventQueue;
 import java.awt.Font;
 import java.awt.FontMetrics;
 import java.awt.Graphics;
@@ -12,15 +13,29 @@ import java.awt.event.ActionListener;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.NoninvertibleTransformException;
 import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import javax.imageio.ImageIO;
 import javax.swing.JPanel;
 import roomclient.ServerCommunication;
-import static simpletetris.TetrisMatrix.*;
+import tetriscore.GameEvents;
+import tetriscore.GameListener;
+import tetriscore.GameLoop;
+import tetriscore.MatrixState;
+import tetriscore.Replay;
+import tetriscore.ReplayPlayer;
+import tetriscore.ReplayRecorder;
+import tetriscore.Rollback;
+import tetriscore.TetrisBag;
+import tetriscore.TetrisMatrix;
+import util.Scheduler;
+import static simpletetris.MatrixRenderer.*;
 
 /**
  * The JPanel where all of the images are drawn
@@ -47,6 +62,48 @@ public class TetrisPanel extends JPanel implements Runnable {
      */
     private int opponentScore;
     
+    /**
+     * Shows the opponent's matrix ahead of their inputs, and rolls it 
+     * back when they arrive.
+     */
+    public final Rollback opponentRollback;
+    
+    /**
+     * How many ticks the player's matrix has run this round
+     */
+    private int playerTicks = 0;
+    
+    /**
+     * The tick the commands sent last were stamped with
+     */
+    private int sentStamp = -1;
+    
+    /**
+     * How many pieces the player locks between snapshots of their matrix
+     */
+    public static final int SNAPSHOT_INTERVAL = 8;
+    
+    /**
+     * How many pieces the player locked since the last snapshot
+     */
+    private int locksSinceSnapshot = 0;
+    
+    /**
+     * Holds the snapshots of the player's matrix while they are sent
+     */
+    private final MatrixState snapshot = new MatrixState();
+    
+    /**
+     * Draws the player's matrix.
+     */
+    private final MatrixRenderer playerRenderer = new MatrixRenderer(true);
+    
+    /**
+     * Draws the opponent's matrix.
+     */
+    private final MatrixRenderer opponentRenderer = 
+            new MatrixRenderer(false);
+    
     /**
      * The TetrisKeyAdapter that is listening in to this Panel.
      */
@@ -55,7 +112,7 @@ public class TetrisPanel extends JPanel implements Runnable {
     /**
      * The image to draw in the center
      */
-    private BufferedImage centerImage;
+    private volatile BufferedImage centerImage;
     
     /**
      * The y for the transform.
@@ -129,105 +186,347 @@ public class TetrisPanel extends JPanel implements Runnable {
     }
     
     /**
-     * Whether to stop
+     * Advances both matrixes and redraws this panel
+     */
+    private final GameLoop loop = new GameLoop(this::tick, this::render);
+    
+    /**
+     * Where this panel is in the events of each matrix
+     */
+    private final GameEvents.Cursor playerEvents, opponentEvents;
+    
+    /**
+     * Where the sound effects are in the events of each matrix
+     */
+    private final GameEvents.Cursor playerSounds, opponentSounds;
+    
+    /**
+     * What this panel does with the events of each matrix
      */
-    private boolean stop = false;
+    private final GameListener playerListener, opponentListener;
+    
+    /**
+     * Plays the sounds of both matrixes
+     */
+    private final SoundEffects sounds;
+    
+    /**
+     * Records the player's game, if one is being played
+     */
+    private ReplayRecorder recorder = null;
+    
+    /**
+     * Where the replays of the player's games are saved
+     */
+    public static final String REPLAY_DIRECTORY = "replays";
+    
+    /**
+     * The next step of starting a round, if one is waiting
+     */
+    private volatile ScheduledFuture<?> pending = null;
+    
+    /**
+     * Whether this TetrisPanel only shows a match between two other players
+     */
+    private final boolean spectating;
+    
+    /**
+     * The names of the players being watched
+     */
+    private final String leftName, rightName;
+    
+    /**
+     * Plays the replay being watched, or {@code null} if this isn't 
+     * showing one
+     */
+    private final ReplayPlayer replay;
 
     /**
      * Creates a new TetrisPanel.
      */
     public TetrisPanel() {
+        this(false, null, null, null);
+    }
+
+    /**
+     * Creates a new TetrisPanel which shows a match between two other 
+     * players. Both matrixes are driven by commands from the server, and 
+     * rounds start whenever the server sends the starting bags.
+     * @param leftName the name of the player on the left
+     * @param rightName the name of the player on the right
+     */
+    public TetrisPanel(String leftName, String rightName) {
+        this(true, leftName, rightName, null);
+    }
+
+    /**
+     * Creates a new TetrisPanel which shows a replay of one of the 
+     * player's games on the left. Nothing is sent to the server, and 
+     * the right matrix stays empty.
+     * @param replay plays the replay
+     */
+    public TetrisPanel(ReplayPlayer replay) {
+        this(true, "Replay", null, replay);
+    }
+
+    /**
+     * Creates a new TetrisPanel.
+     * @param spectating whether this TetrisPanel only shows a match 
+     * between two other players
+     * @param leftName the name of the player on the left when spectating
+     * @param rightName the name of the player on the right when spectating
+     * @param replay plays the replay being watched, or {@code null}
+     */
+    private TetrisPanel(boolean spectating, String leftName, 
+            String rightName, ReplayPlayer replay) {
+        this.spectating = spectating;
+        this.leftName = leftName;
+        this.rightName = rightName;
+        this.replay = replay;
         playerScore = 0; 
         opponentScore = 0;
-        playerMatrix = new TetrisMatrix(true);
-        opponentMatrix = new TetrisMatrix(false);
+        playerMatrix = (replay == null) 
+                ? new TetrisMatrix(true, !spectating) : replay.getMatrix();
+        // a replay isn't part of a match, so no starting bag is waiting
+        opponentMatrix = (replay == null) 
+                ? new TetrisMatrix(false) : new TetrisMatrix(false, false, "");
+        opponentRollback = new Rollback(opponentMatrix);
+        if(!spectating) {
+            playerMatrix.setKickTable(ServerCommunication.getKickTable());
+            opponentMatrix.setKickTable(ServerCommunication.getKickTable());
+            playerMatrix.setRandomizer(ServerCommunication.getRandomizer());
+            playerMatrix.setRuleset(ServerCommunication.getRuleset());
+            opponentMatrix.setRuleset(ServerCommunication.getRuleset());
+        }
         
         centerImage = null;
         
-        playerMatrix.addActionListener((ActionEvent e) -> {
-            String command = e.getActionCommand();
-            if(command.equals("GAMEOVER")) {
+        sounds = new SoundEffects();
+        playerSounds = playerMatrix.getEvents().cursor();
+        opponentSounds = opponentMatrix.getEvents().cursor();
+        
+        playerEvents = playerMatrix.getEvents().cursor();
+        playerListener = new GameListener() {
+            /**
+             * The garbage added on this lock so far, as "hole lines" pairs
+             */
+            private final StringBuilder garbage = new StringBuilder();
+            
+            @Override
+            public void pieceLocked(int x, int y) {
+                send("LOCK" + x + " " + y);
+                locksSinceSnapshot++;
+            }
+            
+            @Override
+            public void garbageAdded(int hole, int lines) {
+                garbage.append(hole).append(' ').append(lines).append(' ');
+            }
+            
+            @Override
+            public void garbageReceived(int lines) {
+                send("GL" + garbage.toString().trim());
+                garbage.setLength(0);
+            }
+            
+            @Override
+            public void bagGenerated(int bag) {
+                send("NB" + TetrisBag.unpack(bag));
+            }
+            
+            @Override
+            public void gravityPaused() {
+                send("GCP");
+            }
+            
+            @Override
+            public void gravityResumed() {
+                send("GCR");
+            }
+            
+            @Override
+            public void gameOver() {
                 opponentScore++;
                 System.out.println("You lose. :(");
                 AudioPlayer.stopBackgroundMusic();
                 AudioPlayer.playLoseGameSFX();
+                if(!spectating) notifyListeners("GAMEOVER");
+                saveReplay();
                 reset();
                 loseTransformV = 1;
-                Executors.newSingleThreadScheduledExecutor()
-                        .schedule(() -> {
+                if(!spectating) pending = Scheduler.schedule(() -> {
                     if(opponentScore == 2) {
-                        notifyListeners("MATCHOVERfalse");
-                    } else {
+                        // the frame shows a dialog, so not on a game thread
+                        EventQueue.invokeLater(() -> 
+                                notifyListeners("MATCHOVERfalse"));
+                    } else loop.post(() -> {
                         playerMatrix.resetBags();
                         opponentMatrix.resetBags();
                         startGame();
-                    }
+                    });
                 }, 5, TimeUnit.SECONDS);
-            } else if(command.startsWith("SEND")) {
-                opponentMatrix.addToGarbage(command.substring(4));
-            } else notifyListeners(command);
-        });
+            }
+            
+            @Override
+            public void attackSent(int lines) {
+                opponentRollback.inject(m -> m.addToGarbage(lines));
+            }
+        };
         
-        opponentMatrix.addActionListener((ActionEvent e) -> {
-            String command = e.getActionCommand();
-            if(command.equals("GAMEOVER")) {
+        opponentEvents = opponentMatrix.getEvents().cursor();
+        opponentListener = new GameListener() {
+            @Override
+            public void gameOver() {
                 playerScore++;
                 System.out.println("You win! :)");
                 AudioPlayer.stopBackgroundMusic();
                 AudioPlayer.playWinGameSFX();
+                saveReplay();
                 reset();
                 loseTransformV = -1;
-                Executors.newSingleThreadScheduledExecutor()
-                        .schedule(() -> {
+                if(!spectating) pending = Scheduler.schedule(() -> {
                     if(playerScore == 2) {
-                        notifyListeners("MATCHOVERtrue");
-                    } else {
+                        // the frame shows a dialog, so not on a game thread
+                        EventQueue.invokeLater(() -> 
+                                notifyListeners("MATCHOVERtrue"));
+                    } else loop.post(() -> {
                         playerMatrix.resetBags();
                         opponentMatrix.resetBags();
                         startGame();
-                    }
+                    });
                 }, 5, TimeUnit.SECONDS);
-            } else if(command.startsWith("SEND")) {
-                playerMatrix.addToGarbage(command.substring(4));
             }
-        });
+            
+            @Override
+            public void attackSent(int lines) {
+                playerMatrix.addToGarbage(lines);
+            }
+        };
         
-        startGame();
+        if(replay != null) {
+            // the replay's matrix was started when it was loaded
+        } else if(spectating) {
+            beginRound();
+        } else {
+            startGame();
+        }
     }
     
     /**
      * Resets both matrixes.
      */
     private void reset() {
-        tka.setListening(false);
+        if(tka != null) tka.setListening(false);
         playerMatrix.reset();
         opponentMatrix.reset();
-        notifyListeners("SB");
+        opponentRollback.reset();
+        if(!spectating) notifyListeners("SB");
+    }
+    
+    /**
+     * Starts the next round of the match being watched right away, 
+     * using the starting bags from the server. 
+     * Must be run on the game's thread.
+     * @see #post(java.lang.Runnable)
+     */
+    public void startRound() {
+        reset();
+        playerMatrix.resetBags();
+        opponentMatrix.resetBags();
+        beginRound();
+    }
+    
+    /**
+     * Starts a round of the match being watched without any countdown.
+     */
+    private void beginRound() {
+        loseTransformV = 0;
+        loseTransformY = 0;
+        centerImage = null;
+        playerMatrix.clearMatrix();
+        opponentMatrix.clearMatrix();
+        playerMatrix.start();
+        opponentMatrix.start();
+        opponentRollback.start();
+    }
+    
+    /**
+     * Returns the name of the player on the left.
+     * @return the name of the player on the left
+     */
+    private String getLeftName() {
+        return spectating ? leftName : ServerCommunication.getMyName();
+    }
+    
+    /**
+     * Returns the name of the player on the right.
+     * @return the name of the player on the right
+     */
+    private String getRightName() {
+        if(replay != null) return time(replay.getTicks()) + " / " 
+                + time(replay.getLength()) + " (" + replay.getSpeed() + "x)";
+        return spectating ? rightName : ServerCommunication.getOpponentName();
+    }
+    
+    /**
+     * Formats a number of ticks as minutes and seconds.
+     * @param ticks the number of ticks
+     * @return the time, like 1:05
+     */
+    private static String time(int ticks) {
+        int seconds = ticks / GameLoop.TICKS_PER_SECOND;
+        return String.format("%d:%02d", seconds / 60, seconds % 60);
+    }
+    
+    /**
+     * Returns the replay this panel shows.
+     * @return plays the replay, or {@code null} if this panel doesn't 
+     * show one
+     */
+    public ReplayPlayer getReplay() {
+        return replay;
+    }
+    
+    /**
+     * Jumps the replay being watched to a tick. Sounds from the ticks 
+     * skipped over aren't played. 
+     * Must be run on the game's thread.
+     * @param tick the tick
+     * @see #post(java.lang.Runnable)
+     */
+    public void seekReplay(int tick) {
+        try {
+            replay.seek(tick);
+        } catch (IOException ex) {
+            System.err.println("Couldn't seek the replay: " + ex);
+        }
+        playerSounds.skip();
     }
     
     /**
      * Starts a game.
      */
     private void startGame() {
-        new Thread(() -> {
-            try {
-                loseTransformV = 0;
-                loseTransformY = 0;
-                playerMatrix.clearMatrix();
-                opponentMatrix.clearMatrix();
-                // AudioPlayer.playInGameBackground();
-                centerImage = READY;
-                Thread.sleep(1000);
-                centerImage = GO;
-                Thread.sleep(500);
+        loseTransformV = 0;
+        loseTransformY = 0;
+        playerMatrix.clearMatrix();
+        opponentMatrix.clearMatrix();
+        // AudioPlayer.playInGameBackground();
+        centerImage = READY;
+        pending = Scheduler.schedule(() -> {
+            centerImage = GO;
+            pending = Scheduler.schedule(() -> loop.post(() -> {
                 centerImage = null;
+                recorder = new ReplayRecorder(playerMatrix);
+                playerTicks = 0;
+                sentStamp = -1;
+                locksSinceSnapshot = 0;
                 playerMatrix.start();
                 opponentMatrix.start();
+                opponentRollback.start();
                 tka.setListening(true);
-            } catch (InterruptedException ex) {
-                ex.printStackTrace();
-            }
-        }).start();
+            }), 500, TimeUnit.MILLISECONDS);
+        }, 1000, TimeUnit.MILLISECONDS);
     }
     
     @Override
@@ -255,7 +554,7 @@ public class TetrisPanel extends JPanel implements Runnable {
         if(loseTransformY > 0) {
             if(loseTransformY < getHeight()) {
                 g2D.translate(0, loseTransformY);
-                playerMatrix.draw(g2D);
+                playerRenderer.draw(g2D, playerMatrix.getSnapshot());
                 g2D.translate(0, -loseTransformY);
             } else {
                 g2D.translate(235 + Mino.MINO_WIDTH*TetrisMatrix.WIDTH - 
@@ -267,7 +566,7 @@ public class TetrisPanel extends JPanel implements Runnable {
                 g2D.setFont(new Font("Consolas", Font.PLAIN, 36));
             }
         } else {
-            playerMatrix.draw(g2D);
+            playerRenderer.draw(g2D, playerMatrix.getSnapshot());
         }
         
         AffineTransform at1 = g2D.getTransform(), it1 = null;
@@ -292,9 +591,9 @@ public class TetrisPanel extends JPanel implements Runnable {
         
         // Determine the X coordinate for the text
         int x1 = (int) ((MATRIX_WIDTH - metrics1.stringWidth(
-                ServerCommunication.getMyName())) / 2);
+                getLeftName())) / 2);
         // Draw the String
-        g2D.drawString(ServerCommunication.getMyName(), x1, 
+        g2D.drawString(getLeftName(), x1, 
                 (int) (MATRIX_HEIGHT + metrics1.getHeight()));
         
         try {
@@ -328,7 +627,7 @@ public class TetrisPanel extends JPanel implements Runnable {
         if(loseTransformY < 0) {
             if(-loseTransformY < getHeight()) {
                 g2D.translate(0, -loseTransformY);
-                opponentMatrix.draw(g2D);
+                opponentRenderer.draw(g2D, opponentMatrix.getSnapshot());
                 g2D.translate(0, loseTransformY);
             } else {
                 g2D.translate(235 + Mino.MINO_WIDTH*TetrisMatrix.WIDTH - 
@@ -339,7 +638,7 @@ public class TetrisPanel extends JPanel implements Runnable {
                         RenderingHints.VALUE_ANTIALIAS_ON);
                 g2D.setFont(new Font("Consolas", Font.PLAIN, 36));
             }
-        } else opponentMatrix.draw(g2D);
+        } else opponentRenderer.draw(g2D, opponentMatrix.getSnapshot());
         
         AffineTransform at2 = g2D.getTransform(), it2 = null;
         try {
@@ -364,10 +663,10 @@ public class TetrisPanel extends JPanel implements Runnable {
         
         // Determine the X coordinate for the text
         int x2 = (int) ((MATRIX_WIDTH - metrics2.stringWidth(
-                ServerCommunication.getOpponentName())) / 2);
+                getRightName())) / 2);
         // Draw the String
         g2D.setColor(Color.BLACK);
-        g2D.drawString(ServerCommunication.getOpponentName(), x2, 
+        g2D.drawString(getRightName(), x2, 
                 (int) (MATRIX_HEIGHT + metrics1.getHeight()));
         
         try {
@@ -409,15 +708,118 @@ public class TetrisPanel extends JPanel implements Runnable {
 
     @Override
     public void run() {
-        while(!stop) {
-            repaint();
-            updateVariables();
-            try {
-                Thread.sleep(20);
-            } catch (InterruptedException ex) {
-                System.err.println("Interrupted.");
+        loop.run();
+    }
+    
+    /**
+     * Runs a command on the game's thread before the next tick. 
+     * Anything which changes either matrix from another thread has to 
+     * go through here.
+     * @param command the command
+     */
+    public void post(Runnable command) {
+        loop.post(command);
+    }
+    
+    /**
+     * Publishes what both matrixes look like after this tick and 
+     * asks for them to be drawn.
+     */
+    private void render() {
+        playerMatrix.publish();
+        opponentMatrix.publish();
+        repaint();
+    }
+    
+    /**
+     * Advances the game by one tick of the {@link GameLoop}.
+     */
+    private void tick() {
+        TetrisKeyAdapter keys = tka;
+        if(keys != null) keys.tick();
+        // what the keys did goes out stamped with the tick it came before
+        if(replay == null) playerEvents.poll(playerListener);
+        if(!spectating && locksSinceSnapshot >= SNAPSHOT_INTERVAL) {
+            sendSnapshot();
+        }
+        if(recorder != null) recorder.tick();
+        if(replay != null) replay.tick();
+        else playerMatrix.tick();
+        playerTicks++;
+        opponentRollback.tick();
+        pollEvents();
+        // the animations of this panel step every other tick
+        if(loop.getTicks() % 2 == 0) updateVariables();
+    }
+    
+    /**
+     * Sends a command about the player's matrix to the opponent. The 
+     * first command of every tick is preceded by a stamp of that tick, 
+     * so that the opponent knows when it happened; clients which 
+     * don't know stamps ignore them. 
+     * Must be run on the game's thread.
+     * @param command the command
+     * @see Rollback
+     */
+    public void send(String command) {
+        if(playerTicks != sentStamp) {
+            notifyListeners("TICK" + playerTicks);
+            sentStamp = playerTicks;
+        }
+        notifyListeners(command);
+    }
+    
+    /**
+     * Sends a snapshot of the player's matrix, so that spectators who 
+     * join later are caught up from it instead of from the whole round. 
+     * Everything the snapshot holds has been sent already, so it goes 
+     * out after all the commands of this tick. 
+     * Must be run on the game's thread.
+     */
+    private void sendSnapshot() {
+        locksSinceSnapshot = 0;
+        playerMatrix.save(snapshot);
+        send("SNAP" + snapshot.toText());
+    }
+    
+    /**
+     * Stops recording the player's game and saves the replay in the 
+     * background, so the game never waits on the disk.
+     */
+    private void saveReplay() {
+        if(recorder == null) return;
+        Replay replay = recorder.finish();
+        recorder = null;
+        Scheduler.schedule(() -> {
+            File directory = new File(REPLAY_DIRECTORY);
+            directory.mkdirs();
+            File file = new File(directory, 
+                    System.currentTimeMillis() + ".replay");
+            try(OutputStream out = new BufferedOutputStream(
+                    new FileOutputStream(file))) {
+                replay.write(out);
+            } catch (IOException ex) {
+                System.err.println("Couldn't save the replay: " + ex);
             }
+        }, 0, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Hands everything that happened to either matrix to whatever 
+     * listens to it. The matrixes never wait on any of them.
+     */
+    private void pollEvents() {
+        if(replay != null) {
+            // nothing is sent, and sounds only make sense at the real speed
+            playerEvents.skip();
+            if(replay.getSpeed() == 1) playerSounds.poll(sounds);
+            else playerSounds.skip();
+            return;
         }
+        playerEvents.poll(playerListener);
+        opponentEvents.poll(opponentListener);
+        playerSounds.poll(sounds);
+        opponentSounds.poll(sounds);
     }
     
     /**
@@ -439,7 +841,7 @@ public class TetrisPanel extends JPanel implements Runnable {
      * Stops drawing.
      */
     public void stop() {
-        stop = true;
+        loop.stop();
     }
     
     /**
@@ -480,7 +882,8 @@ public class TetrisPanel extends JPanel implements Runnable {
      * continuing in the background.
      */
     public void terminate() {
-        stop = true;
+        loop.stop();
+        Scheduler.cancel(pending);
         playerMatrix.terminate();
         opponentMatrix.terminate();
     }
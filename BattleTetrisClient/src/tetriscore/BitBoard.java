@@ -0,0 +1,432 @@
+package tetriscore;
+
+import java.util.Arrays;
+
+/**
+ * A Tetris board which stores one bitmask per row for occupancy and a
+ * compact byte per cell for what kind of mino is there.<br>
+ * Bit {@code x} of a row's mask is set when the cell in column {@code x}
+ * is filled, so checking a whole row only takes a few bitwise operations.
+ * Row 0 is the top of the board.
+ * @author Jed Wang
+ */
+public class BitBoard {
+    /**
+     * The kind of an empty cell
+     */
+    public static final byte EMPTY = 0;
+
+    /**
+     * The kinds of the minos of every piece
+     */
+    public static final byte I = 1, J = 2, L = 3, O = 4, S = 5, T = 6, Z = 7;
+
+    /**
+     * The kind of a garbage cell
+     */
+    public static final byte GARBAGE = 8;
+
+    /**
+     * The width of this board
+     */
+    private final int width;
+
+    /**
+     * The height of this board
+     */
+    private final int height;
+
+    /**
+     * The mask of a completely filled row
+     */
+    private final int fullRow;
+
+    /**
+     * The occupancy of every row
+     */
+    private final int[] rows;
+
+    /**
+     * The kind of every cell, row by row
+     */
+    private final byte[] kinds;
+
+    /**
+     * The topmost filled row of every column, or the height of the board
+     * if the column is empty
+     */
+    private final int[] tops;
+
+    /**
+     * How many cells are filled
+     */
+    private int filledCells;
+
+    /**
+     * How many rows are completely filled
+     */
+    private int filledRows;
+
+    /**
+     * The array index of row 0: rows are kept in a ring so that pushing 
+     * every row up only moves this index
+     */
+    private int base;
+
+    /**
+     * Creates a new, empty BitBoard.
+     * @param width the width of the board; at most 31
+     * @param height the height of the board
+     */
+    public BitBoard(int width, int height) {
+        if(width < 1 || width > 31)
+            throw new IllegalArgumentException("Illegal width: " + width);
+        this.width = width;
+        this.height = height;
+        fullRow = (1 << width) - 1;
+        rows = new int[height];
+        kinds = new byte[width * height];
+        tops = new int[width];
+        Arrays.fill(tops, height);
+        filledCells = 0;
+        filledRows = 0;
+        base = 0;
+    }
+
+    /**
+     * Returns the array index of a row.
+     * @param y the row
+     * @return where the row is kept in the arrays
+     */
+    private int row(int y) {
+        int r = base + y;
+        return (r >= height) ? r - height : r;
+    }
+
+    /**
+     * Returns the width of this board.
+     * @return the width of this board
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the height of this board.
+     * @return the height of this board
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Returns the kind of a cell.
+     * @param x the column of the cell
+     * @param y the row of the cell
+     * @return the kind of the cell
+     */
+    public byte getKind(int x, int y) {
+        return kinds[row(y) * width + x];
+    }
+
+    /**
+     * Determines whether a cell is filled.
+     * @param x the column of the cell
+     * @param y the row of the cell
+     * @return whether the cell is filled
+     */
+    public boolean isFilled(int x, int y) {
+        return (rows[row(y)] & (1 << x)) != 0;
+    }
+
+    /**
+     * Sets the kind of a cell.
+     * @param x the column of the cell
+     * @param y the row of the cell
+     * @param kind the kind
+     */
+    public void setKind(int x, int y, byte kind) {
+        kinds[row(y) * width + x] = kind;
+        if(kind == EMPTY) {
+            setRow(y, rows[row(y)] & ~(1 << x));
+        } else {
+            setRow(y, rows[row(y)] | 1 << x);
+        }
+    }
+
+    /**
+     * Changes the occupancy of a row, keeping the counters and the 
+     * column heights up to date.
+     * @param y the row
+     * @param mask the new occupancy of the row
+     */
+    private void setRow(int y, int mask) {
+        int p = row(y), old = rows[p];
+        if(old == mask) return;
+        rows[p] = mask;
+        filledCells += Integer.bitCount(mask) - Integer.bitCount(old);
+        if(old == fullRow) filledRows--;
+        if(mask == fullRow) filledRows++;
+
+        // columns which were just filled
+        for(int added = mask & ~old; added != 0; added &= added - 1) {
+            int x = Integer.numberOfTrailingZeros(added);
+            if(y < tops[x]) tops[x] = y;
+        }
+        // columns which were just emptied at their top
+        for(int removed = old & ~mask; removed != 0; 
+                removed &= removed - 1) {
+            int x = Integer.numberOfTrailingZeros(removed);
+            if(tops[x] == y) {
+                int top = y + 1, bit = 1 << x;
+                while(top < height && (rows[row(top)] & bit) == 0) top++;
+                tops[x] = top;
+            }
+        }
+    }
+
+    /**
+     * Returns the occupancy of a row.
+     * @param y the row
+     * @return a mask where bit {@code x} is set if column {@code x} is filled
+     */
+    public int getRow(int y) {
+        return rows[row(y)];
+    }
+
+    /**
+     * Returns how many cells of a row are filled.
+     * @param y the row
+     * @return how many cells of the row are filled
+     */
+    public int getFillCount(int y) {
+        return Integer.bitCount(rows[row(y)]);
+    }
+
+    /**
+     * Returns the topmost filled row of a column.
+     * @param x the column
+     * @return the topmost filled row of the column, or the height of 
+     * the board if the column is empty
+     */
+    public int getColumnTop(int x) {
+        return tops[x];
+    }
+
+    /**
+     * Returns how many cells of the whole board are filled.
+     * @return how many cells are filled
+     */
+    public int getFilledCells() {
+        return filledCells;
+    }
+
+    /**
+     * Determines whether a piece would overlap any minos or leave the 
+     * board if its rotation box's top left corner were at (x, y).
+     * Every row of the piece is tested with one shift and one AND.
+     * @param shape the shape of the piece
+     * @param x the column of the top left corner of the rotation box
+     * @param y the row of the top left corner of the rotation box
+     * @return whether the piece collides
+     */
+    public boolean collides(PieceShape shape, int x, int y) {
+        if(x >= width || x <= -shape.getBoxSize()) return true;
+        for(int row = shape.getMinY(); row <= shape.getMaxY(); row++) {
+            int mask = shape.getRowMask(row), boardY = y + row;
+            if(boardY < 0 || boardY >= height) return true;
+            int shifted;
+            if(x >= 0) {
+                shifted = mask << x;
+                // past the right wall
+                if((shifted & ~fullRow) != 0) return true;
+            } else {
+                // past the left wall
+                if((mask & ((1 << -x) - 1)) != 0) return true;
+                shifted = mask >>> -x;
+            }
+            if((rows[row(boardY)] & shifted) != 0) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Copies the kind of every cell, row by row from the top.
+     * @param dest where to copy to; at least width * height long
+     */
+    public void copyKinds(byte[] dest) {
+        // the ring wraps once: copy both halves
+        int upper = (height - base) * width;
+        System.arraycopy(kinds, base * width, dest, 0, upper);
+        System.arraycopy(kinds, 0, dest, upper, base * width);
+    }
+
+    /**
+     * Sets the kind of every cell at once.
+     * @param src the kinds, row by row from the top, as 
+     * {@link #copyKinds(byte[])} copies them
+     */
+    public void setKinds(byte[] src) {
+        clear();
+        for(int y = 0; y < height; y++) {
+            int start = y * width, mask = 0;
+            System.arraycopy(src, start, kinds, start, width);
+            for(int x = 0; x < width; x++) {
+                if(src[start + x] != EMPTY) mask |= 1 << x;
+            }
+            setRow(y, mask);
+        }
+    }
+
+    /**
+     * Sums up the kind of every cell, row by row from the top, so two 
+     * boards can be compared without copying either.
+     * @return the checksum of this board
+     */
+    public int checksum() {
+        // FNV-1a
+        int hash = 0x811c9dc5;
+        for(int y = 0; y < height; y++) {
+            int start = row(y) * width;
+            for(int x = 0; x < width; x++) {
+                hash = (hash ^ kinds[start + x]) * 0x01000193;
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Determines whether a row is completely filled.
+     * @param y the row
+     * @return whether the row is completely filled
+     */
+    public boolean lineFilled(int y) {
+        return rows[row(y)] == fullRow;
+    }
+
+    /**
+     * Determines whether a row is completely empty.
+     * @param y the row
+     * @return whether the row is completely empty
+     */
+    public boolean lineEmpty(int y) {
+        return rows[row(y)] == 0;
+    }
+
+    /**
+     * Determines whether a row is either completely filled or
+     * completely empty.
+     * @param y the row
+     * @return whether the row is homogenous
+     */
+    public boolean lineHomogenous(int y) {
+        return rows[row(y)] == 0 || rows[row(y)] == fullRow;
+    }
+
+    /**
+     * Determines whether every row is either completely filled or
+     * completely empty.
+     * @return whether the board is all clear
+     */
+    public boolean allClear() {
+        return filledCells == filledRows * width;
+    }
+
+    /**
+     * Empties a row.
+     * @param y the row
+     */
+    public void emptyLine(int y) {
+        if(rows[row(y)] == 0) return;
+        setRow(y, 0);
+        Arrays.fill(kinds, row(y) * width, (row(y) + 1) * width, EMPTY);
+    }
+
+    /**
+     * Copies a row onto another one.
+     * @param from the row to copy
+     * @param to the row to overwrite
+     */
+    public void copyLine(int from, int to) {
+        setRow(to, rows[row(from)]);
+        System.arraycopy(kinds, row(from) * width, 
+                kinds, row(to) * width, width);
+    }
+
+    /**
+     * Fills a row with garbage, except for one hole.
+     * @param y the row
+     * @param hole the column of the hole
+     */
+    public void setGarbageLine(int y, int hole) {
+        int start = row(y) * width;
+        Arrays.fill(kinds, start, start + width, GARBAGE);
+        kinds[start + hole] = EMPTY;
+        setRow(y, fullRow & ~(1 << hole));
+    }
+
+    /**
+     * Empties the whole board.
+     */
+    public void clear() {
+        Arrays.fill(rows, 0);
+        Arrays.fill(kinds, EMPTY);
+        Arrays.fill(tops, height);
+        filledCells = 0;
+        filledRows = 0;
+        base = 0;
+    }
+
+    /**
+     * Pushes every row up, dropping the rows at the top and opening 
+     * empty rows at the bottom. Only the base index moves; no row 
+     * is copied.
+     * @param count how many rows to open
+     */
+    public void insertRows(int count) {
+        if(count <= 0) return;
+        if(count > height) count = height;
+        // the top rows wrap around to the bottom, so empty them first
+        for(int y = 0; y < count; y++) {
+            emptyLine(y);
+        }
+        base = row(count);
+        for(int x = 0; x < width; x++) {
+            if(tops[x] != height) tops[x] -= count;
+        }
+    }
+
+    /**
+     * Removes rows and drops every row above them, in a single pass 
+     * from the bottom up.
+     * @param lines the rows to remove, in ascending order
+     */
+    public void removeLines(int... lines) {
+        int next = lines.length - 1, write = height - 1, top = stackTop();
+        // rows above the stack are empty, so they never need copying
+        for(int read = height - 1; read >= top; read--) {
+            if(next >= 0 && lines[next] == read) {
+                next--;
+                continue;
+            }
+            if(write != read) copyLine(read, write);
+            write--;
+        }
+        for(; write >= 0; write--) {
+            emptyLine(write);
+        }
+    }
+
+    /**
+     * Returns the topmost filled row of the whole board.
+     * @return the topmost filled row, or the height of the board if 
+     * the board is empty
+     */
+    private int stackTop() {
+        int top = height;
+        for(int t : tops) {
+            top = Math.min(top, t);
+        }
+        return top;
+    }
+}
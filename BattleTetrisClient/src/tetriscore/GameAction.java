@@ -0,0 +1,83 @@
+package tetriscore;
+
+/**
+ * All possible game actions
+ * @author Jed Wang
+ */
+public enum GameAction {
+    /**
+     * Moves the active tetromino leftwards
+     */
+    MOVE_LEFT("L"), 
+
+    /**
+     * Moves the active tetromino rightwards
+     */
+    MOVE_RIGHT("R"), 
+
+    /**
+     * Hard drops the active tetromino
+     */
+    HARD_DROP("HD"), 
+
+    /**
+     * Drops the active tetromino down by 1
+     */
+    SOFT_DROP("SD"), 
+
+    /**
+     * Rotates the active tetromino clockwise
+     */
+    ROTATE_RIGHT("RR"),
+
+    /**
+     * Rotates the active tetromino counterclockwise
+     */
+    ROTATE_LEFT("RL"),
+
+    /**
+     * Switches the held tetromino with the currently active one
+     */
+    HOLD("H"),
+
+    /**
+     * Refers to when the active tetromino falls down due to gravity
+     */
+    GRAVITY("G");
+    
+    /**
+     * Shorthand notation for this move
+     */
+    private final String shorthand;
+
+    /**.
+     * Instantiates a GameAction.
+     * @param shorthand the shorthand notation for this action.
+     */
+    private GameAction(String shorthand) {
+        this.shorthand = shorthand;
+    }
+
+    /**
+     * Returns the shorthand notation for this move
+     * @return the shorthand notation for this move
+     */
+    public String getShorthand() {
+        return shorthand;
+    }
+    
+    /**
+     * Determines the GameAction referred to by the String and returns it.
+     * If the given String doesn't match a GameAction, null is returned.
+     * @param sh the String that represents the wanted GameAction
+     * @return the GameAction that is represented by the given String
+     */
+    public static GameAction fromShorthand(String sh) {
+        for(GameAction ga : values()) {
+            if(ga.getShorthand().equals(sh)) {
+                return ga;
+            }
+        }
+        return null;
+    }
+}
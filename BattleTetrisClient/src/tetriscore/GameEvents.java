@@ -0,0 +1,296 @@
+package tetriscore;
+
+/**
+ * Everything that happens in a game, as a stream of typed events.<br>
+ * Events are written into a ring of ints which is allocated once, so
+ * publishing one never allocates and never waits on anyone. Every
+ * consumer reads the stream through its own {@link Cursor} at its own
+ * pace: audio, rendering, the connection to the server and replays all
+ * see every event without the game ever calling into them. A consumer
+ * which falls more than a whole ring behind misses the oldest events
+ * instead of holding up the game.<br>
+ * Only the game's thread publishes, and cursors are polled on it too.
+ * @author Jed Wang
+ */
+public final class GameEvents {
+    /**
+     * The player performed an action: the ordinal of the
+     * {@link GameAction}, and 1 if the piece moved
+     */
+    public static final int ACTION = 1;
+
+    /**
+     * A piece locked: its x and y
+     */
+    public static final int PIECE_LOCKED = 2;
+
+    /**
+     * A piece locked and lines may have been cleared: the lines, the
+     * clear type ORed with {@link #ALL_CLEAR_FLAG}, and the combo
+     */
+    public static final int LINES_CLEARED = 3;
+
+    /**
+     * Garbage was sent to the other side: the lines
+     */
+    public static final int ATTACK_SENT = 4;
+
+    /**
+     * An attack cancelled incoming garbage: the lines
+     */
+    public static final int GARBAGE_CANCELLED = 5;
+
+    /**
+     * Garbage was queued up: the lines
+     */
+    public static final int GARBAGE_QUEUED = 6;
+
+    /**
+     * Lines of garbage with one hole were pushed in from the bottom: the
+     * column of the hole and the lines
+     */
+    public static final int GARBAGE_ADDED = 7;
+
+    /**
+     * All the garbage of one lock has been added: the total lines
+     */
+    public static final int GARBAGE_RECEIVED = 8;
+
+    /**
+     * A new bag was generated: its kinds, 4 bits each with the first
+     * piece lowest; see {@link TetrisBag#unpack(int)}
+     */
+    public static final int BAG_GENERATED = 9;
+
+    /**
+     * Gravity was paused
+     */
+    public static final int GRAVITY_PAUSED = 10;
+
+    /**
+     * Gravity was resumed
+     */
+    public static final int GRAVITY_RESUMED = 11;
+
+    /**
+     * The player topped out
+     */
+    public static final int GAME_OVER = 12;
+
+    /**
+     * Set in the clear type of {@link #LINES_CLEARED} when the board is
+     * all clear
+     */
+    public static final int ALL_CLEAR_FLAG = 1 << 8;
+
+    /**
+     * Every action, by ordinal
+     */
+    private static final GameAction[] ACTIONS = GameAction.values();
+
+    /**
+     * How many events the ring holds; always a power of 2
+     */
+    private static final int CAPACITY = 1024;
+
+    /**
+     * How many ints every event takes: its type and 3 arguments
+     */
+    private static final int STRIDE = 4;
+
+    /**
+     * The events, {@link #STRIDE} ints each
+     */
+    private final int[] ring;
+
+    /**
+     * How many events have ever been published
+     */
+    private long published;
+
+    /**
+     * Whether events are being thrown away instead of published
+     */
+    private boolean muted;
+
+    /**
+     * Creates a new GameEvents.
+     */
+    public GameEvents() {
+        ring = new int[CAPACITY * STRIDE];
+        published = 0;
+        muted = false;
+    }
+
+    /**
+     * Publishes an event.
+     * @param type the type of the event, like {@link #PIECE_LOCKED}
+     * @param a the first argument
+     * @param b the second argument
+     * @param c the third argument
+     */
+    public void publish(int type, int a, int b, int c) {
+        if(muted) return;
+        int i = (int) (published & (CAPACITY - 1)) * STRIDE;
+        ring[i] = type;
+        ring[i + 1] = a;
+        ring[i + 2] = b;
+        ring[i + 3] = c;
+        published++;
+    }
+
+    /**
+     * Publishes an event with one argument.
+     * @param type the type of the event
+     * @param a the argument
+     */
+    public void publish(int type, int a) {
+        publish(type, a, 0, 0);
+    }
+
+    /**
+     * Publishes an event without arguments.
+     * @param type the type of the event
+     */
+    public void publish(int type) {
+        publish(type, 0, 0, 0);
+    }
+
+    /**
+     * Sets whether events are thrown away instead of published, for 
+     * when a matrix plays ticks that didn't really happen yet.
+     * @param muted whether to throw events away
+     * @see Rollback
+     */
+    public void setMuted(boolean muted) {
+        this.muted = muted;
+    }
+
+    /**
+     * Returns how many events have ever been published.
+     * @return how many events have been published
+     */
+    public long getPublished() {
+        return published;
+    }
+
+    /**
+     * Creates a cursor which reads the events published from now on.
+     * @return a new cursor
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Where one consumer is in the stream of events.
+     */
+    public final class Cursor {
+        /**
+         * The next event to read
+         */
+        private long next;
+
+        /**
+         * How many events were overwritten before they were read
+         */
+        private long missed;
+
+        /**
+         * Creates a new Cursor.
+         */
+        private Cursor() {
+            next = published;
+            missed = 0;
+        }
+
+        /**
+         * Passes every event not read yet to a listener, oldest first.
+         * @param gl the listener
+         * @return how many events were read
+         */
+        public int poll(GameListener gl) {
+            if(published - next > CAPACITY) {
+                missed += published - CAPACITY - next;
+                next = published - CAPACITY;
+            }
+            int read = 0;
+            while(next < published) {
+                int i = (int) (next & (CAPACITY - 1)) * STRIDE;
+                next++;
+                read++;
+                dispatch(gl, ring[i], ring[i + 1], ring[i + 2],
+                        ring[i + 3]);
+            }
+            return read;
+        }
+
+        /**
+         * Skips every event not read yet, like after jumping to another 
+         * point of a game.
+         */
+        public void skip() {
+            next = published;
+        }
+
+        /**
+         * Returns how many events this cursor has missed because it fell
+         * too far behind.
+         * @return how many events were missed
+         */
+        public long getMissed() {
+            return missed;
+        }
+    }
+
+    /**
+     * Calls the method of a listener which matches an event.
+     * @param gl the listener
+     * @param type the type of the event
+     * @param a the first argument
+     * @param b the second argument
+     * @param c the third argument
+     */
+    private static void dispatch(GameListener gl, int type, int a, int b,
+            int c) {
+        switch(type) {
+            case ACTION:
+                gl.actionExecuted(ACTIONS[a], b != 0);
+                break;
+            case PIECE_LOCKED:
+                gl.pieceLocked(a, b);
+                break;
+            case LINES_CLEARED:
+                gl.linesCleared(a, b & ~ALL_CLEAR_FLAG, c,
+                        (b & ALL_CLEAR_FLAG) != 0);
+                break;
+            case ATTACK_SENT:
+                gl.attackSent(a);
+                break;
+            case GARBAGE_CANCELLED:
+                gl.garbageCancelled(a);
+                break;
+            case GARBAGE_QUEUED:
+                gl.garbageQueued(a);
+                break;
+            case GARBAGE_ADDED:
+                gl.garbageAdded(a, b);
+                break;
+            case GARBAGE_RECEIVED:
+                gl.garbageReceived(a);
+                break;
+            case BAG_GENERATED:
+                gl.bagGenerated(a);
+                break;
+            case GRAVITY_PAUSED:
+                gl.gravityPaused();
+                break;
+            case GRAVITY_RESUMED:
+                gl.gravityResumed();
+                break;
+            case GAME_OVER:
+                gl.gameOver();
+                break;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package tetriscore;
+
+/**
+ * Listens in to what happens in a game.<br>
+ * The game itself never draws anything or plays any sounds: rendering,
+ * audio and the connection to the server all read its
+ * {@link GameEvents} and are handed each event through this interface
+ * when they poll. Every method does nothing by default, so a listener
+ * only overrides what it cares about.
+ * @author Jed Wang
+ */
+public interface GameListener {
+    /**
+     * Called when the player has performed an action.
+     * @param action the action
+     * @param moved whether the falling piece actually moved, rotated
+     * or was swapped
+     */
+    default void actionExecuted(GameAction action, boolean moved) {}
+
+    /**
+     * Called when a piece has locked.
+     * @param x the x-coordinate of the piece
+     * @param y the y-coordinate of the piece
+     */
+    default void pieceLocked(int x, int y) {}
+
+    /**
+     * Called when a piece has locked and lines may have been cleared.
+     * @param lines how many lines were cleared
+     * @param clearType what type of line clear, like
+     * {@link GarbageHandler#T_SPIN}
+     * @param combo the combo number after this clear
+     * @param allClear whether the board is now all clear
+     */
+    default void linesCleared(int lines, int clearType, int combo,
+            boolean allClear) {}
+
+    /**
+     * Called when a line clear has sent garbage to the other side, after
+     * cancelling what it could.
+     * @param lines how many lines of garbage were sent
+     */
+    default void attackSent(int lines) {}
+
+    /**
+     * Called when a line clear has cancelled garbage waiting to be added
+     * to the matrix.
+     * @param lines how many lines of garbage were cancelled
+     */
+    default void garbageCancelled(int lines) {}
+
+    /**
+     * Called when garbage has been queued up to be added to the matrix.
+     * @param lines how many lines of garbage were queued
+     */
+    default void garbageQueued(int lines) {}
+
+    /**
+     * Called when lines of garbage with one hole have been pushed in from
+     * the bottom of the matrix. All the garbage of one lock comes in
+     * order, then {@link #garbageReceived(int)}.
+     * @param hole the column of the hole
+     * @param lines how many lines
+     */
+    default void garbageAdded(int hole, int lines) {}
+
+    /**
+     * Called when garbage has been added to the bottom of the matrix.
+     * @param lines how many lines of garbage were added
+     */
+    default void garbageReceived(int lines) {}
+
+    /**
+     * Called when a new bag of pieces has been generated.
+     * @param bag the kinds of the pieces
+     * @see TetrisBag#unpack(int)
+     */
+    default void bagGenerated(int bag) {}
+
+    /**
+     * Called when gravity has been paused.
+     */
+    default void gravityPaused() {}
+
+    /**
+     * Called when gravity has been resumed.
+     */
+    default void gravityResumed() {}
+
+    /**
+     * Called when the player has topped out.
+     */
+    default void gameOver() {}
+}
@@ -0,0 +1,150 @@
+package tetriscore;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Runs a simulation on a fixed timestep.<br>
+ * Time is accumulated with {@link System#nanoTime()} and spent in whole
+ * ticks, so the simulation advances by exactly {@link #TICKS_PER_SECOND}
+ * ticks every second no matter how often the thread wakes up. After the
+ * ticks are done, the frame is rendered once.<br>
+ * Other threads never touch the simulation themselves: they
+ * {@link #post(Runnable) post} commands, which this loop runs at the start
+ * of the next tick. The loop's thread is the only one which changes the
+ * game.
+ * @author Jed Wang
+ */
+public class GameLoop implements Runnable {
+    /**
+     * How many ticks the simulation advances every second
+     */
+    public static final int TICKS_PER_SECOND = 100;
+
+    /**
+     * The length of one tick, in nanoseconds
+     */
+    public static final long TICK_NANOS = 1_000_000_000L / TICKS_PER_SECOND;
+
+    /**
+     * The most ticks that are run before rendering, so a long stall
+     * doesn't freeze the screen while the simulation catches up
+     */
+    private static final int MAX_CATCH_UP = 25;
+
+    /**
+     * Advances the simulation by one tick
+     */
+    private final Runnable tick;
+
+    /**
+     * Renders a frame
+     */
+    private final Runnable render;
+
+    /**
+     * Commands from other threads, waiting for the next tick
+     */
+    private final ConcurrentLinkedQueue<Runnable> commands;
+
+    /**
+     * How many ticks have been run
+     */
+    private volatile long ticks;
+
+    /**
+     * Whether to stop
+     */
+    private volatile boolean stop;
+
+    /**
+     * Creates a new GameLoop.
+     * @param tick advances the simulation by one tick
+     * @param render renders a frame
+     */
+    public GameLoop(Runnable tick, Runnable render) {
+        this.tick = tick;
+        this.render = render;
+        commands = new ConcurrentLinkedQueue<>();
+        ticks = 0;
+        stop = false;
+    }
+
+    /**
+     * Converts a time into ticks.
+     * @param millis the time, in milliseconds
+     * @return how many ticks last that long
+     */
+    public static int ticks(long millis) {
+        return (int) (millis * TICKS_PER_SECOND / 1000);
+    }
+
+    @Override
+    public void run() {
+        long last = System.nanoTime(), accumulated = 0;
+        while(!stop) {
+            long now = System.nanoTime();
+            accumulated += now - last;
+            last = now;
+
+            int steps = 0;
+            while(accumulated >= TICK_NANOS && !stop) {
+                Runnable command;
+                while((command = commands.poll()) != null) {
+                    safely(command);
+                }
+                safely(tick);
+                ticks++;
+                accumulated -= TICK_NANOS;
+                if(++steps == MAX_CATCH_UP) {
+                    accumulated = 0;
+                    break;
+                }
+            }
+            render.run();
+
+            long sleep = (TICK_NANOS - accumulated) / 1_000_000;
+            try {
+                Thread.sleep(Math.max(sleep, 1));
+            } catch (InterruptedException ex) {
+                System.err.println("Interrupted.");
+            }
+        }
+    }
+
+    /**
+     * Runs a task, printing anything it throws: one bad tick 
+     * shouldn't end the match.
+     * @param task the task
+     */
+    private static void safely(Runnable task) {
+        try {
+            task.run();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Runs a command on this loop's thread at the start of the next tick.
+     * Safe to call from any thread.
+     * @param command the command
+     */
+    public void post(Runnable command) {
+        commands.add(command);
+    }
+
+    /**
+     * Returns how many ticks have been run.
+     * @return how many ticks have been run
+     */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Stops this GameLoop after the current tick.
+     */
+    public void stop() {
+        stop = true;
+    }
+}
@@ -0,0 +1,409 @@
+package tetriscore;
+
+/**
+ * A class that deals with incoming and outgoing garbage<br>
+ * Incoming garbage waits in a ring buffer of chunks, each with the tick 
+ * it may be added to the matrix. Attacking, cancelling and receiving 
+ * only touch ints, so they never allocate, and nothing here needs 
+ * anything but the ticks of a {@link GameLoop}.
+ * @author Jed Wang
+ */
+public class GarbageHandler {
+    /**
+     * How many chunks the queue holds at first; always a power of 2
+     */
+    private static final int CAPACITY = 16;
+    
+    /**
+     * The lines of every chunk of garbage, in a ring starting at 
+     * {@link #head}
+     */
+    private int[] chunks;
+    
+    /**
+     * The tick each chunk of garbage may be added to the matrix at
+     */
+    private int[] readyAt;
+    
+    /**
+     * Where the first chunk is in the ring
+     */
+    private int head;
+    
+    /**
+     * How many chunks are queued
+     */
+    private int size;
+    
+    /**
+     * The number of ticks so far
+     */
+    private int now;
+    
+    /**
+     * How many ticks garbage waits before it may be added to the matrix
+     */
+    private int garbageDelay;
+    
+    /**
+     * The number of lines pending in the queue
+     */
+    private int linesToRecieve;
+    
+    /**
+     * The lines sent
+     */
+    private int linesSent;
+    
+    /**
+     * Keeps track of combos
+     */
+    private int combo;
+    
+    /**
+     * Whether the player is doing powerful moves back to back
+     */
+    private boolean b2b;
+    
+    /**
+     * How much garbage every line clear sends
+     */
+    private Ruleset ruleset;
+    
+    /**
+     * Where attacks and garbage are published
+     */
+    private final GameEvents events;
+    
+    /**
+     * A normal lines clear
+     */
+    public static final int NORMAL = 0;
+    
+    /**
+     * A standard t-spin
+     */
+    public static final int T_SPIN = 1;
+    
+    /**
+     * A t-spin mini
+     */
+    public static final int T_SPIN_MINI = 2;
+    
+    /**
+     * A spin by any piece but T, when the ruleset allows all-spins
+     */
+    public static final int ALL_SPIN = 3;
+    
+    /**
+     * Creates a new GarbageHandler.
+     * @param events where attacks and garbage are published
+     */
+    public GarbageHandler(GameEvents events) {
+        this.events = events;
+        chunks = new int[CAPACITY];
+        readyAt = new int[CAPACITY];
+        head = 0;
+        size = 0;
+        now = 0;
+        garbageDelay = 0;
+        linesToRecieve = 0;
+        
+        linesSent = 0;
+        
+        combo = 0;
+        b2b = false;
+        ruleset = Ruleset.STANDARD;
+    }
+    
+    /**
+     * Adds a chunk of garbage to the end of the queue. It may be added to 
+     * the matrix once the garbage delay has passed.
+     * @param lines how many lines of garbage
+     */
+    public void addGarbage(int lines) {
+        if(lines <= 0) return;
+        if(size == chunks.length) {
+            int[] moreChunks = new int[chunks.length * 2], 
+                    moreReadyAt = new int[chunks.length * 2];
+            for(int i = 0; i < size; i++) {
+                int j = (head + i) & (chunks.length - 1);
+                moreChunks[i] = chunks[j];
+                moreReadyAt[i] = readyAt[j];
+            }
+            chunks = moreChunks;
+            readyAt = moreReadyAt;
+            head = 0;
+        }
+        int tail = (head + size) & (chunks.length - 1);
+        chunks[tail] = lines;
+        readyAt[tail] = now + garbageDelay;
+        size++;
+        linesToRecieve += lines;
+        
+        events.publish(GameEvents.GARBAGE_QUEUED, lines);
+    }
+    
+    /**
+     * Cancels queued garbage with an attack, oldest first, whether or not 
+     * it is ready yet.
+     * @param attack how many lines the attack is worth
+     * @return how many of them cancelled garbage
+     */
+    private int counterGarbage(int attack) {
+        int cancelled = 0;
+        while(cancelled < attack && size != 0) {
+            int chunk = chunks[head], used = Math.min(chunk, 
+                    attack - cancelled);
+            cancelled += used;
+            if(used == chunk) {
+                head = (head + 1) & (chunks.length - 1);
+                size--;
+            } else chunks[head] = chunk - used;
+        }
+        linesToRecieve -= cancelled;
+        return cancelled;
+    }
+    
+    /**
+     * Advances the garbage delay timer by one tick.
+     */
+    public void tick() {
+        now++;
+    }
+    
+    /**
+     * Sets how long garbage waits in the queue before it may be added to 
+     * the matrix. Garbage already queued keeps its old delay.
+     * @param ticks the delay in ticks, like {@code GameLoop.ticks(500)}
+     */
+    public void setGarbageDelay(int ticks) {
+        garbageDelay = ticks;
+    }
+    
+    /**
+     * Returns how long garbage waits in the queue before it may be added 
+     * to the matrix.
+     * @return the delay in ticks
+     */
+    public int getGarbageDelay() {
+        return garbageDelay;
+    }
+    
+    /**
+     * Returns the next chunk of garbage to add to the bottom and removes it
+     * @return the next chunk of garbage to add to the bottom<br>
+     * Returns 0 if no garbage is ready
+     */
+    public int getNextGarbage() {
+        int output = peekNextGarbage();
+        if(output != 0) {
+            head = (head + 1) & (chunks.length - 1);
+            size--;
+            linesToRecieve -= output;
+        }
+        return output;
+    }
+    
+    /**
+     * Returns the next chunk of garbage to add to the bottom
+     * @return the next chunk of garbage to add to the bottom<br>
+     * Returns 0 if no garbage is ready
+     */
+    public int peekNextGarbage() {
+        if(size == 0 || readyAt[head] - now > 0) return 0;
+        return chunks[head];
+    }
+    
+    /**
+     * Returns whether there is garbage queued up
+     * @return whether there is garbage queued up
+     */
+    public boolean hasGarbage() {
+        return size != 0;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder output = new StringBuilder("[");
+        for(int i = 0; i < size; i++) {
+            if(i != 0) output.append(", ");
+            output.append(chunks[(head + i) & (chunks.length - 1)]);
+        }
+        return output.append(']').toString();
+    }
+    
+    /**
+     * Determines how the incoming garbage bar should be filled
+     * @return how the incoming garbage bar should be filled
+     */
+    public int[] getInBarFill() {
+        if(linesToRecieve == 0) return null;
+        
+        int[] output = new int[20];
+        for(int i = 0; i < output.length; i++) {
+            output[i] = linesToRecieve/20;
+        }
+
+        int leftovers = linesToRecieve%20;
+        for(int i = output.length-1; i >= output.length - leftovers; i--) {
+            output[i]++;
+        }
+
+        return output;
+    }
+    
+    /**
+     * Notifies this ScoreKeeper that new Lines have been cleared.
+     * @param linesCleared how many new lines have been cleared
+     * @param clearType what type of line clear (e.g. standard, t-spin, 
+     * t-spin mini, all-spin)
+     * @param perfectClear whether the move resulted in a perfect clear
+     */
+    public void newLinesCleared(int linesCleared, int clearType, 
+            boolean perfectClear) {
+        if(linesCleared == 0) {
+            combo = 0;
+            
+            return;
+        }
+        
+        if(linesCleared > 4 || linesCleared < 0) 
+            throw new IllegalArgumentException("You cleared more than "
+                    + "4 lines at once or less than 0 lines.");
+        if(linesCleared == 4 && (clearType == T_SPIN 
+                || clearType == T_SPIN_MINI)) 
+            throw new IllegalArgumentException(
+                    "You cleared 4 lines with a t-piece?");
+        boolean bb = ruleset.isB2B(clearType, linesCleared);
+        int newLinesToSend = ruleset.getAttack(clearType, linesCleared);
+        combo++;
+        newLinesToSend += ruleset.getComboBonus(combo);
+        if(perfectClear) newLinesToSend += ruleset.getAllClearBonus();
+        if(b2b && bb) newLinesToSend += ruleset.getB2BBonus();
+        
+        b2b = bb;
+        
+        events.publish(GameEvents.LINES_CLEARED, linesCleared, 
+                perfectClear ? clearType | GameEvents.ALL_CLEAR_FLAG 
+                        : clearType, combo);
+        
+        if(newLinesToSend != 0) {
+            int cancelled = counterGarbage(newLinesToSend), 
+                    sent = newLinesToSend - cancelled;
+            if(cancelled != 0) 
+                events.publish(GameEvents.GARBAGE_CANCELLED, cancelled);
+            if(sent != 0) events.publish(GameEvents.ATTACK_SENT, sent);
+            linesSent += newLinesToSend;
+        }
+    }
+    
+    /**
+     * Sets the rules of attacking.
+     * @param ruleset the ruleset
+     */
+    public void setRuleset(Ruleset ruleset) {
+        this.ruleset = ruleset;
+    }
+    
+    /**
+     * Returns the rules of attacking.
+     * @return the ruleset
+     */
+    public Ruleset getRuleset() {
+        return ruleset;
+    }
+
+    /**
+     * Returns the number of lines sent
+     * @return the number of lines sent
+     */
+    public int getLinesSent() {
+        return linesSent;
+    }
+
+    /**
+     * Returns the combo number.<br>
+     * i.e. if the player performs a 2-combo, 2 will be returned.
+     * @return combo number
+     */
+    public int getCombo() {
+        return combo;
+    }
+    
+    /**
+     * Resets everything.
+     */
+    public void reset() {
+        head = 0;
+        size = 0;
+        now = 0;
+        linesToRecieve = 0;
+        
+        linesSent = 0;
+        
+        combo = 0;
+        b2b = false;
+    }
+
+    /**
+     * Saves the queue, the counters and back-to-back.
+     * @param state where to save to
+     */
+    void save(MatrixState state) {
+        state.garbage = MatrixState.fit(state.garbage, size * 2);
+        for(int i = 0; i < size; i++) {
+            int j = (head + i) & (chunks.length - 1);
+            state.garbage[2 * i] = chunks[j];
+            state.garbage[2 * i + 1] = readyAt[j];
+        }
+        state.garbageSize = size;
+        state.garbageNow = now;
+        state.linesToReceive = linesToRecieve;
+        state.linesSent = linesSent;
+        state.combo = combo;
+        state.b2b = b2b;
+    }
+    
+    /**
+     * Restores what {@link #save(MatrixState)} saved. The ruleset and 
+     * the garbage delay stay as they are.
+     * @param state where to restore from
+     */
+    void restore(MatrixState state) {
+        int capacity = chunks.length;
+        while(capacity < state.garbageSize) capacity *= 2;
+        if(capacity != chunks.length) {
+            chunks = new int[capacity];
+            readyAt = new int[capacity];
+        }
+        for(int i = 0; i < state.garbageSize; i++) {
+            chunks[i] = state.garbage[2 * i];
+            readyAt[i] = state.garbage[2 * i + 1];
+        }
+        head = 0;
+        size = state.garbageSize;
+        now = state.garbageNow;
+        linesToRecieve = state.linesToReceive;
+        linesSent = state.linesSent;
+        combo = state.combo;
+        b2b = state.b2b;
+    }
+
+    /**
+     * Whether B2B status is active
+     * @return whether B2B status is active
+     */
+    public boolean isB2B() {
+        return b2b;
+    }
+    
+    /**
+     * Removes a set amount of lines from the garbage queue, like when the 
+     * other side of the match says they were added to the matrix
+     * @param lines the amount of lines to remove from the queue
+     */
+    public void removeLines(int lines) {
+        counterGarbage(lines);
+    }
+}
@@ -0,0 +1,282 @@
+package tetriscore;
+
+import static tetriscore.Tetromino.*;
+
+/**
+ * A kick system: the offsets a piece tries, in order, when a rotation
+ * doesn't fit where it is.<br>
+ * The offsets are kept in flat tables indexed by piece, rotation state
+ * before and rotation state after, so resolving a rotation never allocates.
+ * As in the SRS guideline, a kick of <code>(1, 2)</code> moves the piece
+ * right 1 and up 2.
+ * @author Jed Wang
+ */
+public final class KickTable {
+    /**
+     * The order of the rows of every kick table given to the constructor,
+     * as (from, to) pairs: 0&rarr;R, R&rarr;0, R&rarr;2, 2&rarr;R,
+     * 2&rarr;L, L&rarr;2, L&rarr;0, 0&rarr;L
+     */
+    private static final int[][] TRANSITIONS = {
+        {UP, RIGHT}, {RIGHT, UP}, {RIGHT, DOWN}, {DOWN, RIGHT},
+        {DOWN, LEFT}, {LEFT, DOWN}, {LEFT, UP}, {UP, LEFT}
+    };
+
+    /**
+     * The shapes of the pieces, in the order of the piece indexes
+     */
+    private static final String PIECES = "IJLOSTZ";
+
+    /**
+     * The Super Rotation System kicks for J, L, S, T and Z
+     */
+    private static final int[][] SRS_JLSTZ = {
+        {0, 0, -1, 0, -1,  1, 0, -2, -1, -2},
+        {0, 0,  1, 0,  1, -1, 0,  2,  1,  2},
+        {0, 0,  1, 0,  1, -1, 0,  2,  1,  2},
+        {0, 0, -1, 0, -1,  1, 0, -2, -1, -2},
+        {0, 0,  1, 0,  1,  1, 0, -2,  1, -2},
+        {0, 0, -1, 0, -1, -1, 0,  2, -1,  2},
+        {0, 0, -1, 0, -1, -1, 0,  2, -1,  2},
+        {0, 0,  1, 0,  1,  1, 0, -2,  1, -2}
+    };
+
+    /**
+     * The Super Rotation System kicks for I
+     */
+    private static final int[][] SRS_I = {
+        {0, 0, -2, 0,  1, 0, -2, -1,  1,  2},
+        {0, 0,  2, 0, -1, 0,  2,  1, -1, -2},
+        {0, 0, -1, 0,  2, 0, -1,  2,  2, -1},
+        {0, 0,  1, 0, -2, 0,  1, -2, -2,  1},
+        {0, 0,  2, 0, -1, 0,  2,  1, -1, -2},
+        {0, 0, -2, 0,  1, 0, -2, -1,  1,  2},
+        {0, 0,  1, 0, -2, 0,  1, -2, -2,  1},
+        {0, 0, -1, 0,  2, 0, -1,  2,  2, -1}
+    };
+
+    /**
+     * The SRS+ kicks for I, which are mirrored left to right so that
+     * both directions behave the same
+     */
+    private static final int[][] SRS_PLUS_I = {
+        {0, 0,  1, 0, -2, 0, -2, -1,  1,  2},
+        {0, 0, -1, 0,  2, 0, -1, -2,  2,  1},
+        {0, 0, -1, 0,  2, 0, -1,  2,  2, -1},
+        {0, 0, -2, 0,  1, 0, -2,  1,  1, -2},
+        {0, 0,  2, 0, -1, 0,  2,  1, -1, -2},
+        {0, 0,  1, 0, -2, 0,  1, -2, -2,  1},
+        {0, 0,  1, 0, -2, 0,  1,  2, -2, -1},
+        {0, 0, -1, 0,  2, 0,  2, -1, -1,  2}
+    };
+
+    /**
+     * Arika-style kicks for J, L, S, T and Z:
+     * in place, then one right, then one left
+     */
+    private static final int[][] ARS_JLSTZ = {
+        {0, 0, 1, 0, -1, 0}, {0, 0, 1, 0, -1, 0},
+        {0, 0, 1, 0, -1, 0}, {0, 0, 1, 0, -1, 0},
+        {0, 0, 1, 0, -1, 0}, {0, 0, 1, 0, -1, 0},
+        {0, 0, 1, 0, -1, 0}, {0, 0, 1, 0, -1, 0}
+    };
+
+    /**
+     * No kicks at all: the piece only rotates in place
+     */
+    private static final int[][] NONE = {
+        {0, 0}, {0, 0}, {0, 0}, {0, 0}, {0, 0}, {0, 0}, {0, 0}, {0, 0}
+    };
+
+    /**
+     * The Super Rotation System
+     */
+    public static final KickTable SRS =
+            new KickTable("SRS", SRS_JLSTZ, SRS_I, NONE);
+
+    /**
+     * SRS with symmetric I kicks
+     */
+    public static final KickTable SRS_PLUS =
+            new KickTable("SRS+", SRS_JLSTZ, SRS_PLUS_I, NONE);
+
+    /**
+     * Arika-style kicks: the I and O pieces never kick
+     */
+    public static final KickTable ARS =
+            new KickTable("ARS", ARS_JLSTZ, NONE, NONE);
+
+    /**
+     * Every kick system, in the order they are offered
+     */
+    private static final KickTable[] VALUES = {SRS, SRS_PLUS, ARS};
+
+    /**
+     * The name of this kick system
+     */
+    private final String name;
+
+    /**
+     * The kicks of every rotation, indexed by
+     * <code>(piece * 4 + from) * 4 + to</code>:
+     * x and y of the first test, x and y of the second test...
+     */
+    private final byte[][] kicks;
+
+    /**
+     * Creates a new KickTable.
+     * Every table has one row per rotation, in the order of
+     * {@link #TRANSITIONS}, holding x, y pairs.
+     * @param name the name of the kick system
+     * @param jlstz the kicks of J, L, S, T and Z
+     * @param i the kicks of I
+     * @param o the kicks of O
+     */
+    private KickTable(String name, int[][] jlstz, int[][] i, int[][] o) {
+        this.name = name;
+        kicks = new byte[PIECES.length() * 16][];
+        for(int piece = 0; piece < PIECES.length(); piece++) {
+            int[][] table;
+            switch(PIECES.charAt(piece)) {
+                case 'I':
+                    table = i;
+                    break;
+                case 'O':
+                    table = o;
+                    break;
+                default:
+                    table = jlstz;
+                    break;
+            }
+            for(int t = 0; t < TRANSITIONS.length; t++) {
+                byte[] tests = new byte[table[t].length];
+                for(int j = 0; j < tests.length; j++) {
+                    tests[j] = (byte) table[t][j];
+                }
+                kicks[index(piece, TRANSITIONS[t][0],
+                        TRANSITIONS[t][1])] = tests;
+            }
+        }
+        // 180 degree rotations have no tests
+        for(int j = 0; j < kicks.length; j++) {
+            if(kicks[j] == null) kicks[j] = new byte[0];
+        }
+    }
+
+    /**
+     * Returns where the kicks of a rotation are kept.
+     * @param piece the index of the piece
+     * @param from the rotation state before rotating
+     * @param to the rotation state after rotating
+     * @return the index into {@link #kicks}
+     */
+    private static int index(int piece, int from, int to) {
+        return (piece * 4 + from) * 4 + to;
+    }
+
+    /**
+     * Finds the first kick which lets the falling piece of a matrix
+     * rotate. Nothing is allocated and the matrix isn't changed.
+     * @param tm the matrix
+     * @param t the falling piece
+     * @param from the rotation state before rotating
+     * @param to the rotation state after rotating
+     * @return which test worked, or -1 if the piece can't rotate
+     */
+    public int resolve(TetrisMatrix tm, Tetromino t, int from, int to) {
+        byte[] tests = kicks[index(pieceIndex(t), from, to)];
+        PieceShape next = t.getPieceShape(to);
+        for(int j = 0; j < tests.length; j += 2) {
+            if(!tm.fallingCollides(next, tests[j], tests[j + 1]))
+                return j / 2;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns how many tests a rotation has.
+     * @param piece the index of the piece
+     * @param from the rotation state before rotating
+     * @param to the rotation state after rotating
+     * @return how many tests the rotation has
+     */
+    public int getTestCount(int piece, int from, int to) {
+        return kicks[index(piece, from, to)].length / 2;
+    }
+
+    /**
+     * Returns the horizontal part of a kick.
+     * @param piece the index of the piece
+     * @param from the rotation state before rotating
+     * @param to the rotation state after rotating
+     * @param test which test
+     * @return how far right the kick moves the piece
+     */
+    public int getKickX(int piece, int from, int to, int test) {
+        return kicks[index(piece, from, to)][test * 2];
+    }
+
+    /**
+     * Returns the vertical part of a kick.
+     * @param piece the index of the piece
+     * @param from the rotation state before rotating
+     * @param to the rotation state after rotating
+     * @param test which test
+     * @return how far up the kick moves the piece
+     */
+    public int getKickY(int piece, int from, int to, int test) {
+        return kicks[index(piece, from, to)][test * 2 + 1];
+    }
+
+    /**
+     * Returns the name of this kick system.
+     * @return the name of this kick system
+     */
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    /**
+     * Returns the index of a piece in the kick tables.
+     * @param t the piece
+     * @return the index of the piece
+     */
+    public static int pieceIndex(Tetromino t) {
+        // the pieces are in the same order as the kinds of their minos
+        return t.getKind() - 1;
+    }
+
+    /**
+     * Returns the index of a piece in the kick tables.
+     * @param shape the shape of the piece, like {@code "T"}
+     * @return the index of the piece, or -1 if there is no such piece
+     */
+    public static int pieceIndex(String shape) {
+        return PIECES.indexOf(shape);
+    }
+
+    /**
+     * Returns every kick system.
+     * @return every kick system
+     */
+    public static KickTable[] values() {
+        return VALUES.clone();
+    }
+
+    /**
+     * Finds a kick system by its name.
+     * @param name the name of the kick system
+     * @return the kick system, or {@link #SRS} if there is none by that name
+     */
+    public static KickTable forName(String name) {
+        for(KickTable k : VALUES) {
+            if(k.name.equals(name)) return k;
+        }
+        return SRS;
+    }
+}
@@ -0,0 +1,299 @@
+package tetriscore;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Base64;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Everything a {@link TetrisMatrix} needs to carry on from one moment:
+ * the minos, the falling and held pieces, the queue, the garbage, the
+ * timers and where the holes of garbage come from.<br>
+ * Unlike a {@link TetrisMatrix.Snapshot}, which is made to be drawn, a
+ * MatrixState is made to be restored. It is a bag of arrays that is
+ * filled in place, so saving the same matrix over and over allocates
+ * nothing once the arrays are big enough. The rules and the randomizer
+ * are not part of it: they belong to the match, not the moment.
+ * @author Jed Wang
+ * @see TetrisMatrix#save(MatrixState)
+ * @see TetrisMatrix#restore(MatrixState)
+ */
+public final class MatrixState {
+    /**
+     * The kind of every cell, row by row from the top
+     */
+    final byte[] kinds = new byte[TetrisMatrix.WIDTH * TetrisMatrix.HEIGHT];
+
+    /**
+     * The kinds of the falling and held pieces
+     */
+    byte falling, hold;
+
+    /**
+     * The falling piece's rotation, rotations left and position
+     */
+    int rotation, rotationsLeft, x, y;
+
+    /**
+     * The last kick test used and the ordinal of the last action, or -1
+     */
+    int lastKick, lastAction;
+
+    /**
+     * Whether the falling piece may be held and whether the game is on
+     */
+    boolean holdSwappable, running;
+
+    /**
+     * The state of gravity
+     */
+    boolean gravityEnabled, gravityPaused;
+
+    /**
+     * How far gravity is into moving the piece down a row
+     */
+    int gravityTicks;
+
+    /**
+     * The state of lock delay
+     */
+    boolean floating;
+
+    /**
+     * How many ticks are left until the piece locks
+     */
+    int lockCountdown;
+
+    /**
+     * The rows flashing after a clear
+     */
+    int[] rowsCleared = new int[4];
+
+    /**
+     * How many rows are flashing, or -1 if none are
+     */
+    int rowsClearedCount;
+
+    /**
+     * How far the line clear animation has faded
+     */
+    double clearAnimation;
+
+    /**
+     * The special text, or {@code null}
+     */
+    String specialText;
+
+    /**
+     * How many more ticks the banners are shown for
+     */
+    int specialTextTicks, allClearTicks;
+
+    /**
+     * Whether the all clear banner is shown
+     */
+    boolean showAllClear;
+
+    /**
+     * The kinds of the queued pieces, in order
+     */
+    byte[] queue = new byte[16];
+
+    /**
+     * How many pieces are queued
+     */
+    int queueSize;
+
+    /**
+     * Every chunk of garbage queued, as pairs of its lines and the tick
+     * it is ready at
+     */
+    int[] garbage = new int[16];
+
+    /**
+     * How many chunks of garbage are queued
+     */
+    int garbageSize;
+
+    /**
+     * The garbage handler's clock, incoming lines, lines sent and combo
+     */
+    int garbageNow, linesToReceive, linesSent, combo;
+
+    /**
+     * Whether back-to-back is going
+     */
+    boolean b2b;
+
+    /**
+     * The state of where the holes of garbage come from
+     */
+    long holeState;
+
+    /**
+     * Makes sure an array is at least so long.
+     * @param array the array
+     * @param length how long it has to be
+     * @return the array, or a longer one if it was too short
+     */
+    static byte[] fit(byte[] array, int length) {
+        return (array.length >= length) ? array
+                : new byte[Math.max(length, array.length * 2)];
+    }
+
+    /**
+     * Makes sure an array is at least so long.
+     * @param array the array
+     * @param length how long it has to be
+     * @return the array, or a longer one if it was too short
+     */
+    static int[] fit(int[] array, int length) {
+        return (array.length >= length) ? array
+                : new int[Math.max(length, array.length * 2)];
+    }
+
+    /**
+     * Writes this state.
+     * @param out where to write to
+     * @throws IOException if it can't be written
+     */
+    public void write(DataOutput out) throws IOException {
+        out.write(kinds);
+        out.writeByte(falling);
+        out.writeByte(hold);
+        out.writeByte(rotation);
+        out.writeByte(rotationsLeft);
+        out.writeByte(x);
+        out.writeByte(y);
+        out.writeByte(lastKick);
+        out.writeByte(lastAction);
+        out.writeBoolean(holdSwappable);
+        out.writeBoolean(running);
+        out.writeBoolean(gravityEnabled);
+        out.writeBoolean(gravityPaused);
+        out.writeInt(gravityTicks);
+        out.writeBoolean(floating);
+        out.writeInt(lockCountdown);
+
+        out.writeByte(rowsClearedCount);
+        for(int i = 0; i < rowsClearedCount; i++) {
+            out.writeByte(rowsCleared[i]);
+        }
+        out.writeDouble(clearAnimation);
+        out.writeBoolean(specialText != null);
+        if(specialText != null) out.writeUTF(specialText);
+        out.writeInt(specialTextTicks);
+        out.writeBoolean(showAllClear);
+        out.writeInt(allClearTicks);
+
+        out.writeInt(queueSize);
+        out.write(queue, 0, queueSize);
+
+        out.writeInt(garbageSize);
+        for(int i = 0; i < garbageSize * 2; i++) {
+            out.writeInt(garbage[i]);
+        }
+        out.writeInt(garbageNow);
+        out.writeInt(linesToReceive);
+        out.writeInt(linesSent);
+        out.writeInt(combo);
+        out.writeBoolean(b2b);
+        out.writeLong(holeState);
+    }
+
+    /**
+     * Reads a state written by {@link #write(DataOutput)} into this one.
+     * @param in where to read from
+     * @throws IOException if it can't be read
+     */
+    public void read(DataInput in) throws IOException {
+        in.readFully(kinds);
+        falling = in.readByte();
+        hold = in.readByte();
+        rotation = in.readByte();
+        rotationsLeft = in.readByte();
+        x = in.readByte();
+        y = in.readByte();
+        lastKick = in.readByte();
+        lastAction = in.readByte();
+        holdSwappable = in.readBoolean();
+        running = in.readBoolean();
+        gravityEnabled = in.readBoolean();
+        gravityPaused = in.readBoolean();
+        gravityTicks = in.readInt();
+        floating = in.readBoolean();
+        lockCountdown = in.readInt();
+
+        rowsClearedCount = in.readByte();
+        rowsCleared = fit(rowsCleared, rowsClearedCount);
+        for(int i = 0; i < rowsClearedCount; i++) {
+            rowsCleared[i] = in.readByte();
+        }
+        clearAnimation = in.readDouble();
+        specialText = in.readBoolean() ? in.readUTF() : null;
+        specialTextTicks = in.readInt();
+        showAllClear = in.readBoolean();
+        allClearTicks = in.readInt();
+
+        queueSize = in.readInt();
+        queue = fit(queue, queueSize);
+        in.readFully(queue, 0, queueSize);
+
+        garbageSize = in.readInt();
+        garbage = fit(garbage, garbageSize * 2);
+        for(int i = 0; i < garbageSize * 2; i++) {
+            garbage[i] = in.readInt();
+        }
+        garbageNow = in.readInt();
+        linesToReceive = in.readInt();
+        linesSent = in.readInt();
+        combo = in.readInt();
+        b2b = in.readBoolean();
+        holeState = in.readLong();
+    }
+
+    /**
+     * Writes this state as a single line of text: deflated, then in 
+     * Base64, so it can go out with the commands of a match.
+     * @return the text
+     */
+    public String toText() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try(DataOutputStream out = new DataOutputStream(
+                new DeflaterOutputStream(bytes))) {
+            write(out);
+        } catch (IOException ex) {
+            // never happens in memory
+            throw new UncheckedIOException(ex);
+        }
+        return Base64.getEncoder().encodeToString(bytes.toByteArray());
+    }
+
+    /**
+     * Reads a state written by {@link #toText()} into this one.
+     * @param text the text
+     * @throws IOException if the text isn't a state
+     */
+    public void readText(String text) throws IOException {
+        byte[] bytes;
+        try {
+            bytes = Base64.getDecoder().decode(text);
+        } catch (IllegalArgumentException ex) {
+            throw new IOException("Not Base64", ex);
+        }
+        try(DataInputStream in = new DataInputStream(new InflaterInputStream(
+                new ByteArrayInputStream(bytes)))) {
+            read(in);
+        } catch (RuntimeException ex) {
+            // a corrupt size
+            throw new IOException("Not a state", ex);
+        }
+    }
+}
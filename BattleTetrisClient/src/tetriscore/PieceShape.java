@@ -0,0 +1,210 @@
+package tetriscore;
+
+import java.util.Arrays;
+
+/**
+ * One rotation state of a tetromino, precomputed once.<br>
+ * Holds the draw box, the offsets of every mino, a bitmask per row of the
+ * rotation box and the bounding box of the minos. PieceShapes never
+ * change, so they are shared by every tetromino of the same kind.
+ * @author Jed Wang
+ */
+public final class PieceShape {
+    /**
+     * The minos of the rotation box, indexed {@code [x][y]};
+     * must never be modified
+     */
+    private final byte[][] drawBox;
+
+    /**
+     * The kind of the minos
+     */
+    private final byte kind;
+
+    /**
+     * The x offsets of the minos in the rotation box
+     */
+    private final int[] cellX;
+
+    /**
+     * The y offsets of the minos in the rotation box
+     */
+    private final int[] cellY;
+
+    /**
+     * The minos of every row of the rotation box: bit {@code x} is set
+     * when column {@code x} has a mino
+     */
+    private final int[] rowMasks;
+
+    /**
+     * The bottommost row with a mino of every column of the rotation box,
+     * or -1 if the column has no minos
+     */
+    private final int[] columnBottoms;
+
+    /**
+     * The bounding box of the minos in the rotation box
+     */
+    private final int minX, minY, maxX, maxY;
+
+    /**
+     * Creates a new PieceShape.
+     * @param drawBox the minos of the rotation box, indexed {@code [x][y]}
+     */
+    private PieceShape(byte[][] drawBox) {
+        this.drawBox = drawBox;
+        int size = drawBox.length, count = 0;
+        for(byte[] column : drawBox) {
+            for(byte k : column) {
+                if(k != BitBoard.EMPTY) count++;
+            }
+        }
+
+        cellX = new int[count];
+        cellY = new int[count];
+        rowMasks = new int[size];
+        columnBottoms = new int[size];
+        Arrays.fill(columnBottoms, -1);
+        byte k = BitBoard.EMPTY;
+        int loX = size, loY = size, hiX = -1, hiY = -1;
+        for(int y = 0, n = 0; y < size; y++) {
+            for(int x = 0; x < size; x++) {
+                if(drawBox[x][y] == BitBoard.EMPTY) continue;
+                k = drawBox[x][y];
+                cellX[n] = x;
+                cellY[n] = y;
+                n++;
+                rowMasks[y] |= 1 << x;
+                columnBottoms[x] = y;
+                loX = Math.min(loX, x);
+                loY = Math.min(loY, y);
+                hiX = Math.max(hiX, x);
+                hiY = Math.max(hiY, y);
+            }
+        }
+        kind = k;
+        minX = loX;
+        minY = loY;
+        maxX = hiX;
+        maxY = hiY;
+    }
+
+    /**
+     * Builds the shapes of all four rotation states of a tetromino.
+     * @param t the tetromino
+     * @return the shapes, indexed by rotation state
+     */
+    static PieceShape[] rotationsOf(Tetromino t) {
+        PieceShape[] output = new PieceShape[4];
+        output[Tetromino.UP] = new PieceShape(t.getUp());
+        output[Tetromino.LEFT] = new PieceShape(t.getLeft());
+        output[Tetromino.DOWN] = new PieceShape(t.getDown());
+        output[Tetromino.RIGHT] = new PieceShape(t.getRight());
+        return output;
+    }
+
+    /**
+     * Returns the minos of the rotation box, indexed {@code [x][y]}.
+     * The array is shared and must not be modified.
+     * @return the minos of the rotation box
+     */
+    public byte[][] getDrawBox() {
+        return drawBox;
+    }
+
+    /**
+     * Returns the width (and height) of the rotation box.
+     * @return the width of the rotation box
+     */
+    public int getBoxSize() {
+        return rowMasks.length;
+    }
+
+    /**
+     * Returns the kind of the minos, as stored in a {@link BitBoard}.
+     * @return the kind of the minos
+     */
+    public byte getKind() {
+        return kind;
+    }
+
+    /**
+     * Returns the number of minos.
+     * @return the number of minos
+     */
+    public int getCellCount() {
+        return cellX.length;
+    }
+
+    /**
+     * Returns the x offset of a mino in the rotation box.
+     * @param cell which mino
+     * @return the x offset of the mino
+     */
+    public int getCellX(int cell) {
+        return cellX[cell];
+    }
+
+    /**
+     * Returns the y offset of a mino in the rotation box.
+     * @param cell which mino
+     * @return the y offset of the mino
+     */
+    public int getCellY(int cell) {
+        return cellY[cell];
+    }
+
+    /**
+     * Returns the minos of a row of the rotation box.
+     * @param row the row
+     * @return a mask where bit {@code x} is set when column {@code x}
+     * has a mino
+     */
+    public int getRowMask(int row) {
+        return rowMasks[row];
+    }
+
+    /**
+     * Returns the bottommost row with a mino in a column of the 
+     * rotation box.
+     * @param column the column
+     * @return the bottommost row with a mino, or -1 if the column has 
+     * no minos
+     */
+    public int getColumnBottom(int column) {
+        return columnBottoms[column];
+    }
+
+    /**
+     * Returns the leftmost column with a mino.
+     * @return the leftmost column with a mino
+     */
+    public int getMinX() {
+        return minX;
+    }
+
+    /**
+     * Returns the topmost row with a mino.
+     * @return the topmost row with a mino
+     */
+    public int getMinY() {
+        return minY;
+    }
+
+    /**
+     * Returns the rightmost column with a mino.
+     * @return the rightmost column with a mino
+     */
+    public int getMaxX() {
+        return maxX;
+    }
+
+    /**
+     * Returns the bottommost row with a mino.
+     * @return the bottommost row with a mino
+     */
+    public int getMaxY() {
+        return maxY;
+    }
+}
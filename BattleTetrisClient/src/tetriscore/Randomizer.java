@@ -0,0 +1,304 @@
+package tetriscore;
+
+import static tetriscore.BitBoard.*;
+
+/**
+ * Decides the order the pieces come in.<br>
+ * Every randomizer draws from its own {@link SplitMix64}, so two with the
+ * same name and seed deal exactly the same pieces: a match, a bot and a
+ * replay can all regenerate a queue from a seed instead of being sent it.
+ * @author Jed Wang
+ */
+public abstract class Randomizer {
+    /**
+     * The name of the 7-bag randomizer
+     */
+    public static final String SEVEN_BAG = "7-bag";
+
+    /**
+     * The name of the 14-bag randomizer
+     */
+    public static final String FOURTEEN_BAG = "14-bag";
+
+    /**
+     * The name of the memoryless randomizer
+     */
+    public static final String CLASSIC = "Classic";
+
+    /**
+     * The name of the TGM history randomizer
+     */
+    public static final String TGM = "TGM";
+
+    /**
+     * The names of every randomizer
+     */
+    private static final String[] NAMES = {SEVEN_BAG, FOURTEEN_BAG,
+        CLASSIC, TGM};
+
+    /**
+     * How many kinds of pieces there are
+     */
+    private static final int PIECES = 7;
+
+    /**
+     * The name of this randomizer
+     */
+    private final String name;
+
+    /**
+     * The seed of this randomizer
+     */
+    private final long seed;
+
+    /**
+     * Where the pseudorandom numbers come from
+     */
+    protected final SplitMix64 random;
+
+    /**
+     * Creates a new Randomizer.
+     * @param name the name of the randomizer
+     * @param seed the seed
+     */
+    private Randomizer(String name, long seed) {
+        this.name = name;
+        this.seed = seed;
+        random = new SplitMix64(seed);
+    }
+
+    /**
+     * Deals the next piece.
+     * @return the kind of the next piece, like {@link BitBoard#T}
+     */
+    public abstract byte next();
+
+    /**
+     * Returns the name of this randomizer.
+     * @return the name of this randomizer
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the seed this randomizer started from.
+     * @return the seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    /**
+     * Returns the names of every randomizer.
+     * @return the names of every randomizer
+     */
+    public static String[] names() {
+        return NAMES.clone();
+    }
+
+    /**
+     * Creates a randomizer by its name.
+     * @param name the name of the randomizer
+     * @param seed the seed
+     * @return the randomizer, or a 7-bag if there is none by that name
+     */
+    public static Randomizer forName(String name, long seed) {
+        if(name != null) switch(name) {
+            case FOURTEEN_BAG:
+                return new Bag(FOURTEEN_BAG, 2, seed);
+            case CLASSIC:
+                return new Classic(seed);
+            case TGM:
+                return new History(seed);
+        }
+        return new Bag(SEVEN_BAG, 1, seed);
+    }
+
+    /**
+     * Creates a randomizer which deals pieces that were dealt before, 
+     * like the ones of a {@link Replay}.
+     * @param kinds the kinds of the pieces, in order
+     * @return the randomizer
+     */
+    public static Randomizer recorded(byte[] kinds) {
+        return recorded(kinds, 0);
+    }
+
+    /**
+     * Creates a randomizer which deals pieces that were dealt before, 
+     * starting partway through.
+     * @param kinds the kinds of the pieces, in order
+     * @param from how many of them were dealt already
+     * @return the randomizer
+     */
+    public static Randomizer recorded(byte[] kinds, int from) {
+        return new Recorded(kinds, from);
+    }
+
+    /**
+     * Deals every piece the same number of times before any repeats,
+     * in a random order.
+     */
+    private static final class Bag extends Randomizer {
+        /**
+         * The pieces left in the bag, from index 0 to {@link #left}
+         */
+        private final byte[] bag;
+
+        /**
+         * How many pieces are left in the bag
+         */
+        private int left;
+
+        /**
+         * Creates a new Bag.
+         * @param name the name of the randomizer
+         * @param copies how many of every piece the bag holds
+         * @param seed the seed
+         */
+        Bag(String name, int copies, long seed) {
+            super(name, seed);
+            bag = new byte[PIECES * copies];
+            left = 0;
+        }
+
+        @Override
+        public byte next() {
+            if(left == 0) {
+                for(int i = 0; i < bag.length; i++) {
+                    bag[i] = (byte) (i % PIECES + 1);
+                }
+                left = bag.length;
+            }
+            // draw a piece from the ones left
+            int i = random.nextInt(left);
+            byte kind = bag[i];
+            bag[i] = bag[--left];
+            return kind;
+        }
+    }
+
+    /**
+     * Deals any piece, whatever came before it.
+     */
+    private static final class Classic extends Randomizer {
+        /**
+         * Creates a new Classic.
+         * @param seed the seed
+         */
+        Classic(long seed) {
+            super(CLASSIC, seed);
+        }
+
+        @Override
+        public byte next() {
+            return (byte) (random.nextInt(PIECES) + 1);
+        }
+    }
+
+    /**
+     * The randomizer of Tetris: The Grand Master 2.<br>
+     * It remembers the last 4 pieces and rerolls up to 6 times to deal one
+     * of something else, and never starts with an S, Z or O.
+     */
+    private static final class History extends Randomizer {
+        /**
+         * How many times a piece is rolled
+         */
+        private static final int ROLLS = 6;
+
+        /**
+         * The pieces that may come first
+         */
+        private static final byte[] FIRST = {I, J, L, T};
+
+        /**
+         * The last 4 pieces dealt, oldest first
+         */
+        private final byte[] history = {Z, S, S, Z};
+
+        /**
+         * Whether no piece has been dealt yet
+         */
+        private boolean first = true;
+
+        /**
+         * Creates a new History.
+         * @param seed the seed
+         */
+        History(long seed) {
+            super(TGM, seed);
+        }
+
+        @Override
+        public byte next() {
+            byte kind;
+            if(first) {
+                first = false;
+                kind = FIRST[random.nextInt(FIRST.length)];
+            } else {
+                kind = EMPTY;
+                for(int roll = 0; roll < ROLLS; roll++) {
+                    kind = (byte) (random.nextInt(PIECES) + 1);
+                    if(!inHistory(kind)) break;
+                }
+            }
+            for(int i = 1; i < history.length; i++) {
+                history[i - 1] = history[i];
+            }
+            history[history.length - 1] = kind;
+            return kind;
+        }
+
+        /**
+         * Determines whether a piece is one of the last 4 dealt.
+         * @param kind the kind of the piece
+         * @return whether it is in the history
+         */
+        private boolean inHistory(byte kind) {
+            for(byte h : history) {
+                if(h == kind) return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Deals the pieces of a recording, in order.
+     */
+    private static final class Recorded extends Randomizer {
+        /**
+         * The kinds of the pieces
+         */
+        private final byte[] kinds;
+
+        /**
+         * The next piece to deal
+         */
+        private int next;
+
+        /**
+         * Creates a new Recorded.
+         * @param kinds the kinds of the pieces
+         * @param from the first piece to deal
+         */
+        Recorded(byte[] kinds, int from) {
+            super("Recorded", 0);
+            this.kinds = kinds;
+            next = from;
+        }
+
+        @Override
+        public byte next() {
+            if(next == kinds.length) throw new IllegalStateException(
+                    "Ran out of recorded pieces");
+            return kinds[next++];
+        }
+    }
+}
@@ -0,0 +1,470 @@
+package tetriscore;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * One game of one player, as everything which went into it.<br>
+ * A game is deterministic from its rules, its pieces, where the holes
+ * of its garbage came from and its inputs, so that is all a replay
+ * keeps: every {@link GameAction}, every pause of gravity and every
+ * piece of garbage queued up, each with the tick it happened before.
+ * What the game ended up as is kept too, so playing it back can check
+ * that nothing has changed how the game plays.<br>
+ * Inputs are written as variable length ints with the ticks between
+ * them, so an idle tick costs nothing and most inputs take 2 bytes.<br>
+ * Every {@link #KEYFRAME_INTERVAL} ticks, the whole {@link MatrixState} 
+ * is kept as a compressed keyframe, and an index of the keyframes is 
+ * written at the end. Jumping anywhere in a replay restores the 
+ * keyframe before it and plays on from there, so it never takes more 
+ * than one interval of ticks however long the game was.
+ * @author Jed Wang
+ * @see ReplayRecorder
+ * @see ReplayPlayer
+ */
+public final class Replay {
+    /**
+     * The first bytes of every replay: "BTRP"
+     */
+    private static final int MAGIC = 0x42545250;
+
+    /**
+     * The version of the format
+     */
+    private static final int VERSION = 2;
+
+    /**
+     * How many ticks there are between keyframes
+     */
+    public static final int KEYFRAME_INTERVAL = GameLoop.ticks(5000);
+
+    /**
+     * The name of the kick system
+     */
+    private final String kicks;
+
+    /**
+     * The name of the ruleset
+     */
+    private final String rules;
+
+    /**
+     * How long garbage waited before it was added, in ticks
+     */
+    private final int garbageDelay;
+
+    /**
+     * The state of where the holes of garbage came from
+     */
+    private final long holeState;
+
+    /**
+     * The pieces queued when the game started, like {@code "IJLOSTZ"}
+     */
+    private final String opening;
+
+    /**
+     * The kinds of every piece dealt after that, in order
+     */
+    private final byte[] pieces;
+
+    /**
+     * The tick every input happened before, in order
+     */
+    private final int[] inputTicks;
+
+    /**
+     * Every input: a type from {@link GameEvents} in the low 8 bits and
+     * its argument above
+     */
+    private final int[] inputs;
+
+    /**
+     * How many ticks the game lasted
+     */
+    private final int length;
+
+    /**
+     * How many pieces were locked
+     */
+    private final int locks;
+
+    /**
+     * How many lines of garbage were sent
+     */
+    private final int linesSent;
+
+    /**
+     * The checksum of the matrix at the end
+     */
+    private final int checksum;
+
+    /**
+     * Every keyframe, compressed, one after the other
+     */
+    private final byte[] keyframes;
+
+    /**
+     * Where every keyframe starts in {@link #keyframes}, and where the 
+     * last one ends
+     */
+    private final int[] keyframeOffsets;
+
+    /**
+     * Creates a new Replay.
+     * @param kicks the name of the kick system
+     * @param rules the name of the ruleset
+     * @param garbageDelay how long garbage waited, in ticks
+     * @param holeState the state of where the holes of garbage came from
+     * @param opening the pieces queued when the game started
+     * @param pieces the kinds of every piece dealt after that
+     * @param inputTicks the tick every input happened before
+     * @param inputs every input
+     * @param length how many ticks the game lasted
+     * @param locks how many pieces were locked
+     * @param linesSent how many lines of garbage were sent
+     * @param checksum the checksum of the matrix at the end
+     * @param keyframes every keyframe, compressed, one after the other
+     * @param keyframeOffsets where every keyframe starts, and where the 
+     * last one ends
+     */
+    Replay(String kicks, String rules, int garbageDelay, long holeState,
+            String opening, byte[] pieces, int[] inputTicks, int[] inputs,
+            int length, int locks, int linesSent, int checksum, 
+            byte[] keyframes, int[] keyframeOffsets) {
+        this.kicks = kicks;
+        this.rules = rules;
+        this.garbageDelay = garbageDelay;
+        this.holeState = holeState;
+        this.opening = opening;
+        this.pieces = pieces;
+        this.inputTicks = inputTicks;
+        this.inputs = inputs;
+        this.length = length;
+        this.locks = locks;
+        this.linesSent = linesSent;
+        this.checksum = checksum;
+        this.keyframes = keyframes;
+        this.keyframeOffsets = keyframeOffsets;
+    }
+
+    /**
+     * Packs an input into an int.
+     * @param type the type of the input, like {@link GameEvents#ACTION}
+     * @param argument its argument
+     * @return the input
+     */
+    static int input(int type, int argument) {
+        return type | (argument << 8);
+    }
+
+    /**
+     * Returns the type of an input.
+     * @param input the input
+     * @return its type, like {@link GameEvents#ACTION}
+     */
+    static int typeOf(int input) {
+        return input & 0xFF;
+    }
+
+    /**
+     * Returns the argument of an input.
+     * @param input the input
+     * @return its argument
+     */
+    static int argumentOf(int input) {
+        return input >>> 8;
+    }
+
+    /**
+     * Returns the name of the kick system.
+     * @return the name of the kick system
+     */
+    public String getKicks() {
+        return kicks;
+    }
+
+    /**
+     * Returns the name of the ruleset.
+     * @return the name of the ruleset
+     */
+    public String getRules() {
+        return rules;
+    }
+
+    /**
+     * Returns how long garbage waited before it was added.
+     * @return the delay in ticks
+     */
+    public int getGarbageDelay() {
+        return garbageDelay;
+    }
+
+    /**
+     * Returns the state of where the holes of garbage came from.
+     * @return the state
+     * @see TetrisMatrix#setHoleState(long)
+     */
+    public long getHoleState() {
+        return holeState;
+    }
+
+    /**
+     * Returns the pieces queued when the game started.
+     * @return the pieces, like {@code "IJLOSTZ"}
+     */
+    public String getOpening() {
+        return opening;
+    }
+
+    /**
+     * Returns the kinds of every piece dealt after the opening.
+     * @return the kinds, in order
+     */
+    public byte[] getPieces() {
+        return pieces.clone();
+    }
+
+    /**
+     * Returns how many inputs there are.
+     * @return how many inputs there are
+     */
+    public int getInputCount() {
+        return inputs.length;
+    }
+
+    /**
+     * Returns the tick an input happened before.
+     * @param i which input
+     * @return the tick
+     */
+    int getInputTick(int i) {
+        return inputTicks[i];
+    }
+
+    /**
+     * Returns an input.
+     * @param i which input
+     * @return the input
+     * @see #typeOf(int)
+     * @see #argumentOf(int)
+     */
+    int getInput(int i) {
+        return inputs[i];
+    }
+
+    /**
+     * Returns how many ticks the game lasted.
+     * @return how many ticks the game lasted
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Returns how many pieces were locked.
+     * @return how many pieces were locked
+     */
+    public int getLocks() {
+        return locks;
+    }
+
+    /**
+     * Returns how many lines of garbage were sent.
+     * @return how many lines were sent
+     */
+    public int getLinesSent() {
+        return linesSent;
+    }
+
+    /**
+     * Returns the checksum of the matrix at the end.
+     * @return the checksum
+     * @see TetrisMatrix#checksum()
+     */
+    public int getChecksum() {
+        return checksum;
+    }
+
+    /**
+     * Returns how many keyframes there are. Keyframe {@code k} is from 
+     * tick {@code k * KEYFRAME_INTERVAL}.
+     * @return how many keyframes there are
+     */
+    public int getKeyframeCount() {
+        return keyframeOffsets.length - 1;
+    }
+
+    /**
+     * Opens a keyframe. It holds the next input, how many pieces had 
+     * been dealt, the locks and the lines sent, then a 
+     * {@link MatrixState}.
+     * @param k which keyframe
+     * @return the keyframe, decompressed as it is read
+     */
+    DataInputStream openKeyframe(int k) {
+        return new DataInputStream(new InflaterInputStream(
+                new ByteArrayInputStream(keyframes, keyframeOffsets[k], 
+                        keyframeOffsets[k + 1] - keyframeOffsets[k])));
+    }
+
+    /**
+     * Writes this replay.
+     * @param out where to write to
+     * @throws IOException if it can't be written
+     */
+    public void write(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeByte(VERSION);
+        data.writeUTF(kicks);
+        data.writeUTF(rules);
+        writeVarInt(data, garbageDelay);
+        data.writeLong(holeState);
+        data.writeUTF(opening);
+
+        writeVarInt(data, pieces.length);
+        // 2 pieces to a byte
+        for(int i = 0; i < pieces.length; i += 2) {
+            int high = (i + 1 < pieces.length) ? pieces[i + 1] : 0;
+            data.writeByte(pieces[i] | (high << 4));
+        }
+
+        writeVarInt(data, inputs.length);
+        int last = 0;
+        for(int i = 0; i < inputs.length; i++) {
+            writeVarInt(data, inputTicks[i] - last);
+            writeVarInt(data, inputs[i]);
+            last = inputTicks[i];
+        }
+
+        writeVarInt(data, length);
+        writeVarInt(data, locks);
+        writeVarInt(data, linesSent);
+        data.writeInt(checksum);
+
+        data.write(keyframes, 0, keyframeOffsets[getKeyframeCount()]);
+        // the index, then where it starts
+        int footer = data.size();
+        writeVarInt(data, KEYFRAME_INTERVAL);
+        writeVarInt(data, getKeyframeCount());
+        for(int i = 1; i < keyframeOffsets.length; i++) {
+            writeVarInt(data, keyframeOffsets[i] - keyframeOffsets[i - 1]);
+        }
+        data.writeInt(footer);
+        data.writeInt(MAGIC);
+        data.flush();
+    }
+
+    /**
+     * Reads a replay.
+     * @param in where to read from
+     * @return the replay
+     * @throws IOException if it can't be read or isn't a replay
+     */
+    public static Replay read(InputStream in) throws IOException {
+        ByteArrayOutputStream all = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        for(int n; (n = in.read(buffer)) != -1; ) all.write(buffer, 0, n);
+        byte[] bytes = all.toByteArray();
+        
+        DataInputStream data = new DataInputStream(
+                new ByteArrayInputStream(bytes));
+        if(data.readInt() != MAGIC) throw new IOException("Not a replay");
+        int version = data.readUnsignedByte();
+        if(version < 1 || version > VERSION)
+            throw new IOException("Unknown replay version: " + version);
+        String kicks = data.readUTF(), rules = data.readUTF();
+        int garbageDelay = readVarInt(data);
+        long holeState = data.readLong();
+        String opening = data.readUTF();
+
+        byte[] pieces = new byte[readVarInt(data)];
+        for(int i = 0; i < pieces.length; i += 2) {
+            int b = data.readUnsignedByte();
+            pieces[i] = (byte) (b & 0xF);
+            if(i + 1 < pieces.length) pieces[i + 1] = (byte) (b >>> 4);
+        }
+
+        int count = readVarInt(data);
+        int[] inputTicks = new int[count], inputs = new int[count];
+        int last = 0;
+        for(int i = 0; i < count; i++) {
+            last += readVarInt(data);
+            inputTicks[i] = last;
+            inputs[i] = readVarInt(data);
+        }
+
+        int length = readVarInt(data), locks = readVarInt(data),
+                linesSent = readVarInt(data), checksum = data.readInt();
+        int start = bytes.length - data.available();
+        
+        // the first version had no keyframes
+        byte[] keyframes = new byte[0];
+        int[] keyframeOffsets = {0};
+        if(version >= 2) {
+            if(bytes.length < start + 8) throw new IOException(
+                    "Malformed replay");
+            data = new DataInputStream(new ByteArrayInputStream(bytes, 
+                    bytes.length - 8, 8));
+            int footer = data.readInt();
+            if(data.readInt() != MAGIC || footer < start 
+                    || footer > bytes.length - 8)
+                throw new IOException("Malformed replay");
+            data = new DataInputStream(new ByteArrayInputStream(bytes, 
+                    footer, bytes.length - 8 - footer));
+            if(readVarInt(data) != KEYFRAME_INTERVAL)
+                throw new IOException("Unknown keyframe interval");
+            keyframeOffsets = new int[readVarInt(data) + 1];
+            for(int i = 1; i < keyframeOffsets.length; i++) {
+                keyframeOffsets[i] = keyframeOffsets[i - 1] 
+                        + readVarInt(data);
+            }
+            if(start + keyframeOffsets[keyframeOffsets.length - 1] > footer)
+                throw new IOException("Malformed replay");
+            keyframes = Arrays.copyOfRange(bytes, start, footer);
+        }
+        return new Replay(kicks, rules, garbageDelay, holeState, opening,
+                pieces, inputTicks, inputs, length, locks, linesSent,
+                checksum, keyframes, keyframeOffsets);
+    }
+
+    /**
+     * Writes an int 7 bits at a time, lowest first, so small ints take
+     * a single byte.
+     * @param out where to write to
+     * @param value the int, which must not be negative
+     * @throws IOException if it can't be written
+     */
+    static void writeVarInt(DataOutputStream out, int value)
+            throws IOException {
+        while((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    /**
+     * Reads an int written by {@link #writeVarInt(DataOutputStream, int)}.
+     * @param in where to read from
+     * @return the int
+     * @throws IOException if it can't be read
+     */
+    static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for(int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Malformed replay");
+    }
+}
@@ -0,0 +1,334 @@
+package tetriscore;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+
+/**
+ * Plays a {@link Replay} back on a matrix of its own.<br>
+ * Every tick, the inputs which came before that tick are performed and
+ * the matrix ticks, exactly as it did when the game was recorded. The
+ * player can be driven by a {@link GameLoop} at any speed up to
+ * {@link #MAX_SPEED} times the real one, or run as fast as it can
+ * without drawing anything to {@link #verify() verify} a replay.<br>
+ * It can also {@link #seek(int) jump} to any tick by restoring the 
+ * keyframe before it, or the start, and playing on from there.<br>
+ * Like a TetrisMatrix, a ReplayPlayer must only be used on one thread.
+ * @author Jed Wang
+ */
+public final class ReplayPlayer {
+    /**
+     * The fastest a replay can be played back, in times the real speed
+     */
+    public static final int MAX_SPEED = 1000;
+
+    /**
+     * Every action, by ordinal
+     */
+    private static final GameAction[] ACTIONS = GameAction.values();
+
+    /**
+     * The replay being played
+     */
+    private final Replay replay;
+
+    /**
+     * The kinds of every piece dealt after the opening
+     */
+    private final byte[] pieces;
+
+    /**
+     * The matrix the replay is played on
+     */
+    private final TetrisMatrix matrix;
+
+    /**
+     * The matrix right after it started, before any inputs
+     */
+    private final MatrixState start;
+
+    /**
+     * How many pieces had been dealt when the matrix started
+     */
+    private final int startDealt;
+
+    /**
+     * Where keyframes are read into
+     */
+    private final MatrixState keyframe;
+
+    /**
+     * Where this player is in the events of the matrix
+     */
+    private final GameEvents.Cursor cursor;
+
+    /**
+     * How many ticks have been played and the next input
+     */
+    private int ticks, next;
+
+    /**
+     * How many ticks are played for every call to {@link #tick()}
+     */
+    private int speed;
+
+    /**
+     * How many pieces were dealt, locked and lines sent so far
+     */
+    private int dealt, locks, linesSent;
+
+    /**
+     * Whether playing is paused
+     */
+    private boolean paused;
+
+    /**
+     * Whether the whole replay has been played
+     */
+    private boolean finished;
+
+    /**
+     * Counts what the results of the replay are checked against
+     */
+    private final GameListener counter = new GameListener() {
+        @Override
+        public void pieceLocked(int x, int y) {
+            locks++;
+        }
+
+        @Override
+        public void attackSent(int lines) {
+            linesSent += lines;
+        }
+
+        @Override
+        public void bagGenerated(int bag) {
+            for(; bag != 0; bag >>>= 4) dealt++;
+        }
+    };
+
+    /**
+     * Creates a new ReplayPlayer, ready at the start of the game.
+     * @param replay the replay to play
+     */
+    public ReplayPlayer(Replay replay) {
+        this.replay = replay;
+        pieces = replay.getPieces();
+        matrix = new TetrisMatrix(true, true, replay.getOpening());
+        matrix.setKickTable(KickTable.forName(replay.getKicks()));
+        matrix.setRuleset(Ruleset.forName(replay.getRules()));
+        matrix.setGarbageDelay(replay.getGarbageDelay());
+        matrix.setRandomizer(Randomizer.recorded(pieces));
+        matrix.setHoleState(replay.getHoleState());
+        cursor = matrix.getEvents().cursor();
+        ticks = next = 0;
+        speed = 1;
+        dealt = locks = linesSent = 0;
+        paused = false;
+        finished = false;
+        matrix.start();
+        cursor.poll(counter);
+        startDealt = dealt;
+        
+        start = new MatrixState();
+        matrix.save(start);
+        keyframe = new MatrixState();
+    }
+
+    /**
+     * Plays one tick of the replay. Once every tick has been played, the
+     * inputs after the last one are performed and nothing else happens.
+     * @return whether a tick was played
+     */
+    public boolean step() {
+        if(finished) return false;
+        performInputs();
+        if(ticks == replay.getLength()) {
+            finished = true;
+        } else {
+            matrix.tick();
+            ticks++;
+        }
+        cursor.poll(counter);
+        return !finished;
+    }
+
+    /**
+     * Plays as many ticks as the speed says. Meant to be run by a
+     * {@link GameLoop}.
+     */
+    public void tick() {
+        if(paused) return;
+        for(int i = 0; i < speed && step(); i++);
+    }
+
+    /**
+     * Jumps to a tick, as if the replay had been played up to it and 
+     * the inputs before it performed. Unless the tick is a little ahead, 
+     * the keyframe before it is restored first, so this never plays more 
+     * than {@link Replay#KEYFRAME_INTERVAL} ticks.
+     * @param tick the tick, from 0 to the length of the replay
+     * @throws IOException if the keyframe can't be read
+     */
+    public void seek(int tick) throws IOException {
+        tick = Math.max(0, Math.min(tick, replay.getLength()));
+        int k = Math.min(tick / Replay.KEYFRAME_INTERVAL, 
+                replay.getKeyframeCount() - 1);
+        int from = (k == -1) ? 0 : k * Replay.KEYFRAME_INTERVAL;
+        if(tick < ticks || from > ticks) {
+            if(k == -1) restoreStart();
+            else restoreKeyframe(k);
+        }
+        while(ticks < tick) step();
+        cursor.poll(counter);
+        performInputs();
+    }
+
+    /**
+     * Puts the matrix back the way it was at the start.
+     */
+    private void restoreStart() {
+        matrix.restore(start);
+        ticks = next = 0;
+        dealt = startDealt;
+        locks = linesSent = 0;
+        resume();
+    }
+
+    /**
+     * Puts the matrix back the way it was at a keyframe.
+     * @param k which keyframe
+     * @throws IOException if the keyframe can't be read
+     */
+    private void restoreKeyframe(int k) throws IOException {
+        try(DataInputStream in = replay.openKeyframe(k)) {
+            next = Replay.readVarInt(in);
+            dealt = Replay.readVarInt(in);
+            locks = Replay.readVarInt(in);
+            linesSent = Replay.readVarInt(in);
+            keyframe.read(in);
+        }
+        matrix.restore(keyframe);
+        ticks = k * Replay.KEYFRAME_INTERVAL;
+        resume();
+    }
+
+    /**
+     * Carries on after the matrix was restored: nothing that happened 
+     * before counts, and the pieces carry on from where they were.
+     */
+    private void resume() {
+        cursor.skip();
+        matrix.setRandomizer(Randomizer.recorded(pieces, dealt));
+        finished = false;
+    }
+
+    /**
+     * Performs every input which came before this tick and hasn't been 
+     * performed yet.
+     */
+    private void performInputs() {
+        while(next < replay.getInputCount()
+                && replay.getInputTick(next) == ticks) {
+            perform(replay.getInput(next++));
+        }
+    }
+
+    /**
+     * Performs an input on the matrix.
+     * @param input the input
+     */
+    private void perform(int input) {
+        int argument = Replay.argumentOf(input);
+        switch(Replay.typeOf(input)) {
+            case GameEvents.ACTION:
+                matrix.executeAction(ACTIONS[argument]);
+                break;
+            case GameEvents.GRAVITY_PAUSED:
+                matrix.pauseGravity();
+                break;
+            case GameEvents.GRAVITY_RESUMED:
+                matrix.resumeGravity();
+                break;
+            case GameEvents.GARBAGE_QUEUED:
+                matrix.addToGarbage(argument);
+                break;
+        }
+    }
+
+    /**
+     * Plays the rest of the replay as fast as possible and checks that it
+     * ended the way it did when it was recorded.
+     * @return whether the game ended the same way
+     */
+    public boolean verify() {
+        while(step());
+        return locks == replay.getLocks()
+                && linesSent == replay.getLinesSent()
+                && matrix.checksum() == replay.getChecksum();
+    }
+
+    /**
+     * Sets how many times faster than the real speed to play.
+     * @param speed the speed, from 1 to {@link #MAX_SPEED}
+     */
+    public void setSpeed(int speed) {
+        this.speed = Math.max(1, Math.min(speed, MAX_SPEED));
+    }
+
+    /**
+     * Returns how many times faster than the real speed this plays.
+     * @return the speed
+     */
+    public int getSpeed() {
+        return speed;
+    }
+
+    /**
+     * Pauses or unpauses playing. {@link #step()} and 
+     * {@link #seek(int)} still work while paused.
+     * @param paused whether to pause
+     */
+    public void setPaused(boolean paused) {
+        this.paused = paused;
+    }
+
+    /**
+     * Returns whether playing is paused.
+     * @return whether playing is paused
+     */
+    public boolean isPaused() {
+        return paused;
+    }
+
+    /**
+     * Returns how many ticks the replay lasts.
+     * @return how many ticks the replay lasts
+     */
+    public int getLength() {
+        return replay.getLength();
+    }
+
+    /**
+     * Returns how many ticks have been played.
+     * @return how many ticks have been played
+     */
+    public int getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Returns whether the whole replay has been played.
+     * @return whether the replay is over
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Returns the matrix the replay is played on, to be drawn.
+     * @return the matrix
+     */
+    public TetrisMatrix getMatrix() {
+        return matrix;
+    }
+}
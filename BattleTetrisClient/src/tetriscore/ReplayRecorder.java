@@ -0,0 +1,247 @@
+package tetriscore;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Records the game of one matrix as a {@link Replay}.<br>
+ * The recorder reads the matrix's {@link GameEvents} like any other
+ * consumer, so recording never slows the game down. It has to be
+ * created before the matrix is started, and {@link #tick()} has to be
+ * called right before every tick of the matrix, so that every input is
+ * stamped with the tick it came before. Every 
+ * {@link Replay#KEYFRAME_INTERVAL} ticks, the matrix is saved and 
+ * compressed into a keyframe; that is the only time recording costs 
+ * more than copying a few ints.
+ * @author Jed Wang
+ */
+public final class ReplayRecorder {
+    /**
+     * How many inputs and pieces are kept at first
+     */
+    private static final int CAPACITY = 256;
+
+    /**
+     * The matrix being recorded
+     */
+    private final TetrisMatrix matrix;
+
+    /**
+     * Where this recorder is in the events of the matrix
+     */
+    private final GameEvents.Cursor cursor;
+
+    /**
+     * The rules and the pieces queued when the game started
+     */
+    private final String kicks, rules, opening;
+
+    /**
+     * How long garbage waits, in ticks
+     */
+    private final int garbageDelay;
+
+    /**
+     * The state of where the holes of garbage came from
+     */
+    private final long holeState;
+
+    /**
+     * The kinds of every piece dealt since the game started
+     */
+    private byte[] pieces;
+
+    /**
+     * The tick every input happened before
+     */
+    private int[] inputTicks;
+
+    /**
+     * Every input, packed by {@link Replay#input(int, int)}
+     */
+    private int[] inputs;
+
+    /**
+     * How many pieces and inputs have been recorded
+     */
+    private int pieceCount, inputCount;
+
+    /**
+     * How many ticks the matrix has run, the locks and the lines sent
+     */
+    private int ticks, locks, linesSent;
+
+    /**
+     * Where the matrix is saved for every keyframe
+     */
+    private final MatrixState state;
+
+    /**
+     * Compresses the keyframes
+     */
+    private final Deflater deflater;
+
+    /**
+     * Every keyframe so far, compressed, one after the other
+     */
+    private final ByteArrayOutputStream keyframes;
+
+    /**
+     * Where every keyframe starts, and where the last one ends
+     */
+    private int[] keyframeOffsets;
+
+    /**
+     * How many keyframes there are
+     */
+    private int keyframeCount;
+
+    /**
+     * Stores everything this recorder wants to know
+     */
+    private final GameListener listener = new GameListener() {
+        @Override
+        public void actionExecuted(GameAction action, boolean moved) {
+            record(GameEvents.ACTION, action.ordinal());
+        }
+
+        @Override
+        public void gravityPaused() {
+            record(GameEvents.GRAVITY_PAUSED, 0);
+        }
+
+        @Override
+        public void gravityResumed() {
+            record(GameEvents.GRAVITY_RESUMED, 0);
+        }
+
+        @Override
+        public void garbageQueued(int lines) {
+            record(GameEvents.GARBAGE_QUEUED, lines);
+        }
+
+        @Override
+        public void bagGenerated(int bag) {
+            for(; bag != 0; bag >>>= 4) {
+                if(pieceCount == pieces.length)
+                    pieces = Arrays.copyOf(pieces, pieceCount * 2);
+                pieces[pieceCount++] = (byte) (bag & 0xF);
+            }
+        }
+
+        @Override
+        public void pieceLocked(int x, int y) {
+            locks++;
+        }
+
+        @Override
+        public void attackSent(int lines) {
+            linesSent += lines;
+        }
+    };
+
+    /**
+     * Creates a new ReplayRecorder and starts recording.
+     * @param matrix the matrix to record, which hasn't been started yet
+     */
+    public ReplayRecorder(TetrisMatrix matrix) {
+        this.matrix = matrix;
+        cursor = matrix.getEvents().cursor();
+        kicks = matrix.getKickTable().getName();
+        rules = matrix.getRuleset().getName();
+        garbageDelay = matrix.getGarbageDelay();
+        holeState = matrix.getHoleState();
+
+        StringBuilder queued = new StringBuilder();
+        byte kind;
+        for(int i = 0; (kind = matrix.getNext(i)) != BitBoard.EMPTY; i++) {
+            queued.append(Tetromino.of(kind).getShape());
+        }
+        opening = queued.toString();
+
+        pieces = new byte[CAPACITY];
+        inputTicks = new int[CAPACITY];
+        inputs = new int[CAPACITY];
+        pieceCount = inputCount = 0;
+        ticks = locks = linesSent = 0;
+
+        state = new MatrixState();
+        deflater = new Deflater(Deflater.BEST_SPEED);
+        keyframes = new ByteArrayOutputStream();
+        keyframeOffsets = new int[16];
+        keyframeCount = 0;
+    }
+
+    /**
+     * Records everything up to now. Call right before every tick of the
+     * matrix.
+     */
+    public void tick() {
+        cursor.poll(listener);
+        if(ticks % Replay.KEYFRAME_INTERVAL == 0) keyframe();
+        ticks++;
+    }
+
+    /**
+     * Saves the matrix as it is now, with where the replay is, into a 
+     * keyframe.
+     * @see Replay#openKeyframe(int)
+     */
+    private void keyframe() {
+        matrix.save(state);
+        deflater.reset();
+        DeflaterOutputStream compressed = new DeflaterOutputStream(
+                keyframes, deflater);
+        DataOutputStream out = new DataOutputStream(compressed);
+        try {
+            Replay.writeVarInt(out, inputCount);
+            Replay.writeVarInt(out, pieceCount);
+            Replay.writeVarInt(out, locks);
+            Replay.writeVarInt(out, linesSent);
+            state.write(out);
+            out.flush();
+            compressed.finish();
+        } catch (IOException ex) {
+            // a ByteArrayOutputStream never throws
+            throw new IllegalStateException(ex);
+        }
+        if(keyframeCount + 2 > keyframeOffsets.length)
+            keyframeOffsets = Arrays.copyOf(keyframeOffsets, 
+                    keyframeOffsets.length * 2);
+        keyframeOffsets[++keyframeCount] = keyframes.size();
+    }
+
+    /**
+     * Records an input.
+     * @param type the type of the input, like {@link GameEvents#ACTION}
+     * @param argument its argument
+     */
+    private void record(int type, int argument) {
+        if(inputCount == inputs.length) {
+            inputTicks = Arrays.copyOf(inputTicks, inputCount * 2);
+            inputs = Arrays.copyOf(inputs, inputCount * 2);
+        }
+        inputTicks[inputCount] = ticks;
+        inputs[inputCount] = Replay.input(type, argument);
+        inputCount++;
+    }
+
+    /**
+     * Stops recording. Call when the game is over, before the matrix is
+     * reset.
+     * @return the replay of the game
+     */
+    public Replay finish() {
+        cursor.poll(listener);
+        return new Replay(kicks, rules, garbageDelay, holeState, opening,
+                Arrays.copyOf(pieces, pieceCount),
+                Arrays.copyOf(inputTicks, inputCount),
+                Arrays.copyOf(inputs, inputCount), ticks, locks, linesSent,
+                matrix.checksum(), keyframes.toByteArray(), 
+                Arrays.copyOf(keyframeOffsets, keyframeCount + 1));
+    }
+}
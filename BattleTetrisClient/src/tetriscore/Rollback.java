@@ -0,0 +1,289 @@
+package tetriscore;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Shows a matrix played on another machine without waiting for it.<br>
+ * The other player stamps their inputs with the tick of their game they
+ * came before. Every tick and input up to the latest stamp is confirmed:
+ * it is played once on top of a saved {@link MatrixState}, and only
+ * confirmed ticks and inputs publish events, so attacks and the end of
+ * the game are never seen twice. From there the matrix is predicted up to
+ * the present as if no more inputs came, with its events muted. When
+ * late inputs arrive, the matrix is rolled back to the confirmed state
+ * and played forward again, at most {@link #MAX_PREDICTION} ticks, so a
+ * whole rollback fits in one tick of the {@link GameLoop}.<br>
+ * If the other player never stamps their inputs, every input is
+ * performed as soon as it arrives and the matrix ticks along on its own,
+ * like it always has.<br>
+ * Like a TetrisMatrix, a Rollback must only be used on the game's
+ * thread.
+ * @author Jed Wang
+ */
+public final class Rollback {
+    /**
+     * The furthest the matrix is predicted ahead of the confirmed ticks
+     */
+    public static final int MAX_PREDICTION = GameLoop.ticks(1000);
+
+    /**
+     * How many inputs are kept at first
+     */
+    private static final int CAPACITY = 64;
+
+    /**
+     * The matrix being shown
+     */
+    private final TetrisMatrix matrix;
+
+    /**
+     * The matrix after every confirmed tick
+     */
+    private final MatrixState confirmed;
+
+    /**
+     * The tick every known input came before, in order
+     */
+    private int[] inputTicks;
+
+    /**
+     * Every input which hasn't been confirmed yet
+     */
+    private Object[] inputs;
+
+    /**
+     * How many inputs are known
+     */
+    private int inputCount;
+
+    /**
+     * Whether the other player stamps their inputs
+     */
+    private boolean stamped;
+
+    /**
+     * The latest stamp: every input before this tick has arrived
+     */
+    private int stamp;
+
+    /**
+     * How many ticks are confirmed, have been played on the matrix and
+     * have passed since the game started
+     */
+    private int confirmedTicks, playedTicks, ticks;
+
+    /**
+     * Whether inputs arrived since the matrix was last played forward
+     */
+    private boolean late;
+
+    /**
+     * Whether the game has started
+     */
+    private boolean started;
+
+    /**
+     * Creates a new Rollback.
+     * @param matrix the matrix to show, which is driven only by this
+     */
+    public Rollback(TetrisMatrix matrix) {
+        this.matrix = matrix;
+        confirmed = new MatrixState();
+        inputTicks = new int[CAPACITY];
+        inputs = new Object[CAPACITY];
+        reset();
+    }
+
+    /**
+     * Forgets the last game. Call whenever the matrix is reset.
+     */
+    public void reset() {
+        Arrays.fill(inputs, 0, inputCount, null);
+        inputCount = 0;
+        stamped = false;
+        stamp = 0;
+        confirmedTicks = playedTicks = ticks = 0;
+        late = false;
+        started = false;
+    }
+
+    /**
+     * Starts counting ticks. Call right after the matrix is started;
+     * inputs which arrived before are kept.
+     */
+    public void start() {
+        matrix.save(confirmed);
+        confirmedTicks = playedTicks = ticks = 0;
+        late = stamped;
+        started = true;
+    }
+
+    /**
+     * Takes the stamp of the inputs which come next.
+     * @param tick the tick of the other player's game they came before
+     */
+    public void stamp(int tick) {
+        if(stamped && tick < stamp) {
+            // the other player is on a new game; what is left is stale
+            Arrays.fill(inputs, 0, inputCount, null);
+            inputCount = 0;
+        }
+        stamped = true;
+        stamp = tick;
+        late = true;
+    }
+
+    /**
+     * Takes an input from the other player, which came before the tick
+     * of the latest stamp.
+     * @param input the input
+     */
+    public void receive(Consumer<TetrisMatrix> input) {
+        if(stamped) add(stamp, input);
+        else input.accept(matrix);
+    }
+
+    /**
+     * Takes an input from this machine, like garbage sent to the other
+     * player, which happens now.
+     * @param input the input
+     */
+    public void inject(Consumer<TetrisMatrix> input) {
+        if(stamped) add(Math.max(ticks, confirmedTicks), input);
+        else input.accept(matrix);
+    }
+
+    /**
+     * Keeps an input in order, after every input of the same tick.
+     * @param tick the tick it came before
+     * @param input the input
+     */
+    private void add(int tick, Consumer<TetrisMatrix> input) {
+        if(inputCount == inputs.length) {
+            inputTicks = Arrays.copyOf(inputTicks, inputCount * 2);
+            inputs = Arrays.copyOf(inputs, inputCount * 2);
+        }
+        int i = inputCount;
+        for(; i > 0 && inputTicks[i - 1] > tick; i--) {
+            inputTicks[i] = inputTicks[i - 1];
+            inputs[i] = inputs[i - 1];
+        }
+        inputTicks[i] = tick;
+        inputs[i] = input;
+        inputCount++;
+        // an input for a tick already played means the matrix is wrong
+        if(tick < playedTicks) late = true;
+    }
+
+    /**
+     * Advances the matrix by one tick of the {@link GameLoop}, rolling
+     * it back first if inputs arrived.
+     */
+    public void tick() {
+        if(started) ticks++;
+        if(!stamped || !started) {
+            matrix.tick();
+            return;
+        }
+        if(late) {
+            confirm();
+            late = false;
+        }
+        if(playedTicks < ticks
+                && playedTicks - confirmedTicks < MAX_PREDICTION) {
+            predict(playedTicks, playedTicks + 1, firstInput(playedTicks));
+        }
+    }
+
+    /**
+     * Plays every tick before the latest stamp on the confirmed state, 
+     * with every input up to it, then predicts the matrix back up to the 
+     * present.
+     */
+    private void confirm() {
+        matrix.restore(confirmed);
+        int done = 0;
+        for(; confirmedTicks < stamp; confirmedTicks++) {
+            for(; done < inputCount
+                    && inputTicks[done] <= confirmedTicks; done++) {
+                perform(done);
+            }
+            matrix.tick();
+        }
+        // what arrived for the latest stamp so far happens right away
+        for(; done < inputCount && inputTicks[done] <= stamp; done++) {
+            perform(done);
+        }
+        matrix.save(confirmed);
+
+        // confirmed inputs are part of the state now
+        System.arraycopy(inputTicks, done, inputTicks, 0,
+                inputCount - done);
+        System.arraycopy(inputs, done, inputs, 0, inputCount - done);
+        Arrays.fill(inputs, inputCount - done, inputCount, null);
+        inputCount -= done;
+
+        // the other player might be ahead
+        ticks = Math.max(ticks, confirmedTicks);
+        predict(confirmedTicks, Math.min(ticks,
+                confirmedTicks + MAX_PREDICTION), 0);
+    }
+
+    /**
+     * Plays ticks on the matrix which haven't been confirmed yet, with
+     * the inputs known for them, without publishing anything.
+     * @param from the first tick
+     * @param to the tick to stop before
+     * @param next the first input which may be for these ticks
+     */
+    private void predict(int from, int to, int next) {
+        GameEvents events = matrix.getEvents();
+        events.setMuted(true);
+        for(int tick = from; tick < to; tick++) {
+            for(; next < inputCount && inputTicks[next] <= tick; next++) {
+                perform(next);
+            }
+            matrix.tick();
+        }
+        events.setMuted(false);
+        playedTicks = to;
+    }
+
+    /**
+     * Finds the first input for a tick or after it.
+     * @param tick the tick
+     * @return where the input is, or how many inputs there are
+     */
+    private int firstInput(int tick) {
+        int i = 0;
+        while(i < inputCount && inputTicks[i] < tick) i++;
+        return i;
+    }
+
+    /**
+     * Performs an input on the matrix.
+     * @param i which input
+     */
+    @SuppressWarnings("unchecked")
+    private void perform(int i) {
+        ((Consumer<TetrisMatrix>) inputs[i]).accept(matrix);
+    }
+
+    /**
+     * Returns how many ticks the matrix shows ahead of what the other
+     * player has confirmed.
+     * @return how many ticks are predicted
+     */
+    public int getPredictedTicks() {
+        return stamped ? playedTicks - confirmedTicks : 0;
+    }
+
+    /**
+     * Returns whether the other player stamps their inputs.
+     * @return whether the matrix is rolled back when inputs are late
+     */
+    public boolean isStamped() {
+        return stamped;
+    }
+}
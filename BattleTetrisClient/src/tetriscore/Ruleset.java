@@ -0,0 +1,265 @@
+package tetriscore;
+
+import static tetriscore.GarbageHandler.*;
+
+/**
+ * The rules of attacking: how much garbage every line clear sends, and
+ * how garbage comes in.<br>
+ * A ruleset is written down as small tables and compiled into flat
+ * arrays indexed by clear type and lines, so looking anything up costs
+ * the same whichever ruleset a match is played with.
+ * @author Jed Wang
+ */
+public final class Ruleset {
+    /**
+     * How many line counts every clear type has a row for: 0 to 4
+     */
+    private static final int LINES = 5;
+
+    /**
+     * The ruleset this game always had
+     */
+    public static final Ruleset STANDARD = new Ruleset("Standard",
+            new int[][] {
+                {0, 0, 1, 2, 4},    // normal
+                {0, 2, 4, 6, 0},    // T-spin
+                {0, 1, 1, 1, 1},    // T-spin mini
+                {0, 0, 1, 2, 4}     // all-spin
+            }, new boolean[][] {
+                {false, false, false, false, true},
+                {false, true, true, true, false},
+                {false, true, true, true, true},
+                {false, true, true, true, true}
+            }, 1, new int[] {0, 0, 1, 1, 2, 2, 3, 3, 4, 4, 4, 5}, 10, 6,
+            0.25, false);
+
+    /**
+     * The attack table of the Tetris guideline: T-spin minis are weaker,
+     * more garbage comes in at once and every chunk has one hole
+     */
+    public static final Ruleset GUIDELINE = new Ruleset("Guideline",
+            new int[][] {
+                {0, 0, 1, 2, 4},    // normal
+                {0, 2, 4, 6, 0},    // T-spin
+                {0, 0, 1, 0, 0},    // T-spin mini
+                {0, 0, 1, 2, 4}     // all-spin
+            }, new boolean[][] {
+                {false, false, false, false, true},
+                {false, true, true, true, false},
+                {false, true, true, false, false},
+                {false, true, true, true, true}
+            }, 1, new int[] {0, 0, 1, 1, 2, 2, 3, 3, 4, 4, 4, 5}, 10, 8,
+            0, false);
+
+    /**
+     * The guideline, but every piece can spin: a spin by a piece other
+     * than T sends what a normal clear does and keeps back-to-back going
+     */
+    public static final Ruleset ALL_SPINS = new Ruleset("All-spin",
+            new int[][] {
+                {0, 0, 1, 2, 4},    // normal
+                {0, 2, 4, 6, 0},    // T-spin
+                {0, 0, 1, 0, 0},    // T-spin mini
+                {0, 0, 1, 2, 4}     // all-spin
+            }, new boolean[][] {
+                {false, false, false, false, true},
+                {false, true, true, true, false},
+                {false, true, true, false, false},
+                {false, true, true, true, true}
+            }, 1, new int[] {0, 0, 1, 1, 2, 2, 3, 3, 4, 4, 4, 5}, 10, 8,
+            0, true);
+
+    /**
+     * Every ruleset, in the order they are offered
+     */
+    private static final Ruleset[] VALUES = {STANDARD, GUIDELINE, 
+        ALL_SPINS};
+
+    /**
+     * The name of this ruleset
+     */
+    private final String name;
+
+    /**
+     * The lines sent by every line clear, indexed by
+     * {@code clearType * LINES + lines}
+     */
+    private final int[] attack;
+
+    /**
+     * Whether every line clear keeps back-to-back going, indexed like
+     * {@link #attack}
+     */
+    private final boolean[] b2b;
+
+    /**
+     * The extra lines sent for a back-to-back clear
+     */
+    private final int b2bBonus;
+
+    /**
+     * The extra lines sent for every combo number; longer combos get the
+     * last one
+     */
+    private final int[] comboBonus;
+
+    /**
+     * The extra lines sent for an all clear
+     */
+    private final int allClearBonus;
+
+    /**
+     * Once this many lines of garbage have come in on one lock, the rest
+     * waits for the next one
+     */
+    private final int garbageCap;
+
+    /**
+     * The chance of the hole moving from one line of garbage to the next
+     */
+    private final double messiness;
+
+    /**
+     * Whether pieces other than T can spin
+     */
+    private final boolean allSpin;
+
+    /**
+     * Creates a new Ruleset.
+     * @param name the name of the ruleset
+     * @param attack the lines sent by every line clear, one row per clear
+     * type and one column per number of lines
+     * @param b2b whether every line clear keeps back-to-back going, laid
+     * out like attack
+     * @param b2bBonus the extra lines sent for a back-to-back clear
+     * @param comboBonus the extra lines sent for every combo number
+     * @param allClearBonus the extra lines sent for an all clear
+     * @param garbageCap how many lines of garbage may come in on one lock
+     * @param messiness the chance of the hole moving between lines
+     * @param allSpin whether pieces other than T can spin
+     */
+    private Ruleset(String name, int[][] attack, boolean[][] b2b,
+            int b2bBonus, int[] comboBonus, int allClearBonus,
+            int garbageCap, double messiness, boolean allSpin) {
+        this.name = name;
+        this.attack = new int[attack.length * LINES];
+        this.b2b = new boolean[attack.length * LINES];
+        for(int type = 0; type < attack.length; type++) {
+            System.arraycopy(attack[type], 0, this.attack, type * LINES,
+                    LINES);
+            System.arraycopy(b2b[type], 0, this.b2b, type * LINES, LINES);
+        }
+        this.b2bBonus = b2bBonus;
+        this.comboBonus = comboBonus;
+        this.allClearBonus = allClearBonus;
+        this.garbageCap = garbageCap;
+        this.messiness = messiness;
+        this.allSpin = allSpin;
+    }
+
+    /**
+     * Returns how many lines a line clear sends, before any bonuses.
+     * @param clearType what type of line clear, like {@link #T_SPIN}
+     * @param lines how many lines were cleared
+     * @return how many lines it sends
+     */
+    public int getAttack(int clearType, int lines) {
+        return attack[clearType * LINES + lines];
+    }
+
+    /**
+     * Returns whether a line clear keeps back-to-back going.
+     * @param clearType what type of line clear, like {@link #T_SPIN}
+     * @param lines how many lines were cleared
+     * @return whether it is worth a back-to-back bonus
+     */
+    public boolean isB2B(int clearType, int lines) {
+        return b2b[clearType * LINES + lines];
+    }
+
+    /**
+     * Returns the extra lines sent for a back-to-back clear.
+     * @return the back-to-back bonus
+     */
+    public int getB2BBonus() {
+        return b2bBonus;
+    }
+
+    /**
+     * Returns the extra lines sent for a combo.
+     * @param combo the combo number, counting this clear
+     * @return the combo bonus
+     */
+    public int getComboBonus(int combo) {
+        return comboBonus[Math.min(combo, comboBonus.length - 1)];
+    }
+
+    /**
+     * Returns the extra lines sent for an all clear.
+     * @return the all clear bonus
+     */
+    public int getAllClearBonus() {
+        return allClearBonus;
+    }
+
+    /**
+     * Returns how many lines of garbage may come in on one lock. A chunk
+     * is never split, so the last one can go over.
+     * @return the garbage cap
+     */
+    public int getGarbageCap() {
+        return garbageCap;
+    }
+
+    /**
+     * Returns the chance of the hole moving from one line of garbage to
+     * the next. 0 keeps one hole per chunk.
+     * @return the messiness, from 0 to 1
+     */
+    public double getMessiness() {
+        return messiness;
+    }
+
+    /**
+     * Returns whether pieces other than T can spin.
+     * @return whether all-spins count
+     * @see SpinDetector
+     */
+    public boolean isAllSpin() {
+        return allSpin;
+    }
+
+    /**
+     * Returns the name of this ruleset.
+     * @return the name of this ruleset
+     */
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    /**
+     * Returns every ruleset.
+     * @return every ruleset
+     */
+    public static Ruleset[] values() {
+        return VALUES.clone();
+    }
+
+    /**
+     * Finds a ruleset by its name.
+     * @param name the name of the ruleset
+     * @return the ruleset, or {@link #STANDARD} if there is none by that
+     * name
+     */
+    public static Ruleset forName(String name) {
+        for(Ruleset r : VALUES) {
+            if(r.name.equals(name)) return r;
+        }
+        return STANDARD;
+    }
+}
@@ -0,0 +1,108 @@
+package tetriscore;
+
+import static tetriscore.GarbageHandler.*;
+
+/**
+ * Decides whether a piece locked with a spin.<br>
+ * T-spins follow the guideline: the last move must be a rotation and 3 of
+ * the 4 corners of the T's box must be filled. It is a full T-spin if
+ * both corners on the side the T points to are filled, or if the
+ * rotation needed the last kick of SRS; otherwise it is a mini. With
+ * all-spins, any other piece that rotated into a spot it can't move out
+ * of has spun too.<br>
+ * The corners are looked up as bit masks, so deciding never allocates,
+ * and nothing but the board and the piece is needed: bots can ask about
+ * any placement they search.
+ * @author Jed Wang
+ */
+public final class SpinDetector {
+    /**
+     * The corners of the T's box, as bits of a corner mask: top left,
+     * top right, bottom left and bottom right
+     */
+    private static final int[] CORNER_X = {0, 2, 0, 2},
+            CORNER_Y = {0, 0, 2, 2};
+
+    /**
+     * The corners on the side the T points to, for every rotation
+     * state: up, left, down and right
+     */
+    private static final int[] FRONT = {0b0011, 0b0101, 0b1100, 0b1010};
+
+    /**
+     * The kick which makes any T-spin a full one: the fifth test, which
+     * only SRS has
+     */
+    private static final int FULL_KICK = 4;
+
+    /**
+     * Can't touch this
+     */
+    private SpinDetector() {}
+
+    /**
+     * Determines what kind of spin a piece locks with. The piece must not
+     * be part of the board yet.
+     * @param board the board the piece is about to lock into
+     * @param piece the piece
+     * @param rotation the rotation state of the piece
+     * @param x the x-coordinate of the piece
+     * @param y the y-coordinate of the piece
+     * @param kick which kick test the last rotation used, or -1 if the
+     * last move wasn't a rotation
+     * @param allSpin whether pieces other than T can spin
+     * @return the clear type: {@link GarbageHandler#NORMAL},
+     * {@link GarbageHandler#T_SPIN}, {@link GarbageHandler#T_SPIN_MINI}
+     * or {@link GarbageHandler#ALL_SPIN}
+     */
+    public static int classify(BitBoard board, Tetromino piece,
+            int rotation, int x, int y, int kick, boolean allSpin) {
+        if(kick == -1) return NORMAL;
+        if(piece.getKind() == BitBoard.T) {
+            int corners = cornerMask(board, x, y);
+            if(Integer.bitCount(corners) < 3) return NORMAL;
+            int front = FRONT[rotation];
+            return ((corners & front) == front || kick == FULL_KICK)
+                    ? T_SPIN : T_SPIN_MINI;
+        }
+        if(allSpin && immobile(board, piece.getPieceShape(rotation), x, y))
+            return ALL_SPIN;
+        return NORMAL;
+    }
+
+    /**
+     * Finds which corners of a 3 by 3 box are filled or outside the board.
+     * @param board the board
+     * @param x the x-coordinate of the box
+     * @param y the y-coordinate of the box
+     * @return the filled corners, as bits in the order of
+     * {@link #CORNER_X}
+     */
+    public static int cornerMask(BitBoard board, int x, int y) {
+        int mask = 0;
+        for(int i = 0; i < CORNER_X.length; i++) {
+            int cellX = x + CORNER_X[i], cellY = y + CORNER_Y[i];
+            if(cellX < 0 || cellX >= board.getWidth() || cellY < 0
+                    || cellY >= board.getHeight()
+                    || board.isFilled(cellX, cellY))
+                mask |= 1 << i;
+        }
+        return mask;
+    }
+
+    /**
+     * Determines whether a piece can't move left, right, up or down.
+     * @param board the board
+     * @param shape the shape of the piece
+     * @param x the x-coordinate of the piece
+     * @param y the y-coordinate of the piece
+     * @return whether the piece is stuck where it is
+     */
+    public static boolean immobile(BitBoard board, PieceShape shape,
+            int x, int y) {
+        return board.collides(shape, x - 1, y)
+                && board.collides(shape, x + 1, y)
+                && board.collides(shape, x, y - 1)
+                && board.collides(shape, x, y + 1);
+    }
+}
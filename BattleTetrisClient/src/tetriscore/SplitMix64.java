@@ -0,0 +1,96 @@
+package tetriscore;
+
+/**
+ * A small, fast and splittable pseudorandom number generator.<br>
+ * This is Steele, Lea and Flood's SplitMix64, the same mixing function
+ * as {@code java.util.SplittableRandom}. Unlike {@code Math.random()}
+ * it isn't shared between threads, and its whole state is one long,
+ * so it can be saved and restored to replay a sequence exactly.
+ * @author Jed Wang
+ */
+public final class SplitMix64 {
+    /**
+     * The step added to the state for every number; the golden ratio
+     */
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    /**
+     * The state of the generator
+     */
+    private long state;
+
+    /**
+     * Creates a new SplitMix64.
+     * @param seed the seed
+     */
+    public SplitMix64(long seed) {
+        state = seed;
+    }
+
+    /**
+     * Returns the next pseudorandom long.
+     * @return the next pseudorandom long
+     */
+    public long nextLong() {
+        return mix(state += GOLDEN_GAMMA);
+    }
+
+    /**
+     * Returns the next pseudorandom int between 0 (inclusive) and a
+     * bound (exclusive).
+     * @param bound the bound, which must be positive
+     * @return the next pseudorandom int in range
+     */
+    public int nextInt(int bound) {
+        // the high 32 bits scaled to the bound; the bias is at most
+        // bound / 2^32, which is nothing for 7 pieces
+        return (int) (((nextLong() >>> 32) * bound) >>> 32);
+    }
+
+    /**
+     * Returns the next pseudorandom double between 0 (inclusive) and 1
+     * (exclusive).
+     * @return the next pseudorandom double
+     */
+    public double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * Creates a new generator whose numbers are independent of the rest
+     * of this one's. The new one is deterministic from this one's state.
+     * @return a new generator
+     */
+    public SplitMix64 split() {
+        return new SplitMix64(nextLong());
+    }
+
+    /**
+     * Returns the state of this generator.
+     * @return the state
+     * @see #setState(long)
+     */
+    public long getState() {
+        return state;
+    }
+
+    /**
+     * Sets the state of this generator, so it continues from where
+     * {@link #getState()} was called.
+     * @param state the state
+     */
+    public void setState(long state) {
+        this.state = state;
+    }
+
+    /**
+     * Scrambles the bits of a long.
+     * @param z the long
+     * @return the scrambled long
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,80 @@
+package tetriscore;
+
+/**
+ * A class that represents the I tetromino
+ * @author Grace Liu, Jed Wang
+ */
+public class TetI extends Tetromino {
+    /**
+     * Shorthand
+     */
+    private static final byte C = BitBoard.I;
+    
+    /**
+     * The one TetI
+     */
+    public static final TetI INSTANCE = new TetI();
+    
+    /**
+     * The shapes of all rotation states
+     */
+    private static final PieceShape[] SHAPES = 
+            PieceShape.rotationsOf(INSTANCE);
+    
+    /**
+     * Use {@link #INSTANCE} instead.
+     */
+    private TetI() {}
+    
+    @Override
+    public byte[][] getUp() {
+        return new byte[][]{{0,    C,    0,    0}, 
+                            {0,    C,    0,    0}, 
+                            {0,    C,    0,    0}, 
+                            {0,    C,    0,    0}};
+    }
+
+    @Override
+    public byte[][] getLeft() {
+        return new byte[][]{{0,    0,    0,    0}, 
+                            {C,    C,    C,    C},
+                            {0,    0,    0,    0}, 
+                            {0,    0,    0,    0}};
+    }
+
+    @Override
+    public byte[][] getDown() {
+        return new byte[][]{{0,    0,    C,    0}, 
+                            {0,    0,    C,    0}, 
+                            {0,    0,    C,    0}, 
+                            {0,    0,    C,    0}};
+    }
+
+    @Override
+    public byte[][] getRight() {
+        return new byte[][]{{0,    0,    0,    0}, 
+                            {0,    0,    0,    0}, 
+                            {C,    C,    C,    C},
+                            {0,    0,    0,    0}};
+    }
+
+    @Override
+    public int getRotationBoxWidth() {
+        return 4;
+    }
+
+    @Override
+    public PieceShape getPieceShape(int rotation) {
+        return SHAPES[rotation];
+    }
+
+    @Override
+    public boolean sameTetromino(Tetromino t) {
+        return t instanceof TetI;
+    }
+
+    @Override
+    public String getShape() {
+        return "I";
+    }
+}
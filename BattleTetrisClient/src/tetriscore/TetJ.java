@@ -0,0 +1,76 @@
+package tetriscore;
+
+/**
+ * A class that represents the J tetromino
+ * @author Danny Tang, Jed Wang
+ */
+public class TetJ extends Tetromino {
+    /**
+     * Shorthand
+     */
+    private static final byte B = BitBoard.J;
+   
+    /**
+     * The one TetJ
+     */
+    public static final TetJ INSTANCE = new TetJ();
+    
+    /**
+     * The shapes of all rotation states
+     */
+    private static final PieceShape[] SHAPES = 
+            PieceShape.rotationsOf(INSTANCE);
+    
+    /**
+     * Use {@link #INSTANCE} instead.
+     */
+    private TetJ() {}
+    
+    @Override
+    public byte[][] getUp() {
+        return new byte[][]{{B,    B,    0}, 
+                            {0,    B,    0}, 
+                            {0,    B,    0}};
+    }
+
+    @Override
+    public byte[][] getLeft() {
+        return new byte[][]{{0,    0,    B}, 
+                            {B,    B,    B}, 
+                            {0,    0,    0}};
+    }
+
+    @Override
+    public byte[][] getDown() {
+        return new byte[][]{{0,    B,    0}, 
+                            {0,    B,    0}, 
+                            {0,    B,    B}};
+    }
+
+    @Override
+    public byte[][] getRight() {
+        return new byte[][]{{0,    0,    0}, 
+                            {B,    B,    B}, 
+                            {B,    0,    0}};
+    }
+
+    @Override
+    public int getRotationBoxWidth() {
+        return 3;
+    }
+
+    @Override
+    public PieceShape getPieceShape(int rotation) {
+        return SHAPES[rotation];
+    }
+
+    @Override
+    public boolean sameTetromino(Tetromino t) {
+        return t instanceof TetJ;
+    }
+
+    @Override
+    public String getShape() {
+        return "J";
+    }
+}
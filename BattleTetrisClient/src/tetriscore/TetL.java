@@ -0,0 +1,76 @@
+package tetriscore;
+
+/**
+ * A class that represents the L tetromino
+ * @author Jed Wang
+ */
+public class TetL extends Tetromino {
+    /**
+     * Shorthand
+     */
+    private static final byte O = BitBoard.L;
+
+    /**
+     * The one TetL
+     */
+    public static final TetL INSTANCE = new TetL();
+    
+    /**
+     * The shapes of all rotation states
+     */
+    private static final PieceShape[] SHAPES = 
+            PieceShape.rotationsOf(INSTANCE);
+    
+    /**
+     * Use {@link #INSTANCE} instead.
+     */
+    private TetL() {}
+    
+    @Override
+    public byte[][] getUp() {
+        return new byte[][]{{0,    O,    0}, 
+                            {0,    O,    0}, 
+                            {O,    O,    0}};
+    }
+
+    @Override
+    public byte[][] getLeft() {
+        return new byte[][]{{O,    0,    0}, 
+                            {O,    O,    O}, 
+                            {0,    0,    0}};
+    }
+
+    @Override
+    public byte[][] getDown() {
+        return new byte[][]{{0,    O,    O}, 
+                            {0,    O,    0}, 
+                            {0,    O,    0}};
+    }
+
+    @Override
+    public byte[][] getRight() {
+        return new byte[][]{{0,    0,    0}, 
+                            {O,    O,    O}, 
+                            {0,    0,    O}};
+    }
+
+    @Override
+    public int getRotationBoxWidth() {
+        return 3;
+    }
+
+    @Override
+    public PieceShape getPieceShape(int rotation) {
+        return SHAPES[rotation];
+    }
+
+    @Override
+    public boolean sameTetromino(Tetromino t) {
+        return t instanceof TetL;
+    }
+
+    @Override
+    public String getShape() {
+        return "L";
+    }
+}
@@ -0,0 +1,74 @@
+package tetriscore;
+
+/**
+ * A class that represents the O tetromino
+ * @author Grace Liu, Jed Wang
+ */
+public class TetO extends Tetromino {
+    /**
+     * Shorthand
+     */
+    private static final byte Y = BitBoard.O;
+    
+    /**
+     * The piece; doesn't change
+     */
+    private static final byte[][] piece = 
+            new byte[][]{{Y, Y}, {Y, Y}};
+    
+    /**
+     * The one TetO
+     */
+    public static final TetO INSTANCE = new TetO();
+    
+    /**
+     * The shapes of all rotation states
+     */
+    private static final PieceShape[] SHAPES = 
+            PieceShape.rotationsOf(INSTANCE);
+    
+    /**
+     * Use {@link #INSTANCE} instead.
+     */
+    private TetO() {}
+    
+    @Override
+    public byte[][] getUp() {
+        return piece;
+    }
+
+    @Override
+    public byte[][] getLeft() {
+        return piece;
+    }
+
+    @Override
+    public byte[][] getDown() {
+        return piece;
+    }
+
+    @Override
+    public byte[][] getRight() {
+        return piece;
+    }
+
+    @Override
+    public int getRotationBoxWidth() {
+        return 2;
+    }
+
+    @Override
+    public PieceShape getPieceShape(int rotation) {
+        return SHAPES[rotation];
+    }
+
+    @Override
+    public boolean sameTetromino(Tetromino t) {
+        return t instanceof TetO;
+    }
+
+    @Override
+    public String getShape() {
+        return "O";
+    }
+}
@@ -0,0 +1,76 @@
+package tetriscore;
+
+/**
+ * A class that represents the S tetromino
+ * @author Jed Wang
+ */
+public class TetS extends Tetromino {
+    /**
+     * Shorthand
+     */
+    private static final byte G = BitBoard.S;
+    
+    /**
+     * The one TetS
+     */
+    public static final TetS INSTANCE = new TetS();
+    
+    /**
+     * The shapes of all rotation states
+     */
+    private static final PieceShape[] SHAPES = 
+            PieceShape.rotationsOf(INSTANCE);
+    
+    /**
+     * Use {@link #INSTANCE} instead.
+     */
+    private TetS() {}
+    
+    @Override
+    public byte[][] getUp() {
+        return new byte[][]{{0,    G,    0}, 
+                            {G,    G,    0}, 
+                            {G,    0,    0}};
+    }
+
+    @Override
+    public byte[][] getLeft() {
+        return new byte[][]{{G,    G,    0}, 
+                            {0,    G,    G}, 
+                            {0,    0,    0}};
+    }
+
+    @Override
+    public byte[][] getDown() {
+        return new byte[][]{{0,    0,    G}, 
+                            {0,    G,    G}, 
+                            {0,    G,    0}};
+    }
+
+    @Override
+    public byte[][] getRight() {
+        return new byte[][]{{0,    0,    0}, 
+                            {G,    G,    0}, 
+                            {0,    G,    G}};
+    }
+
+    @Override
+    public int getRotationBoxWidth() {
+        return 3;
+    }
+
+    @Override
+    public PieceShape getPieceShape(int rotation) {
+        return SHAPES[rotation];
+    }
+
+    @Override
+    public boolean sameTetromino(Tetromino t) {
+        return t instanceof TetS;
+    }
+
+    @Override
+    public String getShape() {
+        return "S";
+    }
+}
\ No newline at end of file
@@ -0,0 +1,76 @@
+package tetriscore;
+
+/**
+ * A class that represents the T tetromino
+ * @author Jed Wang, Danny Tang
+ */
+public class TetT extends Tetromino {
+    /**
+     * Shorthand
+     */
+    private static final byte P = BitBoard.T;
+    
+    /**
+     * The one TetT
+     */
+    public static final TetT INSTANCE = new TetT();
+    
+    /**
+     * The shapes of all rotation states
+     */
+    private static final PieceShape[] SHAPES = 
+            PieceShape.rotationsOf(INSTANCE);
+    
+    /**
+     * Use {@link #INSTANCE} instead.
+     */
+    private TetT() {}
+    
+    @Override
+    public byte[][] getUp() {
+        return new byte[][]{{0,    P,    0}, 
+                            {P,    P,    0}, 
+                            {0,    P,    0}};
+    }
+
+    @Override
+    public byte[][] getLeft() {
+        return new byte[][]{{0,    P,    0}, 
+                            {P,    P,    P}, 
+                            {0,    0,    0}};
+    }
+
+    @Override
+    public byte[][] getDown() {
+        return new byte[][]{{0,    P,    0}, 
+                            {0,    P,    P}, 
+                            {0,    P,    0}};
+    }
+
+    @Override
+    public byte[][] getRight() {
+        return new byte[][]{{0,    0,    0}, 
+                            {P,    P,    P}, 
+                            {0,    P,    0}};
+    }
+
+    @Override
+    public int getRotationBoxWidth() {
+        return 3;
+    }
+
+    @Override
+    public PieceShape getPieceShape(int rotation) {
+        return SHAPES[rotation];
+    }
+
+    @Override
+    public boolean sameTetromino(Tetromino t) {
+        return t instanceof TetT;
+    }
+
+    @Override
+    public String getShape() {
+        return "T";
+    }
+}
\ No newline at end of file
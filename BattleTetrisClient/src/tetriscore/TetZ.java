@@ -0,0 +1,76 @@
+package tetriscore;
+
+/**
+ * A class that represents the Z tetromino
+ * @author Jed Wang, Danny Tang
+ */
+public class TetZ extends Tetromino {
+    /**
+     * Shorthand
+     */
+    private static final byte r = BitBoard.Z;
+    
+    /**
+     * The one TetZ
+     */
+    public static final TetZ INSTANCE = new TetZ();
+    
+    /**
+     * The shapes of all rotation states
+     */
+    private static final PieceShape[] SHAPES = 
+            PieceShape.rotationsOf(INSTANCE);
+    
+    /**
+     * Use {@link #INSTANCE} instead.
+     */
+    private TetZ() {}
+    
+    @Override
+    public byte[][] getUp() {
+        return new byte[][]{{r,    0,    0}, 
+                            {r,    r,    0}, 
+                            {0,    r,    0}};
+    }
+
+    @Override
+    public byte[][] getLeft() {
+        return new byte[][]{{0,    r,    r}, 
+                            {r,    r,    0}, 
+                            {0,    0,    0}};
+    }
+
+    @Override
+    public byte[][] getDown() {
+        return new byte[][]{{0,    r,    0}, 
+                            {0,    r,    r}, 
+                            {0,    0,    r}};
+    }
+
+    @Override
+    public byte[][] getRight() {
+        return new byte[][]{{0,    0,    0}, 
+                            {0,    r,    r}, 
+                            {r,    r,    0}};
+    }
+
+    @Override
+    public int getRotationBoxWidth() {
+        return 3;
+    }
+
+    @Override
+    public PieceShape getPieceShape(int rotation) {
+        return SHAPES[rotation];
+    }
+
+    @Override
+    public boolean sameTetromino(Tetromino t) {
+        return t instanceof TetZ;
+    }
+
+    @Override
+    public String getShape() {
+        return "Z";
+    }
+}
\ No newline at end of file
@@ -0,0 +1,281 @@
+package tetriscore;
+
+/**
+ * This class randomly generates piece order<br>
+ * The order comes from a {@link Randomizer}, 7 pieces at a time. 
+ * Pieces are queued as the kinds of their minos in a ring buffer, so 
+ * looking ahead at any piece takes the same time and taking pieces out 
+ * allocates nothing.
+ * @author Grace Liu, Jed Wang
+ */
+public class TetrisBag {
+    /**
+     * The shapes of the pieces, in the order of their kinds
+     */
+    private static final String SHAPES = "IJLOSTZ";
+    
+    /**
+     * How many pieces the queue holds at first; always a power of 2
+     */
+    private static final int CAPACITY = 64;
+    
+    /**
+     * The kinds of the queued pieces, in a ring starting at {@link #head}
+     */
+    private byte[] queue;
+    
+    /**
+     * Where the next piece is in the ring
+     */
+    private int head;
+    
+    /**
+     * How many pieces are queued
+     */
+    private int size;
+    
+    /**
+     * Where the pieces come from
+     */
+    private Randomizer randomizer;
+    
+    /**
+     * Whether the regeneration of bags is suspended
+     */
+    private boolean suspended;
+
+    /**
+     * Creates a new TetrisBag.
+     */
+    public TetrisBag() {
+        this(false);
+    }
+
+    /**
+     * Creates a new TetrisBag which deals 7-bags.
+     * @param suspended whether the regeneration of bags is suspended
+     */
+    public TetrisBag(boolean suspended) {
+        this(suspended, Randomizer.forName(Randomizer.SEVEN_BAG, 
+                System.nanoTime()));
+    }
+
+    /**
+     * Creates a new TetrisBag.
+     * @param suspended whether the regeneration of bags is suspended
+     * @param randomizer where the pieces come from
+     */
+    public TetrisBag(boolean suspended, Randomizer randomizer) {
+        this.suspended = suspended;
+        this.randomizer = randomizer;
+        queue = new byte[CAPACITY];
+        head = 0;
+        size = 0;
+    }
+    
+    /**
+     * Adds 7 new tetrominos to the queue.
+     * @return the kinds of the new tetrominos, 4 bits each with the first 
+     * lowest, or 0 if the regeneration of bags is suspended
+     * @see #unpack(int)
+     */
+    public int regenerateBag() {
+        if(suspended) return 0;
+        int bag = 0;
+        for(int i = 0; i < SHAPES.length(); i++) {
+            byte kind = randomizer.next();
+            push(kind);
+            bag |= kind << (4 * i);
+        }
+        
+        if(events != null) events.publish(GameEvents.BAG_GENERATED, bag);
+        
+        return bag;
+    }
+    
+    /**
+     * Spells out a bag, like {@code "IJLOSTZ"}.
+     * @param bag the kinds of the pieces, as returned by 
+     * {@link #regenerateBag()}
+     * @return the shapes of the pieces, in order
+     */
+    public static String unpack(int bag) {
+        StringBuilder output = new StringBuilder(SHAPES.length());
+        for(int i = 0; i < SHAPES.length(); i++) {
+            int kind = (bag >>> (4 * i)) & 0xF;
+            if(kind != BitBoard.EMPTY) output.append(SHAPES.charAt(kind - 1));
+        }
+        return output.toString();
+    }
+    
+    /**
+     * Adds a pre-specified bag to the mix.
+     * @param bag the bag to add
+     */
+    public void addBag(String bag) {
+        if(bag.length() != 7) throw new IllegalArgumentException(
+                "Invalid bag: length");
+        for(int i = 0; i < bag.length(); i++) {
+            if(Tetromino.kindOf(bag.charAt(i)) == BitBoard.EMPTY)
+                throw new IllegalArgumentException(
+                        "Invalid bag: " + bag.charAt(i));
+        }
+        for(int i = 0; i < bag.length(); i++) {
+            push(Tetromino.kindOf(bag.charAt(i)));
+        }
+    }
+    
+    /**
+     * Adds a piece to the end of the queue. The ring only grows if far 
+     * more bags have arrived than have been played.
+     * @param kind the kind of the piece
+     */
+    private void push(byte kind) {
+        if(size == queue.length) {
+            byte[] bigger = new byte[queue.length * 2];
+            for(int i = 0; i < size; i++) {
+                bigger[i] = queue[(head + i) & (queue.length - 1)];
+            }
+            queue = bigger;
+            head = 0;
+        }
+        queue[(head + size) & (queue.length - 1)] = kind;
+        size++;
+    }
+    
+    /**
+     * Returns the next tetromino in the queue.
+     * Also refreshes the queue
+     * @return the next tetromino, or {@code null} if the queue is empty
+     */
+    public Tetromino remove() {
+        byte kind = BitBoard.EMPTY;
+        if(size != 0) {
+            kind = queue[head];
+            head = (head + 1) & (queue.length - 1);
+            size--;
+        }
+        if(size < 7)
+            regenerateBag();
+        return Tetromino.of(kind);
+    }
+    
+    /**
+     * Determines what Tetromino is at that position is in the queue
+     * @param which which piece to look for
+     * @return the kind of the Tetromino at that position, or 
+     * {@link BitBoard#EMPTY} if the queue isn't that long
+     */
+    public byte next(int which) {
+        return (which < size) 
+                ? queue[(head + which) & (queue.length - 1)] 
+                : BitBoard.EMPTY;
+    }
+    
+    /**
+     * Sets where the pieces come from, starting with the next bag 
+     * generated.
+     * @param randomizer the randomizer
+     */
+    public void setRandomizer(Randomizer randomizer) {
+        this.randomizer = randomizer;
+    }
+    
+    /**
+     * Saves the queued pieces.
+     * @param state where to save to
+     */
+    void save(MatrixState state) {
+        state.queue = MatrixState.fit(state.queue, size);
+        for(int i = 0; i < size; i++) {
+            state.queue[i] = queue[(head + i) & (queue.length - 1)];
+        }
+        state.queueSize = size;
+    }
+    
+    /**
+     * Replaces the queued pieces with the ones 
+     * {@link #save(MatrixState)} saved.
+     * @param state where to restore from
+     */
+    void restore(MatrixState state) {
+        int capacity = queue.length;
+        while(capacity < state.queueSize) capacity *= 2;
+        if(capacity != queue.length) queue = new byte[capacity];
+        System.arraycopy(state.queue, 0, queue, 0, state.queueSize);
+        head = 0;
+        size = state.queueSize;
+    }
+    
+    /**
+     * Returns whether the queue is empty
+     * @return whether the queue is empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    /**
+     * Where new bags are published, if anywhere.
+     */
+    private GameEvents events = null;
+    
+    /**
+     * Sets where new bags are published.
+     * @param events the events of the game, or {@code null} for nowhere
+     */
+    public void setEvents(GameEvents events) {
+        this.events = events;
+    }
+    
+//    /**
+//     * A Bag that can be randomly accessed.
+//     */
+//    private static String RAM_BAG;
+//    
+//    /**
+//     * Regenerates the RAM_BAG;
+//     */
+//    public static void regenerateRAMBag() {
+//        ArrayList<String> r = new ArrayList<>();
+//        r.add("I");
+//        r.add("J");
+//        r.add("L");
+//        r.add("O");
+//        r.add("S");
+//        r.add("T");
+//        r.add("Z");
+//        
+//        RAM_BAG = "";
+//        
+//        while(!r.isEmpty()) {
+//            int i = (int) (Math.random() * r.size());
+//            String t = r.remove(i);
+//            RAM_BAG += t;
+//        }
+//    }
+//
+//    /**
+//     * Returns the RAM_BAG
+//     * @return the RAM_BAG
+//     */
+//    public static String getRAM_BAG() {
+//        return RAM_BAG;
+//    }
+//    
+//    /**
+//     * Generates a TetrisBag from the RAM_BAG
+//     * @param onLeft whether the bag should be left- or right-handed
+//     * @return the TetrisBag created/generated
+//     */
+//    public static TetrisBag fromRAM(boolean onLeft) {
+//        TetrisBag output = new TetrisBag(onLeft);
+//        output.addBag(RAM_BAG);
+//        return output;
+//    }
+    
+    /**
+     * Some RAM bags
+     */
+    public static String RAM_BAG_THIS = null, RAM_BAG_THAT = null;
+}
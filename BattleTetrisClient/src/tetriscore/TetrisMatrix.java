@@ -0,0 +1,1534 @@
+package tetriscore;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import static tetriscore.GameAction.*;
+
+/**
+ * A class that represents the Tetris matrix<br>
+ * Only the game itself lives here: drawing works from 
+ * {@link Snapshot}s and everything else reads its {@link GameEvents}, so 
+ * a TetrisMatrix runs just as well without a screen.
+ * @author Jed Wang
+ */
+public class TetrisMatrix {
+    /**
+     * The currently falling tetromino
+     */
+    private Tetromino falling;
+    
+    /**
+     * The rotation state of the falling tetromino
+     */
+    private int rotation;
+    
+    /**
+     * How many more times the falling tetromino may rotate before it 
+     * is rotation locked
+     */
+    private int rotationsLeft;
+    
+    /**
+     * The RNG for which piece is coming next
+     */
+    private TetrisBag bag;
+    
+    /**
+     * The "x" coordinate of the top left corner of the Tetromino's box
+     */
+    private int x;
+    
+    /**
+     * The "y" coordinate of the top left corner of the Tetromino's box
+     */
+    private int y;
+    
+    /**
+     * Stores all of the minos in the matrix.
+     */
+    private final BitBoard matrix;
+    
+    /**
+     * Stores whether a piece can swap to hold.
+     */
+    private boolean holdSwappable;
+    
+    /**
+     * The tetromino that is currently being held.
+     */
+    private Tetromino hold;
+    
+    /**
+     * The GarbageHandler for this TetrisMatrix.
+     */
+    private final GarbageHandler gh;
+    
+    /**
+     * Which kick test the last rotation used, or -1 if the piece didn't 
+     * rotate
+     */
+    private int lastKick;
+    
+    /**
+     * The kick system used for rotating
+     */
+    private volatile KickTable kickTable = KickTable.SRS;
+    
+    /**
+     * Where the pieces of this matrix's bags come from
+     */
+    private volatile Randomizer randomizer = 
+            Randomizer.forName(Randomizer.SEVEN_BAG, System.nanoTime());
+    
+    /**
+     * Where the holes of incoming garbage come from
+     */
+    private final SplitMix64 holes = new SplitMix64(System.nanoTime());
+    
+    /**
+     * The last action performed by the player
+     */
+    private GameAction lastAction;
+    
+    /**
+     * Adding gravity
+     */
+    private final Gravity gravity;
+    
+    /**
+     * Adding lock delay for tetrominos
+     */
+    private final LockDelay lockDelay;
+    
+    /**
+     * Everything that happens to this matrix
+     */
+    private final GameEvents events;
+    
+    /**
+     * Controls the line clear animation
+     */
+    private LinkedList<Integer> rowsCleared;
+    
+    /*
+     * Controls the line clear animation
+     */
+    private double clearAnimation;
+    
+    /**
+     * How many times a piece may rotate
+     */
+    private static final int ROTATION_LIMIT = 15;
+    
+    /**
+     * How many ticks a piece may rest on the stack before it locks
+     */
+    private static final int LOCK_DELAY_TICKS = GameLoop.ticks(500);
+    
+    /**
+     * How much the line clear animation fades every tick
+     */
+    private static final double CLEAR_FADE_PER_TICK = 12.75;
+    
+    /**
+     * Every action, by ordinal
+     */
+    private static final GameAction[] ACTIONS = GameAction.values();
+    
+    /**
+     * What clearing every number of lines at once is called
+     */
+    private static final String[] CLEAR_NAMES = {null, "single", "double", 
+        "triple", "quad"};
+    
+    /**
+     * Whether this TetrisMatrix is on the left
+     */
+    private final boolean onLeft;
+    
+    /**
+     * Whether this TetrisMatrix is controlled by the player on this 
+     * computer, instead of by commands from the server
+     */
+    private final boolean local;
+    
+    /**
+     * What this matrix looked like at the end of the last tick
+     */
+    private volatile Snapshot published;
+    
+    /**
+     * Whether gravity and locking are running
+     */
+    private volatile boolean running = false;
+    
+    /**
+     * Text that denotes a t-spin or tetris
+     */
+    private volatile String specialText = null;
+    
+    /**
+     * How many more ticks the special text is shown for
+     */
+    private int specialTextTicks = 0;
+    
+    /**
+     * The width of the matrix
+     */
+    public static final int WIDTH = 10;
+    
+    /**
+     * The height of the matrix
+     */
+    public static final int HEIGHT = 40;
+    
+    /**
+     * How many ticks it takes gravity to move a piece down one row
+     */
+    public static final int GRAVITY_TICKS = GameLoop.ticks(1000);
+    
+    /**
+     * Whether the all-clear text should be shown
+     */
+    private volatile boolean showAllClear = false;
+    
+    /**
+     * How many more ticks the all-clear text is shown for
+     */
+    private int allClearTicks = 0;
+    
+    /**
+     * Creates a new, default TetrisMatrix.
+     */
+    public TetrisMatrix() {
+        this(true);
+    }
+
+    /**
+     * Creates a new TetrisMatrix.
+     * The matrix on the left is the one controlled by this player.
+     * @param onLeft whether this TetrisMatrix is on the left side of the pair
+     */
+    public TetrisMatrix(boolean onLeft) {
+        this(onLeft, onLeft);
+    }
+
+    /**
+     * Creates a new TetrisMatrix.
+     * @param onLeft whether this TetrisMatrix is on the left side of the pair
+     * @param local whether this TetrisMatrix is controlled by the player 
+     * on this computer, instead of by commands from the server
+     */
+    public TetrisMatrix(boolean onLeft, boolean local) {
+        this(onLeft, local, takeStartingBag(onLeft));
+    }
+    
+    /**
+     * Creates a new TetrisMatrix which starts with the given pieces.
+     * @param onLeft whether this TetrisMatrix is on the left side of the pair
+     * @param local whether this TetrisMatrix is controlled by the player 
+     * on this computer, instead of by commands from the server
+     * @param opening the first pieces, whole bags of 7 like 
+     * {@code "IJLOSTZ"}, or {@code null} to start without any
+     */
+    public TetrisMatrix(boolean onLeft, boolean local, String opening) {
+        this.onLeft = onLeft;
+        this.local = local;
+        
+        events = new GameEvents();
+        gh = new GarbageHandler(events);
+        // gh.addGarbage(2);
+        
+        rowsCleared = null;
+        
+        gravity = new Gravity();
+        if(local) lockDelay = new LockDelay();
+        else lockDelay = null;
+        
+        lastKick = -1;
+        hold = null;
+        matrix = new BitBoard(WIDTH, HEIGHT);
+        bag = newBag();
+        for(int i = 0; opening != null && i < opening.length(); i += 7) {
+            bag.addBag(opening.substring(i, Math.min(i + 7, 
+                    opening.length())));
+        }
+        /*if(!onLeft) {
+            bag.addBag("OOOOOOO");
+            bag.addBag("OOOOOOO");
+            bag.addBag("OOOOOOO");
+            bag.addBag("OOOOOOO");
+            bag.addBag("OOOOOOO");
+        }*/
+        
+        falling = null;
+        published = new Snapshot(this);
+    }
+    
+    /**
+     * Takes the starting bag from the server for one side.
+     * @param onLeft whether the bag is for the left side
+     * @return the bag, or {@code null} if the server hasn't sent one
+     */
+    private static String takeStartingBag(boolean onLeft) {
+        String output;
+        if(onLeft) {
+            output = TetrisBag.RAM_BAG_THIS;
+            TetrisBag.RAM_BAG_THIS = null;
+        } else {
+            output = TetrisBag.RAM_BAG_THAT;
+            TetrisBag.RAM_BAG_THAT = null;
+        }
+        return output;
+    }
+    
+    /**
+     * Resets everything so everything is anew.
+     */
+    public void reset() {
+        running = false;
+        falling = null;
+        
+        gh.reset();
+        
+        rowsCleared = null;
+        
+        lastKick = -1;
+        hold = null;
+        bag = newBag();
+        bag.regenerateBag();
+        /*if(!onLeft) {
+            bag.addBag("OOOOOOO");
+            bag.addBag("OOOOOOO");
+            bag.addBag("OOOOOOO");
+            bag.addBag("OOOOOOO");
+            bag.addBag("OOOOOOO");
+        }*/
+    }
+    
+    /**
+     * Creates an empty bag whose new bags are published with the other 
+     * events.
+     * @return the bag
+     */
+    private TetrisBag newBag() {
+        TetrisBag output = new TetrisBag(!local, randomizer);
+        output.setEvents(events);
+        return output;
+    }
+    
+    /**
+     * Resets the bags.
+     */
+    public void resetBags() {
+        bag = newBag();
+        if(onLeft) {
+            bag.addBag(TetrisBag.RAM_BAG_THIS);
+            TetrisBag.RAM_BAG_THIS = null;
+        } else {
+            bag.addBag(TetrisBag.RAM_BAG_THAT);
+            TetrisBag.RAM_BAG_THAT = null;
+        }
+    }
+    
+    /**
+     * Starts play on this matrix.
+     */
+    public void start() {
+        newPiece();
+        running = true;
+    }
+    
+    /**
+     * Advances this matrix by one tick of the {@link GameLoop}: 
+     * gravity, lock delay, the line clear animation and the banners.
+     */
+    public void tick() {
+        // banners fade out even between rounds
+        if(allClearTicks > 0 && --allClearTicks == 0) showAllClear = false;
+        if(specialTextTicks > 0 && --specialTextTicks == 0) specialText = null;
+        
+        if(!running || terminated) return;
+        gh.tick();
+        gravity.tick();
+        if(lockDelay != null) lockDelay.tick();
+        
+        if(rowsCleared != null) {
+            if(clearAnimation <= -255) {
+                int[] lines = new int[rowsCleared.size()];
+                int n = 0;
+                for(int i:rowsCleared) {
+                    lines[n++] = i;
+                }
+                matrix.removeLines(lines);
+                
+                rowsCleared = null;
+                
+                if(local) addGarbage();
+                
+                newPiece();
+            } else {
+                clearAnimation -= CLEAR_FADE_PER_TICK;
+            }
+        }
+    }
+    
+    /**
+     * Clears the matrix.
+     */
+    public void clearMatrix() {
+        matrix.clear();
+    }
+    
+    /**
+     * Publishes what this matrix looks like right now for drawing. 
+     * Must be run on the game's thread.
+     */
+    public void publish() {
+        published = new Snapshot(this);
+    }
+    
+    /**
+     * Returns what this matrix looked like when it was last published. 
+     * Safe to call from any thread.
+     * @return what this matrix looked like when it was last published
+     */
+    public Snapshot getSnapshot() {
+        return published;
+    }
+    
+    /**
+     * Adds garbage to the bottom of this matrix.
+     * @param garbageDump the garbage to add
+     */
+    public void dumpGarbage(String garbageDump) {
+        String[] data = garbageDump.split(" ");
+        if(data.length%2 != 0) 
+            throw new IllegalArgumentException("Illegal garbage dump: " + Arrays.toString(data));
+        for(int i = 0; i < data.length; i += 2) {
+            int a = Integer.parseInt(data[i]), b = Integer.parseInt(data[i+1]);
+            // a is the column which the hole is in
+            // b is the number of lines  to drop
+            if(b > HEIGHT) b = HEIGHT;
+        
+            pushGarbage(a, b);
+            gh.removeLines(b);
+        }
+    }
+    
+    /**
+     * Returns the section of the matrix that the falling piece occupies<br>
+     * e.g.<br>
+     * Falling piece (a TetO) is at (0, 0).<br>
+     * The matrix looks as such: <br>
+     * <code>....<br>
+     * X.XX<br>
+     * XXXX<br></code><br>
+     * The output would be:<br>
+     * <code>..<br>
+     * X.</code>
+     * @return the section of the matrix that the falling piece occupies
+     */
+    public byte[][] miniMatrix() {
+        return miniMatrix(0, 0);
+    }
+    
+    /**
+     * Returns the section of the matrix that the falling piece occupies, 
+     * considering the offset.<br>
+     * e.g. <code>(1, -1)</code> would kick the piece right 1 and down 1
+     * @see TetrisMatrix#miniMatrix()
+     * @param offsetX the offset of the X coordinate
+     * @param offsetY the offset of the Y coordinate
+     * @return the section of the matrix that the falling piece occupies 
+     * (not really); cells outside the matrix are garbage
+     */
+    public byte[][] miniMatrix(int offsetX, int offsetY) {
+        if(falling == null) return null;
+        
+        byte[][] output = new byte[falling.getRotationBoxWidth()]
+                [falling.getRotationBoxWidth()];
+        
+        int tlx = x + offsetX, tly = y - offsetY;
+        for(int i = 0; i < output.length; i++) {
+            int trueX = tlx + i;
+            for(int j = 0; j < output[i].length; j++) {
+                int trueY = tly + j;
+                if(trueX < 0 || trueX >= WIDTH || trueY < 0 || trueY >= HEIGHT) {
+                    output[i][j] = BitBoard.GARBAGE;
+                } else {
+                    output[i][j] = matrix.getKind(trueX, trueY);
+                }
+            }
+        }
+        
+        return output;
+    }
+    
+    /**
+     * Determines whether a piece would overlap any minos or leave the 
+     * matrix if its rotation box's top left corner were at (x, y).
+     * Nothing is allocated, so this can be called every tick.
+     * @param shape the shape of the piece
+     * @param x the x-coordinate of the top left corner of the rotation box
+     * @param y the y-coordinate of the top left corner of the rotation box
+     * @return whether the piece collides
+     */
+    public boolean collides(PieceShape shape, int x, int y) {
+        return matrix.collides(shape, x, y);
+    }
+    
+    /**
+     * Determines whether a shape would collide at the falling piece's 
+     * position, considering the offset.<br>
+     * e.g. <code>(1, -1)</code> would kick the piece right 1 and down 1
+     * @param shape the shape to test, usually a rotation state of the 
+     * falling piece
+     * @param offsetX the offset of the X coordinate
+     * @param offsetY the offset of the Y coordinate
+     * @return whether the shape collides
+     */
+    public boolean fallingCollides(PieceShape shape, int offsetX, 
+            int offsetY) {
+        return matrix.collides(shape, x + offsetX, y - offsetY);
+    }
+    
+    /**
+     * Determines whether the falling piece would collide if moved by 
+     * the offset.
+     * @see TetrisMatrix#fallingCollides(tetriscore.PieceShape, int, int)
+     * @param offsetX the offset of the X coordinate
+     * @param offsetY the offset of the Y coordinate
+     * @return whether the falling piece collides; {@code false} if there 
+     * is no falling piece
+     */
+    private boolean overlapsAt(int offsetX, int offsetY) {
+        Tetromino f = falling;
+        if(f == null) return false;
+        return matrix.collides(f.getPieceShape(rotation), 
+                x + offsetX, y - offsetY);
+    }
+    
+    /**
+     * Rotates the falling piece, kicking it if needed.
+     * @param direction either {@link Tetromino#CLOCKWISE} or 
+     * {@link Tetromino#COUNTERCLOCKWISE}
+     * @return whether the piece rotated
+     */
+    private boolean rotate(int direction) {
+        Tetromino f = falling;
+        int from = rotation, to = (direction == Tetromino.CLOCKWISE) 
+                ? (from + 3) % 4 : (from + 1) % 4;
+        int kickX = 0, kickY = 0;
+        lastKick = -1;
+        // a piece which used up its rotations stays where it is
+        if(rotationsLeft != 0) {
+            KickTable k = kickTable;
+            int test = k.resolve(this, f, from, to);
+            if(test == -1) return false;
+            int piece = KickTable.pieceIndex(f);
+            kickX = k.getKickX(piece, from, to, test);
+            kickY = k.getKickY(piece, from, to, test);
+            rotation = to;
+            rotationsLeft--;
+            lastKick = test;
+        }
+        x += kickX;
+        y -= kickY;
+        return true;
+    }
+    
+    /**
+     * Sets the kick system used for rotating.
+     * @param kickTable the kick system
+     */
+    public void setKickTable(KickTable kickTable) {
+        this.kickTable = kickTable;
+    }
+    
+    /**
+     * Returns the kick system used for rotating.
+     * @return the kick system
+     */
+    public KickTable getKickTable() {
+        return kickTable;
+    }
+    
+    /**
+     * Sets where the pieces come from, starting with the next bag 
+     * generated. The randomizer carries on between rounds, so a whole 
+     * match is deterministic from its seed.
+     * @param randomizer the randomizer
+     */
+    public void setRandomizer(Randomizer randomizer) {
+        this.randomizer = randomizer;
+        bag.setRandomizer(randomizer);
+    }
+    
+    /**
+     * Returns where the pieces come from.
+     * @return the randomizer
+     */
+    public Randomizer getRandomizer() {
+        return randomizer;
+    }
+    
+    /**
+     * Adds garbage to the queue for this matrix
+     * @param lines how many lines of garbage
+     */
+    public void addToGarbage(int lines) {
+        gh.addGarbage(lines);
+    }
+    
+    /**
+     * Sets the rules of attacking for this matrix.
+     * @param ruleset the ruleset
+     */
+    public void setRuleset(Ruleset ruleset) {
+        gh.setRuleset(ruleset);
+    }
+
+    /**
+     * Returns the rules of attacking for this matrix.
+     * @return the ruleset
+     */
+    public Ruleset getRuleset() {
+        return gh.getRuleset();
+    }
+
+    /**
+     * Sets how long garbage waits before it is added to this matrix.
+     * @param ticks the delay in ticks
+     * @see GarbageHandler#setGarbageDelay(int)
+     */
+    public void setGarbageDelay(int ticks) {
+        gh.setGarbageDelay(ticks);
+    }
+    
+    /**
+     * Returns how long garbage waits before it is added to this matrix.
+     * @return the delay in ticks
+     */
+    public int getGarbageDelay() {
+        return gh.getGarbageDelay();
+    }
+    
+    /**
+     * Returns the state of where the holes of garbage come from.
+     * @return the state
+     * @see #setHoleState(long)
+     */
+    public long getHoleState() {
+        return holes.getState();
+    }
+    
+    /**
+     * Sets the state of where the holes of garbage come from, so the 
+     * same garbage comes in as after {@link #getHoleState()}.
+     * @param state the state
+     */
+    public void setHoleState(long state) {
+        holes.setState(state);
+    }
+    
+    /**
+     * Executes the given action.
+     * @param ga the action to execute.
+     */
+    public void executeAction(GameAction ga) {
+        if(falling == null || terminated) return;
+        boolean moved = false;
+        switch(ga) {
+            case ROTATE_LEFT:
+                if(!rotate(Tetromino.COUNTERCLOCKWISE)) break;
+                moved = true;
+                if(lockDelay != null) lockDelay.addTouch();
+                lastAction = ga;
+                break;
+            case ROTATE_RIGHT:
+                if(!rotate(Tetromino.CLOCKWISE)) break;
+                moved = true;
+                if(lockDelay != null) lockDelay.addTouch();
+                lastAction = ga;
+                break;
+            case MOVE_LEFT:
+                if(!overlapsAt(-1, 0)) {
+                    x--;
+                    lastAction = ga;
+                    moved = true;
+                }
+                break;
+            case MOVE_RIGHT:
+                if(!overlapsAt(1, 0)) {
+                    x++;
+                    lastAction = ga;
+                    moved = true;
+                }
+                break;
+            case SOFT_DROP:
+                if(!overlapsAt(0, -1)) {
+                    y++;
+                    lastAction = ga;
+                    moved = true;
+                }
+                break;
+            case HARD_DROP:
+                int gY = getGhostY();
+                if(y != gY) {
+                    lastAction = ga;
+                    y = gY;
+                    moved = true;
+                }
+                if(local) lockPiece();
+                break;
+            case HOLD:
+                if(holdSwappable) {
+                    moved = true;
+                    if(hold == null) {
+                        hold = falling;
+                        newPiece();
+                    } else {
+                        Tetromino temp = hold;
+                        hold = falling;
+                        falling = temp;
+                        
+                        rotation = Tetromino.UP;
+                        rotationsLeft = ROTATION_LIMIT;
+                        
+                        moveTetToStart();
+                    }
+                    
+                    holdSwappable = false;
+                }
+                break;
+        }
+        
+        events.publish(GameEvents.ACTION, ga.ordinal(), moved ? 1 : 0, 0);
+    }
+    
+    /**
+     * Chooses the next piece and places it at the top of the playfield.
+     */
+    public void newPiece() {
+        falling = bag.remove();
+        rotation = Tetromino.UP;
+        rotationsLeft = ROTATION_LIMIT;
+        
+        moveTetToStart();
+        
+        gravity.resetGravity();
+        
+        holdSwappable = true;
+    }
+    
+    /**
+     * Returns the kind of a piece in the queue.
+     * @param which which piece, 0 being the next one
+     * @return the kind of the piece, or {@link BitBoard#EMPTY} if the 
+     * queue isn't that long
+     */
+    public byte getNext(int which) {
+        return bag.next(which);
+    }
+    
+    /**
+     * Returns whether the bag is empty
+     * @return whether the bag is empty
+     */
+    public boolean isBagEmpty() {
+        return bag.isEmpty();
+    }
+    
+    /**
+     * Moves the tetromino to the start
+     */
+    private void moveTetToStart() {
+        y = 20;
+        x = (WIDTH - falling.getRotationBoxWidth())/2;
+        
+        for(int i = 0; i < 3 /* The leeway is by 3 */; i++) {
+            if(overlapsAt(0, -2))
+                y--;
+        }
+        if(overlapsAt(0, 0)){
+            // no falling piece
+            falling = null;
+            
+            // Game over!
+            events.publish(GameEvents.GAME_OVER);
+        } else if(overlapsAt(0, -1)) {
+            // ditch the piece first
+            PieceShape shape = falling.getPieceShape(rotation);
+            for(int n = 0; n < shape.getCellCount(); n++) {
+                int r = shape.getCellX(n), c = shape.getCellY(n);
+                if(!matrix.isFilled(r + x, c + y)) {
+                    matrix.setKind(r + x, c + y, shape.getKind());
+                }
+            }
+            
+            // no falling piece
+            falling = null;
+            
+            // Game over!
+            events.publish(GameEvents.GAME_OVER);
+        }
+    }
+    
+    /**
+     * Locks all pieces and does some checks before sending in a new piece.
+     */
+    public void lockPiece() {
+        // stop gravity
+        gravity.disable();
+        
+        // reset lock piece checker
+        if(lockDelay != null) lockDelay.reset();
+        
+        // spins are decided before the piece is part of the matrix
+        int clearType = SpinDetector.classify(matrix, falling, rotation, 
+                x, y, (lastAction == ROTATE_LEFT 
+                        || lastAction == ROTATE_RIGHT) ? lastKick : -1, 
+                gh.getRuleset().isAllSpin());
+        
+        // lock
+        PieceShape shape = falling.getPieceShape(rotation);
+        for(int n = 0; n < shape.getCellCount(); n++) {
+            int r = shape.getCellX(n), c = shape.getCellY(n);
+            if(r + x < 0 || r + x >= WIDTH) {
+                System.err.println("Out of bounds in X:\tPiece: " 
+                        + falling.getShape() + "\t@: " + (r+x));
+            } else if(c + y < 0 || c + y >= HEIGHT) {
+                System.err.println("Out of bounds in Y:\tPiece: " 
+                        + falling.getShape() + "\t@: " + (c+y));
+            } else {
+                matrix.setKind(r + x, c + y, shape.getKind());
+            }
+        }
+        
+        events.publish(GameEvents.PIECE_LOCKED, x, y, 0);
+        
+        // only the rows of the piece can have been filled
+        int firstRow = Math.max(y + shape.getMinY(), 0), 
+                lastRow = Math.min(y + shape.getMaxY(), HEIGHT - 1);
+        int linesCleared = 0;
+        for(int i = firstRow; i <= lastRow; i++) {
+            if(lineFilled(i)) {
+                linesCleared++;
+            }
+        }
+        
+        // check for spins
+        String special = null; 
+        boolean b2b = gh.isB2B(), allClear = allClear();
+        gh.newLinesCleared(linesCleared, clearType, allClear);
+        switch(clearType) {
+            case GarbageHandler.T_SPIN:
+                System.out.println("T-spin " + linesCleared);
+                special = (linesCleared == 0) ? "T-spin" 
+                        : "T-spin|" + CLEAR_NAMES[linesCleared];
+                break;
+            case GarbageHandler.T_SPIN_MINI:
+                System.out.println("T-spin " + linesCleared);
+                special = (linesCleared == 0) ? "T-spin|mini" 
+                        : "T-spin|mini " + CLEAR_NAMES[linesCleared];
+                break;
+            case GarbageHandler.ALL_SPIN:
+                special = falling.getShape() + "-spin";
+                if(linesCleared != 0) 
+                    special += "|" + CLEAR_NAMES[linesCleared];
+                break;
+            default:
+                if(linesCleared == 4) special = "Tetris";
+        }
+        
+        if(allClear) {
+            showAllClear = true;
+            allClearTicks = GameLoop.ticks(2000);
+        }
+        
+        if(special != null) {
+            if(b2b) special = "B2B " + special;
+            specialText = special;
+            specialTextTicks = GameLoop.ticks(1000);
+        }
+        
+        // empty lines
+        for(int i = firstRow; i <= lastRow; i++) {
+            if(lineFilled(i)) {
+                if(rowsCleared == null) rowsCleared = new LinkedList<>();
+                emptyLine(i);
+                rowsCleared.add(i);
+            }
+        }
+        
+        // after locking, reset
+        if(linesCleared == 0) {
+            // add garbage
+            if(local) addGarbage();
+            newPiece();
+        } else {
+            falling = null;
+            clearAnimation = 510;
+        }
+    }
+    
+    /**
+     * Clears / Resets the falling tetromino to {@code null}.
+     */
+    public void clearFalling() {
+        falling = null;
+    }
+    
+    /**
+     * Adds garbage needed for this drop
+     */
+    private void addGarbage() {
+        int cap = gh.getRuleset().getGarbageCap();
+        int temp = 0;
+        while(true) {
+            int temptemp = gh.peekNextGarbage();
+            if(temptemp == 0) break;
+            temp += temptemp;
+            addGarbageLines(gh.getNextGarbage());
+            System.out.println("Oof! " + temptemp + " lines of garbage");
+            
+            if(temp >= cap) break;
+        }
+        if(temp != 0) events.publish(GameEvents.GARBAGE_RECEIVED, temp);
+    }
+    
+    /**
+     * Determines if the board is all clear
+     * @return if the board is all clear
+     */
+    private boolean allClear() {
+        return matrix.allClear();
+    }
+    
+    /**
+     * Sums up every mino in the matrix, so two games can be compared.
+     * @return the checksum of the matrix
+     * @see BitBoard#checksum()
+     */
+    public int checksum() {
+        return matrix.checksum();
+    }
+    
+    /**
+     * Determines the y-coordinate of the ghost-piece
+     * @return the y-coordinate of the ghost-piece
+     */
+    public int getGhostY() {
+        Tetromino f = falling;
+        if(f == null) return y;
+        // if every column of the piece is above the stack, the piece 
+        // lands on the highest of them
+        PieceShape shape = f.getPieceShape(rotation);
+        int ghostY = HEIGHT;
+        for(int col = shape.getMinX(); col <= shape.getMaxX(); col++) {
+            int bottom = shape.getColumnBottom(col);
+            if(bottom == -1) continue;
+            int top = matrix.getColumnTop(x + col);
+            if(y + bottom >= top) {
+                ghostY = -1;
+                break;
+            }
+            ghostY = Math.min(ghostY, top - 1 - bottom);
+        }
+        if(ghostY != -1) return ghostY;
+        
+        // tucked under an overhang: step down
+        int placeHolderY = 0;
+        while(!overlapsAt(0, -placeHolderY)){
+            placeHolderY++;
+        }
+        return y + placeHolderY - 1;
+    }
+    
+    /**
+     * Empties a row of blocks
+     * @param row which row to empty
+     */
+    public void emptyLine(int row) {
+        matrix.emptyLine(row);
+    }
+    
+    /**
+     * Clears a line in the matrix
+     * @param row which row to clear
+     */
+    public void clearLine(int row) {
+        matrix.copyLine(row - 1, row);
+    }
+    
+    /**
+     * Pushes a line upwards.
+     * @param row which row to push upwards
+     * @param rows how many lines to push up the given line
+     */
+    public void pushUpLine(int row, int rows) {
+        matrix.copyLine(row, row - rows);
+    }
+    
+    /**
+     * Determines whether a line is completely filled
+     * @param row which row to check
+     * @return whether a line is completely filled
+     */
+    public boolean lineFilled(int row) {
+        return matrix.lineFilled(row);
+    }
+    
+    /**
+     * Determines whether a line is completely empty
+     * @param row which row to check
+     * @return whether a line is completely empty
+     */
+    public boolean lineEmpty(int row) {
+        return matrix.lineEmpty(row);
+    }
+    
+    /**
+     * Determines whether a row is either all filled or all empty<br>
+     * Used to determine whether an all-clear has occured
+     * @param row which row to check
+     * @return whether a row is either all filled or all empty
+     */
+    public boolean lineHomogenous(int row) {
+        return matrix.lineHomogenous(row);
+    }
+    
+    /**
+     * Adds a given amount of garbage lines to the bottom of the matrix. 
+     * Every run of lines with the same hole is published as it is pushed 
+     * in, in the same order {@link #dumpGarbage(String)} takes them.
+     * @param lines how many garbage lines to add
+     */
+    public void addGarbageLines(int lines) {
+        if(lines > HEIGHT) lines = HEIGHT;
+       
+        double messiness = gh.getRuleset().getMessiness();
+        int hole = holes.nextInt(WIDTH);
+        int cnt = 0;
+        for(int i = 0; i < lines; i++) {
+            if(cnt != 0 && holes.nextDouble() < messiness) {
+                pushGarbage(hole, cnt);
+                events.publish(GameEvents.GARBAGE_ADDED, hole, cnt, 0);
+                cnt = 0;
+                hole = holes.nextInt(WIDTH);
+            }
+            cnt++;
+        }
+        pushGarbage(hole, cnt);
+        events.publish(GameEvents.GARBAGE_ADDED, hole, cnt, 0);
+    }
+    
+    /**
+     * Pushes lines of garbage in from the bottom of the matrix.
+     * @param hole the column of the hole
+     * @param lines how many lines
+     */
+    private void pushGarbage(int hole, int lines) {
+        matrix.insertRows(lines);
+        for(int j = 0; j < lines; j++) {
+            setGarbageLine(HEIGHT - j - 1, hole);
+        }
+    }
+    
+    /**
+     * Sets a row as a garbage line
+     * @param row which row to set
+     * @param hole the column the hole should be at
+     */
+    private void setGarbageLine(int row, int hole) {
+        matrix.setGarbageLine(row, hole);
+    }
+    
+    /**
+     * Outputs a line of the matrix
+     * @param row which row to print
+     */
+    public void printLine(int row) {
+        for(int i = 0; i < WIDTH; i++) {
+            System.out.print((matrix.isFilled(i, row))?"X":" ");
+        }
+        System.out.println();
+    }
+
+    /**
+     * Returns the currently falling tetromino
+     * @return the currently falling tetromino
+     */
+    public Tetromino getFallingPiece() {
+        return falling;
+    }
+    
+    /**
+     * Prints the matrix.
+     */
+    public void printMatrix() {
+        for(int i = 0; i < WIDTH; i++) {
+            for(int j = 0; j < HEIGHT; j++) {
+                if(matrix.isFilled(i, j)) {
+                    System.out.print("X");
+                } else {
+                    System.out.print(" ");
+                }
+            }
+            System.out.println();
+        }
+    }
+    
+    /**
+     * Prints the mini-matrix offsetted from the falling tetromino
+     * @param offsetX the offset for the x coordinate
+     * @param offsetY the offset for the y coordinate
+     */
+    public void printDebugMatrix(int offsetX, int offsetY) {
+        byte[][] mini = miniMatrix(offsetX, offsetY), 
+                tet = falling.getPieceShape(rotation).getDrawBox();
+        for(int i = 0;i<mini.length;i++) {
+            for(int j = 0;j<mini[i].length;j++) {
+                boolean m = mini[j][i] == BitBoard.EMPTY, 
+                        t = tet[j][i] == BitBoard.EMPTY;
+                if(m && t) {
+                    System.out.print(" ");
+                } else if(m ^ t) {
+                    System.out.print("@");
+                } else {
+                    System.out.print("X");
+                }
+            }
+            System.out.println();
+        }
+    }
+    
+    /**
+     * Returns everything that happens to this matrix. Consumers read it 
+     * through their own {@link GameEvents.Cursor}.
+     * @return the events of this matrix
+     */
+    public GameEvents getEvents() {
+        return events;
+    }
+    
+    /**
+     * Disables gravity.
+     */
+    public void disableGravity() {
+        gravity.disable();
+    }
+    
+    /**
+     * Enables gravity.
+     */
+    public void enableGravity() {
+        gravity.enable();
+    }
+    
+    /**
+     * Pauses gravity.
+     */
+    public void pauseGravity() {
+        events.publish(GameEvents.GRAVITY_PAUSED);
+        gravity.pause();
+    }
+    
+    /**
+     * Resumes gravity.
+     */
+    public void resumeGravity() {
+        events.publish(GameEvents.GRAVITY_RESUMED);
+        gravity.resume();
+    }
+    
+    /**
+     * Adds gravity to the pieces
+     */
+    private class Gravity {
+        /**
+         * Set to {@code false} to stop gravity
+         */
+        private boolean enabled = true;
+        
+        /**
+         * Whether this Gravity is paused
+         */
+        private boolean paused = false;
+        
+        /**
+         * The counter
+         */
+        private int i = 0;
+        
+        /**
+         * Advances gravity by one tick.
+         */
+        public void tick() {
+            try {
+                /*if(cnt > 1) {
+                    System.out.println(cnt + "/60 G");
+                }*/
+                if(falling != null) {
+                    if (paused) {
+                        if(falling == null) return;
+                        if (overlapsAt(0, -1) && enabled) {
+                            enabled = false;
+                        }
+                        if(falling == null) return;
+                        if (!overlapsAt(0, -1) && !enabled) {
+                            enabled = true;
+                        }
+                        return;
+                    }
+                    if (!enabled) {
+                        i = 0;
+                    } else if (i == GRAVITY_TICKS - 1) {
+                        y++;
+                        lastAction = GRAVITY;
+                    }
+                    if (overlapsAt(0, -1) && enabled) {
+                        enabled = false;
+                    }
+                    if (!overlapsAt(0, -1) && !enabled) {
+                        enabled = true;
+                    }
+                    i++;
+                    i %= GRAVITY_TICKS;
+                }
+            } catch (Exception e) {
+                // Just in case stuff happens
+                e.printStackTrace();
+            }
+        }
+        
+        /**
+         * Stops gravity.
+         */
+        public void disable() {
+            enabled = false;
+        }
+        
+        /**
+         * Restarts gravity.
+         */
+        public void enable() {
+            enabled = true;
+        }
+        
+        /**
+         * Pauses gravity.
+         */
+        public void pause() {
+            paused = true;
+        }
+        
+        /**
+         * Resumes gravity.
+         */
+        public void resume() {
+            paused = false;
+        }
+        
+        /**
+         * Resets gravity so the next piece is affected correctly
+         */
+        public void resetGravity() {
+            i = 0;
+        }
+    }
+    
+    /**
+     * A class that deals with lock delay.
+     */
+    private class LockDelay {
+        /**
+         * Whether this tetromino is floating
+         */
+        private boolean floating;
+        
+        /**
+         * How many ticks are left until the piece locks, or 0 if it 
+         * isn't going to lock
+         */
+        private int countdown;
+
+        /**
+         * Creates a new LockDelay.
+         */
+        public LockDelay() {
+            countdown = 0;
+            floating = (falling == null) ? false 
+                    : !overlapsAt(0, -1);
+        }
+
+        /**
+         * Advances lock delay by one tick.
+         */
+        public void tick() {
+            if(falling == null) return;
+            if (overlapsAt(0, -1) && floating) {
+                floating = false;
+                addTouch();
+                return;
+            }
+            if (!overlapsAt(0, -1) && !floating) {
+                floating = true;
+            }
+            if(countdown > 0 && --countdown == 0 && !floating) {
+                lockPiece();
+            }
+        }
+        
+        /**
+         * Resets this LockDelay so that checks are not run for this piece anymore.
+         */
+        public void reset() {
+            countdown = 0;
+            floating = !overlapsAt(0, -1);
+        }
+        
+        /**
+         * Adds a touch, which restarts the countdown.
+         */
+        public void addTouch() {
+            countdown = LOCK_DELAY_TICKS;
+        }
+    }
+    
+    /**
+     * Locks the currently falling piece to the given coordinates
+     * @param x the x-coordinate to lock to
+     * @param y the y-coordinate to lock to
+     */
+    public void lockFalling(int x, int y) {
+        this.x = x;
+        this.y = y;
+        lockPiece();
+    }
+    
+    /**
+     * Adds a bag of tetrominos
+     * @param bag the bag of tetrominos to add
+     */
+    public void addBag(String bag) {
+        this.bag.addBag(bag);
+    }
+    
+    /**
+     * Whether this TetrisMatrix's {@code terminate} method 
+     * has been called yet.
+     */
+    private boolean terminated = false;
+    
+    /**
+     * Terminates all actions to prevent the game from 
+     * continuing in the background.
+     */
+    public void terminate() {
+        terminated = true;
+        running = false;
+    }
+    
+    /**
+     * Saves everything this matrix needs to carry on from here.
+     * Must be run on the game's thread.
+     * @param state where to save to; its arrays are reused
+     */
+    public void save(MatrixState state) {
+        matrix.copyKinds(state.kinds);
+        state.falling = (falling == null) ? BitBoard.EMPTY
+                : falling.getKind();
+        state.hold = (hold == null) ? BitBoard.EMPTY : hold.getKind();
+        state.rotation = rotation;
+        state.rotationsLeft = rotationsLeft;
+        state.x = x;
+        state.y = y;
+        state.lastKick = lastKick;
+        state.lastAction = (lastAction == null) ? -1 : lastAction.ordinal();
+        state.holdSwappable = holdSwappable;
+        state.running = running;
+        state.gravityEnabled = gravity.enabled;
+        state.gravityPaused = gravity.paused;
+        state.gravityTicks = gravity.i;
+        if(lockDelay != null) {
+            state.floating = lockDelay.floating;
+            state.lockCountdown = lockDelay.countdown;
+        }
+
+        LinkedList<Integer> cleared = rowsCleared;
+        if(cleared == null) {
+            state.rowsClearedCount = -1;
+        } else {
+            state.rowsCleared = MatrixState.fit(state.rowsCleared,
+                    cleared.size());
+            int n = 0;
+            for(int row : cleared) state.rowsCleared[n++] = row;
+            state.rowsClearedCount = n;
+        }
+        state.clearAnimation = clearAnimation;
+        state.specialText = specialText;
+        state.specialTextTicks = specialTextTicks;
+        state.showAllClear = showAllClear;
+        state.allClearTicks = allClearTicks;
+
+        bag.save(state);
+        gh.save(state);
+        state.holeState = holes.getState();
+    }
+
+    /**
+     * Puts this matrix back the way it was when a state was saved.
+     * Nothing is published; the rules and the randomizer stay as
+     * they are. Must be run on the game's thread.
+     * @param state the state
+     */
+    public void restore(MatrixState state) {
+        matrix.setKinds(state.kinds);
+        falling = Tetromino.of(state.falling);
+        hold = Tetromino.of(state.hold);
+        rotation = state.rotation;
+        rotationsLeft = state.rotationsLeft;
+        x = state.x;
+        y = state.y;
+        lastKick = state.lastKick;
+        lastAction = (state.lastAction == -1) ? null
+                : ACTIONS[state.lastAction];
+        holdSwappable = state.holdSwappable;
+        running = state.running;
+        gravity.enabled = state.gravityEnabled;
+        gravity.paused = state.gravityPaused;
+        gravity.i = state.gravityTicks;
+        if(lockDelay != null) {
+            lockDelay.floating = state.floating;
+            lockDelay.countdown = state.lockCountdown;
+        }
+
+        if(state.rowsClearedCount == -1) {
+            rowsCleared = null;
+        } else {
+            rowsCleared = new LinkedList<>();
+            for(int i = 0; i < state.rowsClearedCount; i++) {
+                rowsCleared.add(state.rowsCleared[i]);
+            }
+        }
+        clearAnimation = state.clearAnimation;
+        specialText = state.specialText;
+        specialTextTicks = state.specialTextTicks;
+        showAllClear = state.showAllClear;
+        allClearTicks = state.allClearTicks;
+
+        bag.restore(state);
+        gh.restore(state);
+        holes.setState(state.holeState);
+    }
+
+    /**
+     * What a TetrisMatrix looks like at one moment: everything a 
+     * renderer needs, copied on the game's thread so that drawing never 
+     * reads the game while it changes. Nothing in a Snapshot changes 
+     * after it is made, and its arrays must not be modified.
+     */
+    public static final class Snapshot {
+        /**
+         * The kind of every cell, row by row from the top
+         */
+        public final byte[] kinds;
+        
+        /**
+         * The shape of the falling piece, or {@code null}
+         */
+        public final PieceShape shape;
+        
+        /**
+         * The position of the falling piece and its ghost
+         */
+        public final int x, y, ghostY;
+        
+        /**
+         * The kind of the held piece, or {@link BitBoard#EMPTY}
+         */
+        public final byte hold;
+        
+        /**
+         * The kinds of the next pieces; {@link BitBoard#EMPTY} where 
+         * the queue has run out
+         */
+        public final byte[] next;
+        
+        /**
+         * The lines sent and the combo
+         */
+        public final int linesSent, combo;
+        
+        /**
+         * How full the incoming garbage bar is, or {@code null}
+         */
+        public final int[] inBarFill;
+        
+        /**
+         * The special text to show, or {@code null}
+         */
+        public final String specialText;
+        
+        /**
+         * Whether to show the all clear banner
+         */
+        public final boolean allClear;
+        
+        /**
+         * The rows flashing after a clear, or {@code null}
+         */
+        public final int[] rowsCleared;
+        
+        /**
+         * How opaque the flashing rows are
+         */
+        public final int clearAlpha;
+        
+        /**
+         * Copies what a TetrisMatrix looks like right now.
+         * @param tm the TetrisMatrix
+         */
+        Snapshot(TetrisMatrix tm) {
+            kinds = new byte[WIDTH * HEIGHT];
+            tm.matrix.copyKinds(kinds);
+            
+            Tetromino f = tm.falling;
+            if(f == null) {
+                shape = null;
+                x = y = ghostY = 0;
+            } else {
+                shape = f.getPieceShape(tm.rotation);
+                x = tm.x;
+                y = tm.y;
+                ghostY = tm.getGhostY();
+            }
+            
+            hold = (tm.hold == null) ? BitBoard.EMPTY : tm.hold.getKind();
+            next = new byte[3];
+            for(int i = 0; i < next.length; i++) {
+                next[i] = tm.bag.next(i);
+            }
+            
+            linesSent = tm.gh.getLinesSent();
+            combo = tm.gh.getCombo();
+            inBarFill = tm.gh.getInBarFill();
+            specialText = tm.specialText;
+            allClear = tm.showAllClear;
+            
+            LinkedList<Integer> cleared = tm.rowsCleared;
+            if(cleared != null && tm.clearAnimation > -255) {
+                rowsCleared = new int[cleared.size()];
+                int i = 0;
+                for(int row:cleared) rowsCleared[i++] = row;
+                double a = tm.clearAnimation;
+                clearAlpha = (a >= 0) ? ((a <= 255) ? (int) a : 255) : 0;
+            } else {
+                rowsCleared = null;
+                clearAlpha = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package tetriscore;
+
+/**
+ * One kind of tetromino: its shapes in every rotation state, its rotation
+ * box and the kind of its minos.<br>
+ * There is exactly one instance of every kind, shared by every piece of
+ * that kind; see {@link #of(byte)}. Nothing about a Tetromino changes, so
+ * where a falling piece is and how it is turned is kept by the
+ * {@link TetrisMatrix}, not here.
+ * @author Danny Tang, Jed Wang, Grace Liu
+ */
+public abstract class Tetromino {
+    /**
+     * The "up" rotation state
+     */
+    public static final int UP = 0;
+    
+    /**
+     * The "left" rotation state
+     */
+    public static final int LEFT = 1;
+    
+    /**
+     * The "down" rotation state
+     */
+    public static final int DOWN = 2;
+    
+    /**
+     * The "right" rotation state
+     */
+    public static final int RIGHT = 3;
+    
+    /**
+     * An int which represents clockwise rotation
+     */
+    public static final int CLOCKWISE = 10;
+    
+    /**
+     * An int which represents counterclockwise rotation
+     */
+    public static final int COUNTERCLOCKWISE = 11;
+    
+    /**
+     * Only the tetrominos themselves make an instance, once each.
+     */
+    Tetromino() {}
+    
+    /**
+     * Returns the up state of the tetromino
+     * @return the up state 
+     */
+    public abstract byte[][] getUp();
+    
+    /**
+     * Returns the left state of the tetromino
+     * @return the left state 
+     */
+    public abstract byte[][] getLeft();
+    
+    /**
+     * Returns the down state of the tetromino
+     * @return the down state 
+     */
+    public abstract byte[][] getDown();
+    
+    /**
+     * Returns the right state of the tetromino
+     * @return the right state 
+     */
+    public abstract byte[][] getRight();
+    
+    /**
+     * Determines the width of the rotation box
+     * @return the width of the rotation box
+     */
+    public abstract int getRotationBoxWidth();
+    
+    /**
+     * Returns the precomputed shape of a rotation state of this tetromino.
+     * @param rotation the rotation state
+     * @return the shape of that rotation state
+     */
+    public abstract PieceShape getPieceShape(int rotation);
+    
+    /**
+     * Determines whether the given tetromino is the same as this one.
+     * @param t the tetromino to compare to
+     * @return whether the given tetromino is the same
+     */
+    public abstract boolean sameTetromino(Tetromino t);
+    
+    /**
+     * Returns the kind of this tetromino's minos, as stored in a 
+     * {@link BitBoard}.
+     * @return the kind of this tetromino's minos
+     */
+    public byte getKind() {
+        return getPieceShape(UP).getKind();
+    }
+    
+    /**
+     * Returns a String representation of the shape of this tetromino.
+     * @return the String representation of this tetromino's shape.
+     */
+    public abstract String getShape();
+
+    @Override
+    public String toString() {
+        return "[Tet" + getShape() + "]";
+    }
+    
+    /**
+     * Returns the one tetromino of a kind.
+     * @param kind the kind of the tetromino's minos, like 
+     * {@link BitBoard#T}
+     * @return the tetromino, or {@code null} if the kind isn't a piece
+     */
+    public static Tetromino of(byte kind) {
+        return (kind >= BitBoard.I && kind <= BitBoard.Z) 
+                ? Pieces.BY_KIND[kind] : null;
+    }
+    
+    /**
+     * Returns the kind of the tetromino with the given shape.
+     * @param shape the shape, like {@code 'T'}
+     * @return the kind of its minos, or {@link BitBoard#EMPTY} if there 
+     * is no such tetromino
+     */
+    public static byte kindOf(char shape) {
+        // the kinds go in the same order as the shapes
+        return (byte) ("IJLOSTZ".indexOf(shape) + 1);
+    }
+    
+    /**
+     * Holds the tetromino of every kind. Kept apart so that loading a 
+     * single tetromino doesn't need all of them to exist yet.
+     */
+    private static final class Pieces {
+        /**
+         * The tetromino of every kind; the index is the kind
+         */
+        static final Tetromino[] BY_KIND = {null, TetI.INSTANCE, 
+            TetJ.INSTANCE, TetL.INSTANCE, TetO.INSTANCE, TetS.INSTANCE, 
+            TetT.INSTANCE, TetZ.INSTANCE};
+    }
+}
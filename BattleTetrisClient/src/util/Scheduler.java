@@ -0,0 +1,62 @@
+package util;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The one timer thread of the client.<br>
+ * Anything that has to happen later, like the next round starting, goes
+ * through here instead of a new executor, so the number of threads stays
+ * the same however long the client runs. Every task gets a handle which
+ * can cancel it.
+ * @author Jed Wang
+ */
+public class Scheduler {
+    /**
+     * The executor which runs every task
+     */
+    private static final ScheduledThreadPoolExecutor EXECUTOR;
+
+    static {
+        EXECUTOR = new ScheduledThreadPoolExecutor(1, (Runnable r) -> {
+            Thread t = new Thread(r, "Scheduler");
+            t.setDaemon(true);
+            return t;
+        });
+        // cancelled tasks shouldn't sit in the queue until they're due
+        EXECUTOR.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * All methods are public and static; no need for this.
+     */
+    private Scheduler() {}
+
+    /**
+     * Runs a task once after a delay.
+     * @param task the task to run
+     * @param delay how long to wait
+     * @param unit the unit of the delay
+     * @return a handle which can cancel the task
+     */
+    public static ScheduledFuture<?> schedule(Runnable task, long delay,
+            TimeUnit unit) {
+        return EXECUTOR.schedule(() -> {
+            try {
+                task.run();
+            } catch (Exception e) {
+                // keep the timer thread alive for everyone else
+                e.printStackTrace();
+            }
+        }, delay, unit);
+    }
+
+    /**
+     * Cancels a task, if there is one.
+     * @param handle the handle of the task, or {@code null}
+     */
+    public static void cancel(ScheduledFuture<?> handle) {
+        if(handle != null) handle.cancel(false);
+    }
+}
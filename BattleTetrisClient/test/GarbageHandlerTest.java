@@ -0,0 +1,96 @@
+import tetriscore.GameEvents;
+import tetriscore.GameListener;
+import tetriscore.GarbageHandler;
+import tetriscore.Ruleset;
+
+public class GarbageHandlerTest {
+    static int failures = 0;
+    static int sent = 0, cancelled = 0, queued = 0;
+
+    public static void main(String[] args) {
+        GameEvents events = new GameEvents();
+        GarbageHandler gh = new GarbageHandler(events);
+        GameEvents.Cursor cursor = events.cursor();
+        GameListener counter = new GameListener() {
+            @Override
+            public void attackSent(int lines) {
+                sent += lines;
+            }
+
+            @Override
+            public void garbageCancelled(int lines) {
+                cancelled += lines;
+            }
+
+            @Override
+            public void garbageQueued(int lines) {
+                queued += lines;
+            }
+        };
+
+        // a tetris cancels the first chunk and part of the second
+        gh.addGarbage(3);
+        gh.addGarbage(4);
+        cursor.poll(counter);
+        check("queued", queued, 7);
+        gh.newLinesCleared(4, GarbageHandler.NORMAL, false);
+        cursor.poll(counter);
+        check("cancelled", cancelled, 4);
+        check("sent", sent, 0);
+        check("left", gh.peekNextGarbage(), 3);
+
+        // what isn't cancelled is sent
+        gh.newLinesCleared(0, GarbageHandler.NORMAL, false);
+        gh.newLinesCleared(3, GarbageHandler.T_SPIN, false);
+        cursor.poll(counter);
+        check("cancelled", cancelled, 7);
+        // a T-spin triple is 6, and 1 more back to back
+        check("sent", sent, 4);
+        check("empty", gh.hasGarbage() ? 1 : 0, 0);
+
+        // garbage waits out its delay
+        gh.setGarbageDelay(3);
+        gh.addGarbage(2);
+        for(int tick = 0; tick < 3; tick++) {
+            check("waiting", gh.getNextGarbage(), 0);
+            gh.tick();
+        }
+        check("ready", gh.getNextGarbage(), 2);
+
+        // the ring grows past its first capacity in order
+        gh.setGarbageDelay(0);
+        for(int i = 1; i <= 40; i++) gh.addGarbage(i);
+        for(int i = 1; i <= 40; i++) {
+            if(gh.getNextGarbage() != i) {
+                check("order", 0, i);
+                break;
+            }
+        }
+
+        // the same clears send what the ruleset says
+        events = new GameEvents();
+        GarbageHandler guideline = new GarbageHandler(events);
+        guideline.setRuleset(Ruleset.GUIDELINE);
+        cursor = events.cursor();
+        sent = 0;
+        guideline.newLinesCleared(1, GarbageHandler.T_SPIN_MINI, false);
+        cursor.poll(counter);
+        check("guideline mini single", sent, 0);
+        guideline.newLinesCleared(0, GarbageHandler.NORMAL, false);
+        guideline.newLinesCleared(2, GarbageHandler.T_SPIN, true);
+        cursor.poll(counter);
+        // 4 + 10 for the all clear + 1 back to back
+        check("guideline T-spin double", sent, 15);
+
+        if(failures == 0) System.out.println("Garbage queue OK");
+        else System.out.println(failures + " failures");
+    }
+
+    static void check(String what, int actual, int expected) {
+        if(actual != expected) {
+            failures++;
+            System.out.println("FAILED: " + what + " was " + actual
+                    + ", expected " + expected);
+        }
+    }
+}
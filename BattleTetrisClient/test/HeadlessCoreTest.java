@@ -0,0 +1,63 @@
+import tetriscore.GameAction;
+import tetriscore.GameEvents;
+import tetriscore.GameListener;
+import tetriscore.TetrisBag;
+import tetriscore.TetrisMatrix;
+
+public class HeadlessCoreTest {
+    static int locks = 0, cleared = 0;
+    static boolean over = false;
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        long start = System.nanoTime();
+        TetrisBag.RAM_BAG_THIS = "IJLOSTZ";
+        TetrisMatrix tm = new TetrisMatrix(true, true);
+        GameEvents.Cursor events = tm.getEvents().cursor();
+        GameListener counter = new GameListener() {
+            @Override
+            public void pieceLocked(int x, int y) {
+                locks++;
+            }
+
+            @Override
+            public void gameOver() {
+                over = true;
+            }
+
+            @Override
+            public void linesCleared(int lines, int clearType, int combo,
+                    boolean allClear) {
+                cleared += lines;
+            }
+        };
+        tm.start();
+        System.out.printf("Started in %.1f ms%n",
+                (System.nanoTime() - start) / 1e6);
+
+        // stack pieces wherever they fall until the game is over
+        GameAction[] moves = {GameAction.MOVE_LEFT, GameAction.MOVE_RIGHT,
+            GameAction.ROTATE_RIGHT, GameAction.ROTATE_LEFT};
+        start = System.nanoTime();
+        for(int tick = 0; tick < 100_000 && !over; tick++) {
+            tm.tick();
+            if(tick % 10 == 0) {
+                for(int i = 0; i < tick / 10 % 5; i++) {
+                    tm.executeAction(moves[tick / 50 % moves.length]);
+                }
+                tm.executeAction(GameAction.HARD_DROP);
+            }
+            events.poll(counter);
+        }
+        tm.publish();
+        System.out.printf("%d locks, %d lines in %.1f ms%n", locks, cleared,
+                (System.nanoTime() - start) / 1e6);
+        if(!over || locks == 0 || tm.getSnapshot() == null)
+            System.out.println("FAILED: the game never ended");
+        else if(events.getMissed() != 0)
+            System.out.println("FAILED: missed " + events.getMissed()
+                    + " events");
+        else
+            System.out.println("Headless core OK");
+    }
+}
@@ -0,0 +1,131 @@
+
+import tetriscore.KickTable;
+import tetriscore.Tetromino;
+
+public class KickTableTest {
+    static int failures = 0;
+
+    // 0, R, 2, L
+    static final int[] STATE = {Tetromino.UP, Tetromino.RIGHT,
+        Tetromino.DOWN, Tetromino.LEFT};
+
+    // from the SRS guideline, as "from to: x,y x,y..."
+    static final String[] SRS_JLSTZ = {
+        "0 R: 0,0 -1,0 -1,1 0,-2 -1,-2",
+        "R 0: 0,0 1,0 1,-1 0,2 1,2",
+        "R 2: 0,0 1,0 1,-1 0,2 1,2",
+        "2 R: 0,0 -1,0 -1,1 0,-2 -1,-2",
+        "2 L: 0,0 1,0 1,1 0,-2 1,-2",
+        "L 2: 0,0 -1,0 -1,-1 0,2 -1,2",
+        "L 0: 0,0 -1,0 -1,-1 0,2 -1,2",
+        "0 L: 0,0 1,0 1,1 0,-2 1,-2"
+    };
+
+    static final String[] SRS_I = {
+        "0 R: 0,0 -2,0 1,0 -2,-1 1,2",
+        "R 0: 0,0 2,0 -1,0 2,1 -1,-2",
+        "R 2: 0,0 -1,0 2,0 -1,2 2,-1",
+        "2 R: 0,0 1,0 -2,0 1,-2 -2,1",
+        "2 L: 0,0 2,0 -1,0 2,1 -1,-2",
+        "L 2: 0,0 -2,0 1,0 -2,-1 1,2",
+        "L 0: 0,0 1,0 -2,0 1,-2 -2,1",
+        "0 L: 0,0 -1,0 2,0 -1,2 2,-1"
+    };
+
+    static final String[] SRS_PLUS_I = {
+        "0 R: 0,0 1,0 -2,0 -2,-1 1,2",
+        "R 0: 0,0 -1,0 2,0 -1,-2 2,1",
+        "R 2: 0,0 -1,0 2,0 -1,2 2,-1",
+        "2 R: 0,0 -2,0 1,0 -2,1 1,-2",
+        "2 L: 0,0 2,0 -1,0 2,1 -1,-2",
+        "L 2: 0,0 1,0 -2,0 1,-2 -2,1",
+        "L 0: 0,0 1,0 -2,0 1,2 -2,-1",
+        "0 L: 0,0 -1,0 2,0 2,-1 -1,2"
+    };
+
+    static final String[] ARS_JLSTZ = {
+        "0 R: 0,0 1,0 -1,0", "R 0: 0,0 1,0 -1,0",
+        "R 2: 0,0 1,0 -1,0", "2 R: 0,0 1,0 -1,0",
+        "2 L: 0,0 1,0 -1,0", "L 2: 0,0 1,0 -1,0",
+        "L 0: 0,0 1,0 -1,0", "0 L: 0,0 1,0 -1,0"
+    };
+
+    static final String[] IN_PLACE = {
+        "0 R: 0,0", "R 0: 0,0", "R 2: 0,0", "2 R: 0,0",
+        "2 L: 0,0", "L 2: 0,0", "L 0: 0,0", "0 L: 0,0"
+    };
+
+    public static void main(String[] args) {
+        check(KickTable.SRS, SRS_JLSTZ, SRS_I);
+        check(KickTable.SRS_PLUS, SRS_JLSTZ, SRS_PLUS_I);
+        check(KickTable.ARS, ARS_JLSTZ, IN_PLACE);
+
+        for(KickTable k : KickTable.values()) {
+            if(KickTable.forName(k.getName()) != k)
+                fail(k + ": forName doesn't find it");
+        }
+        System.out.println(failures == 0 ? "All kick tables OK"
+                : failures + " failures");
+    }
+
+    static void check(KickTable k, String[] jlstz, String[] i) {
+        for(String piece : new String[]{"I", "J", "L", "O", "S", "T", "Z"}) {
+            String[] expected;
+            switch(piece) {
+                case "I":
+                    expected = i;
+                    break;
+                case "O":
+                    expected = IN_PLACE;
+                    break;
+                default:
+                    expected = jlstz;
+                    break;
+            }
+            int p = KickTable.pieceIndex(piece);
+            boolean[][] seen = new boolean[4][4];
+            for(String row : expected) {
+                String[] parts = row.split(": ");
+                int from = state(parts[0].charAt(0)),
+                        to = state(parts[0].charAt(2));
+                seen[from][to] = true;
+                String[] tests = parts[1].split(" ");
+                String name = k + " " + piece + " " + parts[0];
+                if(k.getTestCount(p, from, to) != tests.length) {
+                    fail(name + ": " + k.getTestCount(p, from, to)
+                            + " tests instead of " + tests.length);
+                    continue;
+                }
+                for(int t = 0; t < tests.length; t++) {
+                    String[] xy = tests[t].split(",");
+                    int x = Integer.parseInt(xy[0]),
+                            y = Integer.parseInt(xy[1]);
+                    if(k.getKickX(p, from, to, t) != x
+                            || k.getKickY(p, from, to, t) != y) {
+                        fail(name + " test " + (t + 1) + ": ("
+                                + k.getKickX(p, from, to, t) + ", "
+                                + k.getKickY(p, from, to, t)
+                                + ") instead of (" + x + ", " + y + ")");
+                    }
+                }
+            }
+            // no other rotations (staying put, 180s) have any tests
+            for(int from = 0; from < 4; from++) {
+                for(int to = 0; to < 4; to++) {
+                    if(!seen[from][to] && k.getTestCount(p, from, to) != 0)
+                        fail(k + " " + piece + " " + from + "->" + to
+                                + " should have no tests");
+                }
+            }
+        }
+    }
+
+    static int state(char c) {
+        return STATE["0R2L".indexOf(c)];
+    }
+
+    static void fail(String message) {
+        failures++;
+        System.out.println("FAIL " + message);
+    }
+}
@@ -0,0 +1,72 @@
+import tetriscore.BitBoard;
+import tetriscore.Randomizer;
+import tetriscore.SplitMix64;
+import tetriscore.TetrisBag;
+
+public class RandomizerTest {
+    static int failures = 0;
+
+    public static void main(String[] args) {
+        for(String name : Randomizer.names()) {
+            Randomizer a = Randomizer.forName(name, 42),
+                    b = Randomizer.forName(name, 42);
+            for(int i = 0; i < 10_000; i++) {
+                if(a.next() != b.next()) {
+                    fail(name + ": the same seed dealt different pieces");
+                    break;
+                }
+            }
+        }
+
+        bags(Randomizer.SEVEN_BAG, 1);
+        bags(Randomizer.FOURTEEN_BAG, 2);
+
+        // TGM never starts with S, Z or O
+        for(long seed = 0; seed < 1000; seed++) {
+            byte first = Randomizer.forName(Randomizer.TGM, seed).next();
+            if(first == BitBoard.S || first == BitBoard.Z
+                    || first == BitBoard.O) {
+                fail("TGM started with kind " + first + " (seed " + seed
+                        + ")");
+                break;
+            }
+        }
+
+        // saving and restoring the state repeats the numbers
+        SplitMix64 r = new SplitMix64(7);
+        long state = r.getState(), x = r.nextLong();
+        r.setState(state);
+        if(r.nextLong() != x) fail("SplitMix64 didn't restore its state");
+
+        // two bags from the same seed deal the same order
+        TetrisBag one = new TetrisBag(false,
+                Randomizer.forName(Randomizer.TGM, 99)),
+                two = new TetrisBag(false,
+                Randomizer.forName(Randomizer.TGM, 99));
+        if(one.regenerateBag() != two.regenerateBag())
+            fail("TetrisBags from the same seed differ");
+
+        if(failures == 0) System.out.println("All randomizers OK");
+        else System.out.println(failures + " failures");
+    }
+
+    static void bags(String name, int copies) {
+        Randomizer rand = Randomizer.forName(name, 1234);
+        for(int bag = 0; bag < 1000; bag++) {
+            int[] counts = new int[8];
+            for(int i = 0; i < 7 * copies; i++) counts[rand.next()]++;
+            for(int kind = 1; kind <= 7; kind++) {
+                if(counts[kind] != copies) {
+                    fail(name + ": bag " + bag + " has " + counts[kind]
+                            + " of kind " + kind);
+                    return;
+                }
+            }
+        }
+    }
+
+    static void fail(String message) {
+        failures++;
+        System.out.println("FAILED: " + message);
+    }
+}
@@ -0,0 +1,161 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import tetriscore.GameAction;
+import tetriscore.GameEvents;
+import tetriscore.GameListener;
+import tetriscore.MatrixState;
+import tetriscore.Randomizer;
+import tetriscore.Replay;
+import tetriscore.ReplayPlayer;
+import tetriscore.ReplayRecorder;
+import tetriscore.Ruleset;
+import tetriscore.TetrisMatrix;
+
+public class ReplayTest {
+    static int failures = 0;
+    static boolean over = false;
+
+    public static void main(String[] args) throws IOException {
+        TetrisMatrix tm = new TetrisMatrix(true, true, "TIJLOSZ");
+        tm.setRandomizer(Randomizer.forName(Randomizer.TGM, 5));
+        tm.setRuleset(Ruleset.GUIDELINE);
+        tm.setGarbageDelay(20);
+        GameEvents.Cursor events = tm.getEvents().cursor();
+        GameListener ender = new GameListener() {
+            @Override
+            public void gameOver() {
+                over = true;
+            }
+        };
+        ReplayRecorder recorder = new ReplayRecorder(tm);
+        tm.start();
+
+        // spread the pieces out slowly, with garbage coming in, so that
+        // the game runs through a few keyframes
+        for(int tick = 0, piece = 0; tick < 100_000 && !over; tick++) {
+            if(tick % 120 == 0) {
+                for(int i = 0; i < piece % 4; i++) {
+                    tm.executeAction(GameAction.ROTATE_RIGHT);
+                }
+                GameAction move = (piece % 2 == 0) ? GameAction.MOVE_LEFT
+                        : GameAction.MOVE_RIGHT;
+                for(int i = 0; i < piece / 2 % 5; i++) {
+                    tm.executeAction(move);
+                }
+                if(piece % 9 == 0) tm.executeAction(GameAction.HOLD);
+                piece++;
+            }
+            if(tick % 45 == 0) tm.pauseGravity();
+            if(tick % 45 == 20) tm.resumeGravity();
+            if(tick % 120 == 100) tm.executeAction(GameAction.HARD_DROP);
+            recorder.tick();
+            tm.tick();
+            if(tick % 400 == 0) tm.addToGarbage(tick / 400 % 3 + 1);
+            events.poll(ender);
+        }
+        Replay replay = recorder.finish();
+        if(!over) fail("the game never ended");
+
+        // through bytes and back
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        replay.write(bytes);
+        Replay read = Replay.read(
+                new ByteArrayInputStream(bytes.toByteArray()));
+        System.out.printf("%d ticks, %d inputs, %d locks in %d bytes%n",
+                replay.getLength(), replay.getInputCount(),
+                replay.getLocks(), bytes.size());
+
+        long start = System.nanoTime();
+        if(!new ReplayPlayer(read).verify())
+            fail("the replay didn't end the same way");
+        System.out.printf("Verified in %.1f ms%n",
+                (System.nanoTime() - start) / 1e6);
+
+        // as fast as a GameLoop can play it
+        ReplayPlayer fast = new ReplayPlayer(read);
+        fast.setSpeed(5000);
+        check("speed", fast.getSpeed(), ReplayPlayer.MAX_SPEED);
+        int loops = 0;
+        while(!fast.isFinished()) {
+            fast.tick();
+            loops++;
+        }
+        check("loops at full speed", loops,
+                read.getLength() / ReplayPlayer.MAX_SPEED + 1);
+        check("checksum", fast.getMatrix().checksum(), read.getChecksum());
+
+        // seeking
+        if(read.getKeyframeCount() < 3)
+            fail("only " + read.getKeyframeCount() + " keyframes");
+        ReplayPlayer seeker = new ReplayPlayer(read);
+        int middle = read.getLength() / 2;
+        int[] targets = {middle, middle / 3, middle + 7, read.getLength(),
+            Replay.KEYFRAME_INTERVAL - 1, 0, Replay.KEYFRAME_INTERVAL * 2};
+        start = System.nanoTime();
+        for(int target : targets) {
+            seeker.seek(target);
+            check("ticks after seeking to " + target, seeker.getTicks(),
+                    target);
+        }
+        System.out.printf("%d seeks in %.1f ms%n", targets.length,
+                (System.nanoTime() - start) / 1e6);
+        if(!seeker.verify())
+            fail("the replay didn't end the same way after seeking");
+
+        // every keyframe is where playing up to it gets to
+        ReplayPlayer linear = new ReplayPlayer(read);
+        for(int k = 0; k < read.getKeyframeCount(); k++) {
+            int tick = k * Replay.KEYFRAME_INTERVAL;
+            while(linear.getTicks() < tick) linear.step();
+            linear.seek(tick);
+            ReplayPlayer jumped = new ReplayPlayer(read);
+            jumped.seek(tick);
+            if(!Arrays.equals(state(linear), state(jumped)))
+                fail("keyframe " + k + " isn't where playing gets to");
+        }
+
+        // a snapshot sent to late spectators as text
+        ReplayPlayer snapped = new ReplayPlayer(read);
+        snapped.seek(middle);
+        MatrixState sent = new MatrixState();
+        snapped.getMatrix().save(sent);
+        String text = sent.toText();
+        MatrixState received = new MatrixState();
+        received.readText(text);
+        TetrisMatrix spectator = new TetrisMatrix(true, false, "");
+        spectator.restore(received);
+        System.out.printf("Snapshot in %d characters%n", text.length());
+        check("checksum of a snapshot", spectator.checksum(),
+                snapped.getMatrix().checksum());
+        try {
+            received.readText("not a snapshot");
+            fail("a bad snapshot was read");
+        } catch (IOException ex) {
+            // expected
+        }
+
+        if(failures == 0) System.out.println("Replays OK");
+        else System.out.println(failures + " failures");
+    }
+
+    static byte[] state(ReplayPlayer player) throws IOException {
+        MatrixState state = new MatrixState();
+        player.getMatrix().save(state);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        state.write(new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+
+    static void check(String what, int actual, int expected) {
+        if(actual != expected) fail(what + " was " + actual
+                + ", expected " + expected);
+    }
+
+    static void fail(String message) {
+        failures++;
+        System.out.println("FAILED: " + message);
+    }
+}
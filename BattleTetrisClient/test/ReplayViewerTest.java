@@ -0,0 +1,54 @@
+import java.io.IOException;
+import simpletetris.TetrisPanel;
+import tetriscore.GameAction;
+import tetriscore.Replay;
+import tetriscore.ReplayPlayer;
+import tetriscore.ReplayRecorder;
+import tetriscore.TetrisBag;
+import tetriscore.TetrisMatrix;
+
+public class ReplayViewerTest {
+    static int failures = 0;
+
+    public static void main(String[] args) throws IOException {
+        TetrisMatrix tm = new TetrisMatrix(true, true, "TIJLOSZ");
+        ReplayRecorder recorder = new ReplayRecorder(tm);
+        tm.start();
+        for(int tick = 0; tick < 2000; tick++) {
+            if(tick % 100 == 50) tm.executeAction(GameAction.HARD_DROP);
+            recorder.tick();
+            tm.tick();
+        }
+        Replay replay = recorder.finish();
+
+        // watched from the lobby, when no match has left a starting bag
+        TetrisBag.RAM_BAG_THIS = null;
+        TetrisBag.RAM_BAG_THAT = null;
+        TetrisPanel panel = null;
+        try {
+            panel = new TetrisPanel(new ReplayPlayer(replay));
+        } catch (RuntimeException ex) {
+            ex.printStackTrace();
+            fail("the viewer couldn't be built: " + ex);
+        }
+        if(panel != null) {
+            if(panel.getReplay() == null) fail("the panel has no replay");
+            panel.seekReplay(replay.getLength() / 2);
+            check("ticks after seeking", panel.getReplay().getTicks(),
+                    replay.getLength() / 2);
+        }
+
+        if(failures == 0) System.out.println("Replay viewer OK");
+        else System.out.println(failures + " failures");
+    }
+
+    static void check(String what, int actual, int expected) {
+        if(actual != expected) fail(what + " was " + actual
+                + ", expected " + expected);
+    }
+
+    static void fail(String message) {
+        failures++;
+        System.out.println("FAILED: " + message);
+    }
+}
@@ -0,0 +1,192 @@
+import java.util.ArrayDeque;
+import java.util.function.Consumer;
+import tetriscore.GameAction;
+import tetriscore.GameEvents;
+import tetriscore.GameListener;
+import tetriscore.Randomizer;
+import tetriscore.Rollback;
+import tetriscore.Ruleset;
+import tetriscore.TetrisBag;
+import tetriscore.TetrisMatrix;
+
+public class RollbackTest {
+    static int failures = 0;
+    static int senderOvers = 0, receiverOvers = 0;
+    static int senderLocks = 0, receiverLocks = 0;
+
+    /**
+     * A command on its way: when it arrives, the tick it was stamped
+     * with and what it does
+     */
+    static class Message {
+        final int arrives, stamp;
+        final Consumer<TetrisMatrix> input;
+
+        Message(int arrives, int stamp, Consumer<TetrisMatrix> input) {
+            this.arrives = arrives;
+            this.stamp = stamp;
+            this.input = input;
+        }
+    }
+
+    static final ArrayDeque<Message> wire = new ArrayDeque<>();
+    static int stamp = 0, lastArrival = 0;
+
+    static void send(int tick, Consumer<TetrisMatrix> input) {
+        // a laggy link which never reorders, like TCP
+        int arrives = Math.max(lastArrival, tick + 10 + tick * 7 % 40);
+        lastArrival = arrives;
+        wire.add(new Message(arrives, stamp, input));
+    }
+
+    static TetrisMatrix sender;
+
+    static void act(GameAction action) {
+        // like a key press: the move goes out before it happens
+        send(stamp, m -> m.executeAction(action));
+        sender.executeAction(action);
+    }
+
+    public static void main(String[] args) {
+        sender = new TetrisMatrix(true, true, "TIJLOSZ");
+        sender.setRandomizer(Randomizer.forName(Randomizer.TGM, 9));
+        sender.setRuleset(Ruleset.GUIDELINE);
+        sender.setGarbageDelay(20);
+        TetrisMatrix receiver = new TetrisMatrix(false, false, "TIJLOSZ");
+        receiver.setRuleset(Ruleset.GUIDELINE);
+        Rollback rollback = new Rollback(receiver);
+
+        GameEvents.Cursor out = sender.getEvents().cursor();
+        GameListener commands = new GameListener() {
+            final StringBuilder garbage = new StringBuilder();
+
+            @Override
+            public void pieceLocked(int x, int y) {
+                senderLocks++;
+                send(stamp, m -> m.lockFalling(x, y));
+            }
+
+            @Override
+            public void garbageAdded(int hole, int lines) {
+                garbage.append(hole).append(' ').append(lines).append(' ');
+            }
+
+            @Override
+            public void garbageReceived(int lines) {
+                String dump = garbage.toString().trim();
+                garbage.setLength(0);
+                send(stamp, m -> m.dumpGarbage(dump));
+            }
+
+            @Override
+            public void bagGenerated(int bag) {
+                String kinds = TetrisBag.unpack(bag);
+                send(stamp, m -> m.addBag(kinds));
+            }
+
+            @Override
+            public void gravityPaused() {
+                send(stamp, m -> m.pauseGravity());
+            }
+
+            @Override
+            public void gravityResumed() {
+                send(stamp, m -> m.resumeGravity());
+            }
+
+            @Override
+            public void gameOver() {
+                senderOvers++;
+            }
+        };
+        GameEvents.Cursor in = receiver.getEvents().cursor();
+        GameListener seen = new GameListener() {
+            @Override
+            public void pieceLocked(int x, int y) {
+                receiverLocks++;
+            }
+
+            @Override
+            public void gameOver() {
+                receiverOvers++;
+            }
+        };
+
+        sender.start();
+        receiver.start();
+        rollback.start();
+        out.poll(commands);
+
+        int predicted = 0, lastStamp = -1;
+        long worst = 0;
+        for(int tick = 0, piece = 0; tick < 100_000; tick++) {
+            // the sender plays, stamping what happens before every tick
+            if(senderOvers == 0) {
+                stamp = tick;
+                if(tick % 60 == 0) {
+                    for(int i = 0; i < piece % 4; i++) {
+                        act(GameAction.ROTATE_RIGHT);
+                    }
+                    GameAction move = (piece % 2 == 0)
+                            ? GameAction.MOVE_LEFT : GameAction.MOVE_RIGHT;
+                    for(int i = 0; i < piece / 2 % 5; i++) {
+                        act(move);
+                    }
+                    piece++;
+                }
+                if(tick % 45 == 0) sender.pauseGravity();
+                if(tick % 45 == 20) sender.resumeGravity();
+                if(tick % 60 == 50) act(GameAction.HARD_DROP);
+                out.poll(commands);
+                sender.tick();
+                if(tick % 300 == 0) sender.addToGarbage(tick / 300 % 3 + 1);
+                stamp = tick + 1;
+                out.poll(commands);
+            } else if(wire.isEmpty()) {
+                break;
+            }
+
+            // the receiver sees it late
+            while(!wire.isEmpty() && wire.peek().arrives <= tick) {
+                Message m = wire.poll();
+                if(m.stamp != lastStamp) {
+                    rollback.stamp(m.stamp);
+                    lastStamp = m.stamp;
+                }
+                rollback.receive(m.input);
+            }
+            long start = System.nanoTime();
+            rollback.tick();
+            worst = Math.max(worst, System.nanoTime() - start);
+            in.poll(seen);
+            predicted = Math.max(predicted, rollback.getPredictedTicks());
+            if(rollback.getPredictedTicks() > Rollback.MAX_PREDICTION)
+                fail("predicted " + rollback.getPredictedTicks() + " ticks");
+        }
+        // one more tick confirms whatever arrived last
+        rollback.tick();
+        in.poll(seen);
+
+        System.out.printf("%d locks, up to %d ticks predicted, "
+                + "worst tick %.2f ms%n", senderLocks, predicted,
+                worst / 1e6);
+        if(senderOvers != 1) fail("the sender's game never ended");
+        if(predicted == 0) fail("nothing was ever predicted");
+        check("locks seen", receiverLocks, senderLocks);
+        check("game overs seen", receiverOvers, senderOvers);
+        check("checksum", receiver.checksum(), sender.checksum());
+
+        if(failures == 0) System.out.println("Rollback OK");
+        else System.out.println(failures + " failures");
+    }
+
+    static void check(String what, int actual, int expected) {
+        if(actual != expected) fail(what + " was " + actual
+                + ", expected " + expected);
+    }
+
+    static void fail(String message) {
+        failures++;
+        System.out.println("FAILED: " + message);
+    }
+}
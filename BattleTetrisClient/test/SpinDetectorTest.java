@@ -0,0 +1,83 @@
+import tetriscore.BitBoard;
+import tetriscore.GarbageHandler;
+import tetriscore.PieceShape;
+import tetriscore.SpinDetector;
+import tetriscore.TetS;
+import tetriscore.TetT;
+import tetriscore.Tetromino;
+
+public class SpinDetectorTest {
+    static int failures = 0;
+
+    public static void main(String[] args) {
+        // a T-spin double slot: the T points down into the stack
+        BitBoard b = slot(TetT.INSTANCE, Tetromino.DOWN, 3, 37);
+        b.setKind(3, 37, BitBoard.GARBAGE);
+        check("T-spin double", classify(b, TetT.INSTANCE, Tetromino.DOWN,
+                0, false), GarbageHandler.T_SPIN);
+        check("no rotation", classify(b, TetT.INSTANCE, Tetromino.DOWN,
+                -1, false), GarbageHandler.NORMAL);
+        b.setKind(3, 37, BitBoard.EMPTY);
+        check("two corners", classify(b, TetT.INSTANCE, Tetromino.DOWN,
+                0, false), GarbageHandler.NORMAL);
+
+        // pointing up, only one corner in front: a mini
+        b = slot(TetT.INSTANCE, Tetromino.UP, 3, 37);
+        b.setKind(3, 37, BitBoard.GARBAGE);
+        check("mini", classify(b, TetT.INSTANCE, Tetromino.UP, 2, false),
+                GarbageHandler.T_SPIN_MINI);
+        // unless it took the last kick
+        check("last kick", classify(b, TetT.INSTANCE, Tetromino.UP, 4,
+                false), GarbageHandler.T_SPIN);
+
+        // an S stuck where it is
+        b = slot(TetS.INSTANCE, Tetromino.UP, 3, 37);
+        check("S without all-spins", classify(b, TetS.INSTANCE,
+                Tetromino.UP, 1, false), GarbageHandler.NORMAL);
+        check("S with all-spins", classify(b, TetS.INSTANCE,
+                Tetromino.UP, 1, true), GarbageHandler.ALL_SPIN);
+
+        if(failures == 0) System.out.println("All spins OK");
+        else System.out.println(failures + " failures");
+    }
+
+    /**
+     * Fills the bottom 4 rows except for where the piece goes.
+     */
+    static BitBoard slot(Tetromino t, int rotation, int x, int y) {
+        BitBoard b = new BitBoard(10, 40);
+        for(int row = 36; row < 40; row++) {
+            for(int col = 0; col < 10; col++) {
+                b.setKind(col, row, BitBoard.GARBAGE);
+            }
+        }
+        // leave the rest of the box open above the piece
+        for(int col = 0; col < 10; col++) {
+            b.setKind(col, y - 1, BitBoard.EMPTY);
+        }
+        PieceShape shape = t.getPieceShape(rotation);
+        for(int n = 0; n < shape.getCellCount(); n++) {
+            b.setKind(x + shape.getCellX(n), y + shape.getCellY(n),
+                    BitBoard.EMPTY);
+        }
+        // the box's other corners are open unless a test fills them
+        if(t == TetT.INSTANCE) {
+            b.setKind(x, y, BitBoard.EMPTY);
+            b.setKind(x + 2, y, BitBoard.EMPTY);
+        }
+        return b;
+    }
+
+    static int classify(BitBoard b, Tetromino t, int rotation, int kick,
+            boolean allSpin) {
+        return SpinDetector.classify(b, t, rotation, 3, 37, kick, allSpin);
+    }
+
+    static void check(String what, int actual, int expected) {
+        if(actual != expected) {
+            failures++;
+            System.out.println("FAILED: " + what + " was " + actual
+                    + ", expected " + expected);
+        }
+    }
+}
@@ -1,20 +1,29 @@
 package roomserver;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.net.InetAddress;
 import java.net.Socket;
 import java.net.SocketException;
 import java.net.UnknownHostException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Scanner;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * A class that handles communication with clients
@@ -26,6 +35,36 @@ public class ClientCommunication {
      */
     public static final int PORT = 9001;
     
+    /**
+     * The newest protocol version this server speaks.
+     */
+    public static final int PROTOCOL_VERSION = 2;
+    
+    /**
+     * Capability flag: binary framing of in-game commands.
+     */
+    public static final int CAP_BINARY_FRAMING = 1;
+    
+    /**
+     * Capability flag: compression of frames.
+     */
+    public static final int CAP_COMPRESSION = 1 << 1;
+    
+    /**
+     * Capability flag: bags generated from a shared seed.
+     */
+    public static final int CAP_SEEDED_BAGS = 1 << 2;
+    
+    /**
+     * Capability flag: resuming a session after a dropped connection.
+     */
+    public static final int CAP_RESUMPTION = 1 << 3;
+    
+    /**
+     * All capability flags this server can agree to.
+     */
+    public static final int SUPPORTED_CAPS = 0;
+    
     /**
      * A map of all names of clients paired to their respective Handlers.
      */
@@ -55,7 +94,19 @@ public class ClientCommunication {
      * The maximum amount of players allowed on the server.
      * {@code -1} means any amount is fine.
      */
-    private static int max_players = -1;
+    private static volatile int max_players = -1;
+    
+    /**
+     * The number of player slots currently taken, counting connections 
+     * which are still choosing a name.
+     */
+    private static final AtomicInteger SLOTS_TAKEN = new AtomicInteger();
+    
+    /**
+     * The bytes sent to a client which is turned away because the 
+     * server is full.
+     */
+    private static final byte[] FULL_RESPONSE = "FULL\n".getBytes();
     
     /**
      * Starts the serverUI.
@@ -69,6 +120,46 @@ public class ClientCommunication {
      */
     private ClientCommunication() {}
     
+    /**
+     * Attempts to reserve a player slot for a new connection.
+     * This is checked by the accept loop before any thread or stream 
+     * is created for the connection.
+     * @return whether a slot was reserved
+     */
+    public static boolean tryAcquireSlot() {
+        while(true) {
+            int taken = SLOTS_TAKEN.get(), max = max_players;
+            if(max != -1 && taken >= max) return false;
+            if(SLOTS_TAKEN.compareAndSet(taken, taken + 1)) return true;
+        }
+    }
+    
+    /**
+     * Frees a player slot reserved by {@link #tryAcquireSlot()}.
+     */
+    private static void releaseSlot() {
+        SLOTS_TAKEN.decrementAndGet();
+    }
+    
+    /**
+     * Tells a connection that the server is full and closes it.
+     * Runs on the accept loop, so nothing is allocated for the connection.
+     * @param socket the connection to turn away
+     */
+    public static void rejectFull(Socket socket) {
+        try {
+            socket.getOutputStream().write(FULL_RESPONSE);
+        } catch (IOException ex) {
+            // the client is gone anyways
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException ex) {
+                // nothing else to do
+            }
+        }
+    }
+    
     /**
      * A handler thread class.  Handlers are spawned from the listening
      * loop and are responsible for a dealing with a single client
@@ -100,6 +191,32 @@ public class ClientCommunication {
          */
         private PrintWriter out;
         
+        /**
+         * The character stream under {@code out}, which is also the lock 
+         * that {@code out} synchronizes on.
+         */
+        private OutputStreamWriter writer;
+        
+        /**
+         * The byte stream under {@code writer}
+         */
+        private OutputStream rawOut;
+        
+        /**
+         * The match this client is playing in
+         */
+        private volatile Match match;
+        
+        /**
+         * Which side of the match this client is on
+         */
+        private int side;
+        
+        /**
+         * The match this client is watching
+         */
+        private Match watching;
+        
         /**
          * Whether this client is in a game
          */
@@ -120,13 +237,36 @@ public class ClientCommunication {
          */
         private int startCntr;
         
+        /**
+         * Whether this Handler still holds its player slot.
+         */
+        private final AtomicBoolean holdsSlot;
+        
+        /**
+         * The protocol version agreed on with this client.
+         * Clients which never send HELLO speak version 1.
+         */
+        private int protocolVersion;
+        
+        /**
+         * The capability flags agreed on with this client.
+         * @see ClientCommunication#SUPPORTED_CAPS
+         */
+        private int capabilities;
+        
         /**
          * Constructs a handler thread, squirreling away the socket.
-         * All the interesting work is done in the run method.
+         * All the interesting work is done in the run method.<br>
+         * The caller must have already reserved a player slot with 
+         * {@link ClientCommunication#tryAcquireSlot()}; it is freed when 
+         * this Handler is closed.
          * @param socket the socket that receives info from the client
          */
         public Handler(Socket socket) {
             this.socket = socket;
+            holdsSlot = new AtomicBoolean(true);
+            protocolVersion = 1;
+            capabilities = 0;
             inGame = false;
             opponent = null;
             startCntr = 0;
@@ -145,14 +285,9 @@ public class ClientCommunication {
                 // Create character streams for the socket.
                 in = new BufferedReader(new InputStreamReader(
                     socket.getInputStream()));
-                out = new PrintWriter(socket.getOutputStream(), true);
-                
-                // Check if this server still has any room
-                if(max_players != -1 && HANDLERS.size() == max_players) {
-                    out.println("FULL");
-                    close();
-                    return;
-                }
+                rawOut = new BufferedOutputStream(socket.getOutputStream());
+                writer = new OutputStreamWriter(rawOut);
+                out = new PrintWriter(writer, true);
                 
                 // Check if this IP is banned
                 InetAddress thisAdd = socket.getInetAddress();
@@ -168,48 +303,32 @@ public class ClientCommunication {
                 }
 
                 // Request a name from this client.  Keep requesting until
-                // a name is submitted that is not already used.  Note that
-                // checking for the existence of a name and adding the name
-                // must be done while locking the set of names.
-                while(true) {
-                    out.println("SUBMITNAME");
-                    // notify("SUBMITNAME", false);
-                    name = in.readLine();
-                    // notify(name, true);
-                    if(name == null) return;
-                    if("".equals(name) || "null".equals(name)) continue;
-                    synchronized(HANDLERS) {
-                        if(!HANDLERS.containsKey(name)) {
-                            HashSet<String> copy = new HashSet<>(HANDLERS.keySet());
-                            for(Handler h : HANDLERS.values()) {
-                                h.out.println("NEWCLIENTtrue " + name);
-                            }
-                            HANDLERS.put(name, this);
-                            serverUI.addPlayer(name);
-                            for(String s : copy) {
-                                out.println("NEWCLIENTfalse " + s);
-                            }
-                            break;
-                        }
-                    }
+                // a name is submitted that is not already used.  The 
+                // greeting offers HELLO, which carries the name and the 
+                // capabilities at once; older clients only see SUBMITNAME.
+                out.println("SUBMITNAMEHELLO" + PROTOCOL_VERSION);
+                // notify("SUBMITNAME", false);
+                String reply = in.readLine();
+                // notify(reply, true);
+                if(reply == null) return;
+                boolean accepted;
+                if(reply.startsWith("HELLO")) {
+                    accepted = hello(reply.substring(5));
+                } else {
+                    accepted = registerName(reply);
+                    if(accepted) out.println("NAMEACCEPTED");
                 }
-                
-                // Check if this name/user is banned
-                if(BANNED_NAMES.containsKey(name)) {
-                    String reason = BANNED_NAMES.get(name);
-                    if(reason == null) {
-                        out.println("BAN");
-                    } else {
-                        out.println("BAN" + reason);
-                    }
-                    close();
-                    return;
+                while(!accepted) {
+                    if(socket.isClosed()) return;
+                    out.println("SUBMITNAME");
+                    reply = in.readLine();
+                    if(reply == null) return;
+                    accepted = registerName(reply);
+                    // Now that a successful name has been chosen, add the
+                    // socket's print writer to the set of all writers so
+                    // this client can receive broadcast messages.
+                    if(accepted) out.println("NAMEACCEPTED");
                 }
-                
-                // Now that a successful name has been chosen, add the
-                // socket's print writer to the set of all writers so
-                // this client can receive broadcast messages.
-                out.println("NAMEACCEPTED");
                 // notify("NAMEACCEPTED", false);
 
                 // Accept messages from this client and broadcast them.
@@ -241,6 +360,7 @@ public class ClientCommunication {
                     } else if(inGame) {
                         if(line.equals("EXIT")) {
                             inGame = false;
+                            endMatch();
                             BUSY.remove(this);
                             for(Handler h : HANDLERS.values()) {
                                 h.out.println("FREE" + name);
@@ -269,6 +389,7 @@ public class ClientCommunication {
                                     String thisBag = newBag(), thatBag = newBag();
                                     String toSend = "SB" + thisBag + " " + thatBag;
                                     out.println(toSend);
+                                    if(match != null) match.record(side, toSend);
                                     System.out.print("SERVER to ");
                                     println(toSend);
                                     opponent.loadedBagOpp = thisBag;
@@ -277,6 +398,7 @@ public class ClientCommunication {
                                     String toSend = "SB" + loadedBagThis + 
                                             " " + loadedBagOpp;
                                     out.println(toSend);
+                                    if(match != null) match.record(side, toSend);
                                     System.out.print("SERVER to ");
                                     println(toSend);
                                     loadedBagThis = null;
@@ -287,17 +409,40 @@ public class ClientCommunication {
                                     opponent.out.println("ST");
                                 }
                             }
-                        } else opponent.out.println(line);
+                        } else if(line.equals("GAMEOVER")) {
+                            // only the replay needs to know who lost
+                            Match m = match;
+                            if(m != null) m.record(side, line);
+                        } else if(line.startsWith("TICK")) {
+                            // stamps only matter to the opponent's client
+                            opponent.out.println(line);
+                        } else if(line.startsWith("SNAP")) {
+                            // snapshots only matter to late spectators
+                            Match m = match;
+                            if(m != null) m.record(side, line);
+                        } else {
+                            opponent.out.println(line);
+                            Match m = match;
+                            if(m != null) m.record(side, line);
+                        }
                     } else {
                         if(line.startsWith("CHALLENGE_C")) {
                             // Challenging for a match
-                            String toChallenge = line.substring(11);
+                            // [name] <kick system> <randomizer> <seed> <rules>
+                            String toChallenge = line.substring(11), 
+                                    kicks = "";
+                            int space = toChallenge.indexOf(' ');
+                            if(space != -1) {
+                                kicks = toChallenge.substring(space);
+                                toChallenge = toChallenge.substring(0, space);
+                            }
                             if(toChallenge.equals(name))
                                 continue;
                             
                             if(HANDLERS.containsKey(toChallenge)) {
                                 HANDLERS.get(toChallenge).
-                                        out.println("CHALLENGE_C" + name);
+                                        out.println("CHALLENGE_C" + name 
+                                                + kicks);
                             } else System.err.println("Opponent " + toChallenge 
                                     + " not found (149)");
                         } else if(line.startsWith("CHALLENGE_R")) {
@@ -322,11 +467,32 @@ public class ClientCommunication {
                                     
                                     BUSY.add(opponent);
                                     BUSY.add(this);
+                                    
+                                    stopWatching();
+                                    opponent.stopWatching();
+                                    Match m = new Match(opponent.name, name);
+                                    opponent.side = 0;
+                                    side = 1;
+                                    opponent.match = m;
+                                    match = m;
                                 } else {
                                     otherH.out.println("CHALLENGE_Rfalse " + name);
                                 }
                             } else System.err.println("Opponent " + other + 
                                     " not found (168)");
+                        } else if(line.startsWith("SPECTATE")) {
+                            // Watching somebody else's match
+                            Handler player = HANDLERS.get(line.substring(8));
+                            Match m = (player == null) ? null : player.match;
+                            stopWatching();
+                            if(m == null) {
+                                out.println("SVEND");
+                            } else {
+                                watching = m;
+                                m.addSpectator(this);
+                            }
+                        } else if(line.equals("UNSPECTATE")) {
+                            stopWatching();
                         }
                     }
                 }
@@ -348,6 +514,9 @@ public class ClientCommunication {
          * @throws IOException if something goes wrong
          */
         private void close() throws IOException {
+            if(holdsSlot.compareAndSet(true, false)) releaseSlot();
+            endMatch();
+            stopWatching();
             if(name != null) {
                 for (Handler h : HANDLERS.values()) {
                     h.out.println("REMOVECLIENT" + name);
@@ -364,11 +533,134 @@ public class ClientCommunication {
                 HANDLERS.remove(name);
                 serverUI.removePlayer(name);
             }
-            out.close();
-            in.close();
+            if(out != null) out.close();
+            if(in != null) in.close();
             socket.close();
         }
         
+        /**
+         * Ends the match this client is in, if any.
+         */
+        private void endMatch() {
+            Match m = match;
+            if(m == null) return;
+            m.end();
+            match = null;
+            if(opponent != null) opponent.match = null;
+        }
+        
+        /**
+         * Stops watching the match this client is watching, if any.
+         */
+        private void stopWatching() {
+            if(watching == null) return;
+            watching.removeSpectator(this);
+            watching = null;
+        }
+        
+        /**
+         * Writes an already encoded frame, which may be shared with 
+         * other clients, without mixing it up with other messages.
+         * @param frame the frame, including the line break
+         * @throws IOException if the client can't be written to
+         */
+        void writeShared(byte[] frame) throws IOException {
+            synchronized(writer) {
+                rawOut.write(frame);
+                rawOut.flush();
+            }
+        }
+        
+        /**
+         * Handles the body of a HELLO frame: 
+         * <code>[int version] [int capabilities] [String name]</code>.
+         * If the name is free, the client is registered and answered with 
+         * a single WELCOME frame holding the negotiated capabilities and 
+         * the whole roster. Otherwise, the client falls back to the 
+         * SUBMITNAME exchange.
+         * @param body the body of the HELLO frame
+         * @return whether the client was registered
+         * @throws IOException if something goes wrong
+         */
+        private boolean hello(String body) throws IOException {
+            String[] data = body.split(" ", 3);
+            if(data.length != 3) return false;
+            try {
+                protocolVersion = Math.min(Integer.parseInt(data[0]), 
+                        PROTOCOL_VERSION);
+                capabilities = Integer.parseInt(data[1]) & SUPPORTED_CAPS;
+            } catch (NumberFormatException nfe) {
+                protocolVersion = 1;
+                capabilities = 0;
+                return false;
+            }
+            
+            StringBuilder welcome = new StringBuilder("WELCOME");
+            welcome.append(protocolVersion).append(' ').append(capabilities);
+            if(!registerName(data[2], welcome)) return false;
+            out.println(welcome);
+            return true;
+        }
+        
+        /**
+         * Registers this client under the given name if it is free, then 
+         * lets everybody know, and sends this client the roster as 
+         * separate NEWCLIENT lines.
+         * @param candidate the name the client asked for
+         * @return whether the name was accepted
+         * @throws IOException if something goes wrong
+         */
+        private boolean registerName(String candidate) throws IOException {
+            return registerName(candidate, null);
+        }
+        
+        /**
+         * Registers this client under the given name if it is free, then 
+         * lets everybody know.<br>
+         * Checking for the existence of a name and adding the name
+         * must be done while locking the set of names.
+         * @param candidate the name the client asked for
+         * @param roster where to append the roster as 
+         * <code> [String name]:[boolean busy]</code> entries, 
+         * or {@code null} to send separate NEWCLIENT lines instead
+         * @return whether the name was accepted
+         * @throws IOException if something goes wrong
+         */
+        private boolean registerName(String candidate, StringBuilder roster) 
+                throws IOException {
+            if(candidate == null || "".equals(candidate) 
+                    || "null".equals(candidate)) return false;
+            
+            // Check if this name/user is banned
+            if(BANNED_NAMES.containsKey(candidate)) {
+                String reason = BANNED_NAMES.get(candidate);
+                if(reason == null) {
+                    out.println("BAN");
+                } else {
+                    out.println("BAN" + reason);
+                }
+                close();
+                return false;
+            }
+            
+            synchronized(HANDLERS) {
+                if(HANDLERS.containsKey(candidate)) return false;
+                name = candidate;
+                for(Handler h : HANDLERS.values()) {
+                    h.out.println("NEWCLIENTtrue " + name);
+                    if(roster == null) {
+                        out.println("NEWCLIENTfalse " + h.name);
+                    } else {
+                        roster.append(' ').append(h.name).append(':')
+                                .append(BUSY.contains(h));
+                    }
+                }
+                HANDLERS.put(name, this);
+                serverUI.addPlayer(name);
+            }
+            return true;
+        }
+        
         /**
          * Generates a new bag of tetrominos
          * @return the order of the bag
@@ -409,6 +701,15 @@ public class ClientCommunication {
         public String getClientName() {
             return name;
         }
+        
+        /**
+         * Returns whether this client agreed to use the given capability.
+         * @param capability one of the {@code CAP_} flags
+         * @return whether the capability is in use
+         */
+        public boolean hasCapability(int capability) {
+            return (capabilities & capability) != 0;
+        }
     }
     
     /**
@@ -492,6 +793,11 @@ public class ClientCommunication {
     private static final String UNKNOWN_PLAYER = "<span style=\"color:red;\">"
             + "Unknown player: no player with that name is connected.</span>";
     
+    /**
+     * How many matches are shown on one page of a player's history.
+     */
+    private static final int REPLAYS_PER_PAGE = 10;
+    
     /**
      * A TreeMap that stores all method stubs.
      */
@@ -513,6 +819,8 @@ public class ClientCommunication {
         COMMAND_TXT.put("stop", "/stop");
         COMMAND_TXT.put("list", "/list");
         COMMAND_TXT.put("setmaxplayers", "/setmaxplayers &lt;<i>maxPlayers: int</i>|clear>");
+        COMMAND_TXT.put("replays", "/replays &lt;player &lt;<i>player</i>> [<i>page</i>]|"
+                + "date &lt;<i>from</i>> [<i>to</i>]|top [<i>count</i>]|show &lt;<i>id</i>>>");
     }
     
     /**
@@ -789,7 +1097,7 @@ public class ClientCommunication {
                         int max = Integer.parseInt(num);
                         String extra = "";
                         
-                        int current = HANDLERS.size();
+                        int current = SLOTS_TAKEN.get();
                         if(max < current) {
                             max = current;
                             extra = "&lt;Restrained to current amount of players>";
@@ -813,6 +1121,66 @@ public class ClientCommunication {
                         } else return BAD_METHOD_CALL_3;
                     }
                 } else return BAD_METHOD_CALL_1;
+            case "replays":
+                if(data.length < 2 || data.length > 4) return BAD_METHOD_CALL_1;
+                ReplayArchive archive;
+                try {
+                    archive = ReplayArchive.getInstance();
+                } catch (IOException ex) {
+                    serverUI.printStackTrace(ex);
+                    return "<span style=\"color:red;\">Unable to open the "
+                            + "replay archive.</span>";
+                }
+                try {
+                    switch(data[1]) {
+                        case "player":
+                            if(data.length < 3) return BAD_METHOD_CALL_1;
+                            List<ReplayArchive.Entry> all = 
+                                    archive.byPlayer(data[2]);
+                            int replayPage = (data.length == 4) 
+                                    ? Integer.parseInt(data[3]) : 1;
+                            int from = all.size() - replayPage*REPLAYS_PER_PAGE;
+                            int to = from + REPLAYS_PER_PAGE;
+                            if(replayPage < 1 || to <= 0) 
+                                return "<span style=\"color:red;\">There is no page " 
+                                        + replayPage + ".</span>";
+                            // newest first
+                            List<ReplayArchive.Entry> shown = new ArrayList<>(
+                                    all.subList(Math.max(from, 0), to));
+                            Collections.reverse(shown);
+                            return listReplays("Matches of " + data[2] 
+                                    + " (page " + replayPage + ")", shown);
+                        case "date":
+                            if(data.length < 3) return BAD_METHOD_CALL_1;
+                            LocalDate first = LocalDate.parse(data[2]);
+                            LocalDate last = (data.length == 4) 
+                                    ? LocalDate.parse(data[3]) : first;
+                            if(first.isAfter(last)) return BAD_METHOD_CALL_2;
+                            return listReplays("Matches from " + first 
+                                    + " to " + last, 
+                                    archive.byDate(first, last));
+                        case "top":
+                            if(data.length == 4) return BAD_METHOD_CALL_1;
+                            int count = (data.length == 3) 
+                                    ? Integer.parseInt(data[2]) : REPLAYS_PER_PAGE;
+                            if(count < 1 || count > ReplayArchive.TOP_COUNT) 
+                                return BAD_METHOD_CALL_3;
+                            return listReplays("Top attack per minute", 
+                                    archive.topAttack(count));
+                        case "show":
+                            if(data.length != 3) return BAD_METHOD_CALL_1;
+                            ReplayArchive.Entry match = 
+                                    archive.get(Integer.parseInt(data[2]));
+                            if(match == null) 
+                                return "<span style=\"color:red;\">There is no match #" 
+                                        + data[2] + ".</span>";
+                            return showReplay(match, archive);
+                        default:
+                            return BAD_METHOD_CALL_3;
+                    }
+                } catch (NumberFormatException | DateTimeParseException ex) {
+                    return BAD_METHOD_CALL_2;
+                }
             default:
                 return UNKNOWN_COMMAND;
         }
@@ -824,6 +1192,59 @@ public class ClientCommunication {
         return null;
     }
     
+    /**
+     * Lists archived matches for the admin's console.
+     * @param title what the list shows
+     * @param entries the matches
+     * @return the list
+     */
+    private static String listReplays(String title, 
+            List<ReplayArchive.Entry> entries) {
+        if(entries.isEmpty())
+            return "<span style=\"color:green;\">" + title 
+                    + ": no matches found.</span>";
+        StringBuilder output = new StringBuilder("<span style=\"color:green;\">"
+                + title + ":</span>");
+        for(ReplayArchive.Entry e : entries) {
+            output.append(String.format("<br>#%d %tF %<tR %s %d-%d %s, "
+                    + "%d:%02d, APM %.1f/%.1f", e.id, e.start, 
+                    e.getName(0), e.getRoundsWon(0), e.getRoundsWon(1), 
+                    e.getName(1), e.duration / 60000, e.duration / 1000 % 60, 
+                    e.getAttackPerMinute(0), e.getAttackPerMinute(1)));
+        }
+        return output.toString();
+    }
+    
+    /**
+     * Reads a match back from the archive and describes what happened.
+     * @param match the match
+     * @param archive the archive it is in
+     * @return what happened in the match
+     */
+    private static String showReplay(ReplayArchive.Entry match, 
+            ReplayArchive archive) {
+        ReplaySummary summary;
+        try {
+            summary = new ReplaySummary(archive.read(match));
+        } catch (IOException ex) {
+            return "<span style=\"color:red;\">Unable to read match #" 
+                    + match.id + ": " + ex.getMessage() + "</span>";
+        }
+        StringBuilder output = new StringBuilder(String.format(
+                "<span style=\"color:green;\">Match #%d, %tF %<tR, "
+                + "%d:%02d, %d events:</span>", match.id, summary.start, 
+                summary.length / 60000, summary.length / 1000 % 60, 
+                summary.events));
+        for(int side = 0; side < 2; side++) {
+            output.append(String.format("<br>%s: %d pieces, %d moves, "
+                    + "%d lines received, %d rounds lost", 
+                    summary.getName(side), summary.getLocks(side), 
+                    summary.getMoves(side), summary.getLinesReceived(side), 
+                    summary.getRoundsLost(side)));
+        }
+        return output.toString();
+    }
+    
     /**
      * Returns the help for a command
      * @param command the command to look up help for
@@ -869,6 +1290,11 @@ public class ClientCommunication {
             case "setmaxplayers":
                 output += "Sets the maximum number of players allowed to join.";
                 break;
+            case "replays":
+                output += "Looks up recorded matches by player, by date "
+                        + "(yyyy-MM-dd) or by attack per minute, or reads "
+                        + "one back from the archive.";
+                break;
             default:
                 return UNKNOWN_COMMAND;
         }
@@ -0,0 +1,552 @@
+package roomserver;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import roomserver.ClientCommunication.Handler;
+
+/**
+ * A match between two players which can be watched by spectators.<br>
+ * The players' threads only queue up the commands they relay. A single
+ * fan-out thread, shared by all matches, encodes each frame once and
+ * hands the very same bytes to every spectator's {@link Feed}, so
+ * spectators never slow down the players. A small pool of writer 
+ * threads, also shared by all matches, empties the feeds. A spectator 
+ * who falls too far behind is dropped rather than buffered for, and one 
+ * whose connection stops taking frames altogether is disconnected, so 
+ * no writer waits on them for long.<br>
+ * Spectators who join mid-round are caught up from the latest snapshot 
+ * each player sent of their own matrix and the frames since, so catching 
+ * up costs the same however long the round has gone on. Every match is 
+ * also recorded into a replay.
+ * @author Jed Wang
+ */
+public class Match {
+    /**
+     * The names of both players: the challenger is side 0, the player
+     * who accepted is side 1.
+     */
+    private final String[] names;
+
+    /**
+     * Frames which have been recorded but not sent out yet.
+     */
+    private final ConcurrentLinkedQueue<Frame> pending;
+
+    /**
+     * Spectators waiting to be caught up and added.
+     */
+    private final ConcurrentLinkedQueue<Handler> joining;
+
+    /**
+     * Spectators waiting to be removed.
+     */
+    private final ConcurrentLinkedQueue<Handler> leaving;
+
+    /**
+     * Whether this match is already waiting for the fan-out thread.
+     */
+    private final AtomicBoolean queued;
+
+    /**
+     * Whether this match is over.
+     */
+    private volatile boolean ended;
+
+    /**
+     * The encoded starting bags of the current round. 
+     * Only touched by the fan-out thread.
+     */
+    private final ArrayList<byte[]> startingBags;
+
+    /**
+     * The latest encoded snapshot of each side this round, or 
+     * {@code null}. Only touched by the fan-out thread.
+     */
+    private final byte[][] snapshots;
+
+    /**
+     * The encoded frames of each side since its latest snapshot, or since 
+     * the round started. Only touched by the fan-out thread.
+     */
+    private final ArrayList<ArrayList<byte[]>> tails;
+
+    /**
+     * The feed of everybody watching this match. 
+     * Only touched by the fan-out thread.
+     */
+    private final ArrayList<Feed> spectators;
+
+    /**
+     * Records this match into a replay. Only touched by the fan-out thread.
+     */
+    private final MatchRecorder recorder;
+
+    /**
+     * Whether the last frame sent out was a starting bag.
+     * Only touched by the fan-out thread.
+     */
+    private boolean lastWasBag;
+
+    /**
+     * How many bytes may wait for one spectator before they are dropped. 
+     * Frames are shared by all spectators, so this bounds how far behind 
+     * the match they may be, not how much is kept for each of them.
+     */
+    private static final int MAX_BACKLOG = 16 << 10;
+
+    /**
+     * How long writing a single frame may take before the spectator is 
+     * disconnected
+     */
+    private static final long WRITE_TIMEOUT = TimeUnit.SECONDS.toNanos(2);
+
+    /**
+     * How often the fan-out thread looks for writes which take too long
+     */
+    private static final long STALL_CHECK = TimeUnit.MILLISECONDS.toNanos(250);
+
+    /**
+     * How many threads write to spectators
+     */
+    private static final int WRITER_THREADS = 4;
+
+    /**
+     * The encoded frame which tells a spectator the match is over for them
+     */
+    private static final byte[] END = encode("SVEND");
+
+    /**
+     * Matches with work for the fan-out thread.
+     */
+    private static final ConcurrentLinkedQueue<Match> DIRTY =
+            new ConcurrentLinkedQueue<>();
+
+    /**
+     * The thread which delivers frames to spectators.
+     */
+    private static final Thread FAN_OUT;
+
+    static {
+        FAN_OUT = new Thread(Match::fanOut, "Spectator fan-out");
+        FAN_OUT.setDaemon(true);
+        FAN_OUT.start();
+    }
+
+    /**
+     * The threads which write to spectators, shared by all matches.
+     */
+    private static final ExecutorService WRITERS = 
+            Executors.newFixedThreadPool(WRITER_THREADS, (Runnable r) -> {
+                Thread t = new Thread(r, "Spectator writer");
+                t.setDaemon(true);
+                return t;
+            });
+
+    /**
+     * Creates a new Match.
+     * @param first the name of the player on side 0
+     * @param second the name of the player on side 1
+     */
+    public Match(String first, String second) {
+        names = new String[]{first, second};
+        pending = new ConcurrentLinkedQueue<>();
+        joining = new ConcurrentLinkedQueue<>();
+        leaving = new ConcurrentLinkedQueue<>();
+        queued = new AtomicBoolean(false);
+        ended = false;
+        startingBags = new ArrayList<>();
+        snapshots = new byte[2][];
+        tails = new ArrayList<>();
+        tails.add(new ArrayList<>());
+        tails.add(new ArrayList<>());
+        spectators = new ArrayList<>();
+        lastWasBag = false;
+        recorder = new MatchRecorder(first, second);
+    }
+
+    /**
+     * Records an in-game command so it reaches the spectators.
+     * This is called on the relay path and never blocks.
+     * @param side the side of the player the command is about
+     * @param command the command
+     */
+    public void record(int side, String command) {
+        if(ended) return;
+        // the replay is timed by when the command came in, not by 
+        // when the fan-out thread gets to it
+        pending.add(new Frame((side == 0 ? "SV0" : "SV1") + command, 
+                System.nanoTime()));
+        wake();
+    }
+
+    /**
+     * Adds a spectator. They are first sent who is playing and enough 
+     * to catch up on the current round, then every new frame.
+     * @param h the spectator
+     */
+    public void addSpectator(Handler h) {
+        joining.add(h);
+        wake();
+    }
+
+    /**
+     * Removes a spectator.
+     * @param h the spectator
+     */
+    public void removeSpectator(Handler h) {
+        leaving.add(h);
+        wake();
+    }
+
+    /**
+     * Ends this match and lets all spectators know.
+     */
+    public void end() {
+        if(ended) return;
+        ended = true;
+        pending.add(new Frame("SVEND", System.nanoTime()));
+        wake();
+    }
+
+    /**
+     * Returns whether this match is over.
+     * @return whether this match is over
+     */
+    public boolean isEnded() {
+        return ended;
+    }
+
+    /**
+     * Queues this match up for the fan-out thread, if it isn't already.
+     */
+    private void wake() {
+        if(queued.compareAndSet(false, true)) {
+            DIRTY.add(this);
+            LockSupport.unpark(FAN_OUT);
+        }
+    }
+
+    /**
+     * The loop of the fan-out thread.
+     */
+    private static void fanOut() {
+        long checked = System.nanoTime();
+        while(true) {
+            long now = System.nanoTime();
+            if(now - checked >= STALL_CHECK) {
+                Feed.disconnectStalled(now);
+                checked = now;
+            }
+            Match m = DIRTY.poll();
+            if(m == null) {
+                LockSupport.parkNanos(STALL_CHECK);
+                continue;
+            }
+            m.queued.set(false);
+            try {
+                m.drain();
+            } catch (Exception e) {
+                // Just in case stuff happens
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Sends out everything that has piled up for this match.
+     * Only called by the fan-out thread.
+     */
+    private void drain() {
+        Handler h;
+        while((h = leaving.poll()) != null) {
+            for(Iterator<Feed> it = spectators.iterator(); it.hasNext();) {
+                Feed f = it.next();
+                if(f.spectator == h) {
+                    f.close();
+                    it.remove();
+                }
+            }
+        }
+
+        while((h = joining.poll()) != null) {
+            if(isWatching(h)) continue;
+            Feed f = new Feed(h);
+            if(ended) {
+                f.offer(END);
+                continue;
+            }
+            if(catchUp(f)) spectators.add(f);
+        }
+
+        Frame next;
+        while((next = pending.poll()) != null) {
+            String frame = next.text;
+            byte[] bytes = encode(frame);
+            int side = frame.charAt(2) - '0';
+
+            if(frame.startsWith("SNAP", 3)) {
+                // only spectators who join later need it
+                snapshots[side] = bytes;
+                tails.get(side).clear();
+                continue;
+            }
+            recorder.record(frame, next.time);
+
+            // a new round starts with both players' starting bags
+            boolean bag = frame.startsWith("SB", 3);
+            if(bag && !lastWasBag) clearRound();
+            lastWasBag = bag;
+            if(bag) startingBags.add(bytes);
+            else if(side == 0 || side == 1) tails.get(side).add(bytes);
+
+            for(Iterator<Feed> it = spectators.iterator(); it.hasNext();) {
+                if(!it.next().offer(bytes)) it.remove();
+            }
+        }
+
+        if(ended) {
+            spectators.clear();
+            clearRound();
+        }
+    }
+
+    /**
+     * Sends a new spectator who is playing, the starting bags of the 
+     * current round, then the latest snapshot of each side and what 
+     * happened to it since. Only called by the fan-out thread.
+     * @param f the feed of the spectator
+     * @return whether the spectator is still being fed
+     */
+    private boolean catchUp(Feed f) {
+        if(!f.offer(encode("SVSTART" + names[0] + " " + names[1]))) {
+            return false;
+        }
+        for(byte[] bag : startingBags) {
+            if(!f.offer(bag)) return false;
+        }
+        for(int side = 0; side < 2; side++) {
+            if(snapshots[side] != null && !f.offer(snapshots[side])) {
+                return false;
+            }
+            for(byte[] frame : tails.get(side)) {
+                if(!f.offer(frame)) return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Forgets everything about the current round.
+     * Only called by the fan-out thread.
+     */
+    private void clearRound() {
+        startingBags.clear();
+        snapshots[0] = snapshots[1] = null;
+        tails.get(0).clear();
+        tails.get(1).clear();
+    }
+
+    /**
+     * Determines whether a client is already watching this match.
+     * Only called by the fan-out thread.
+     * @param h the client
+     * @return whether they are one of the spectators
+     */
+    private boolean isWatching(Handler h) {
+        for(Feed f : spectators) {
+            if(f.spectator == h) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Encodes a frame into the bytes that go over the wire.
+     * @param frame the frame
+     * @return the encoded frame, including the line break
+     */
+    private static byte[] encode(String frame) {
+        return (frame + "\n").getBytes();
+    }
+
+    /**
+     * A frame and when it was recorded.
+     */
+    private static final class Frame {
+        /**
+         * The frame
+         */
+        final String text;
+
+        /**
+         * When it was recorded, in nanoseconds
+         */
+        final long time;
+
+        /**
+         * Creates a new Frame.
+         * @param text the frame
+         * @param time when it was recorded, in nanoseconds
+         */
+        Frame(String text, long time) {
+            this.text = text;
+            this.time = time;
+        }
+    }
+
+    /**
+     * Everything on its way to one spectator.<br>
+     * A feed holds no thread of its own: whenever frames are waiting, it 
+     * is handed to one of the shared writers, which writes a few and 
+     * hands it back if more are left, so no spectator keeps a writer to 
+     * themselves. Once more than {@link #MAX_BACKLOG} bytes wait, the 
+     * spectator has fallen behind: everything waiting is thrown away, 
+     * they are sent {@code SVEND} and nothing else. A write which takes 
+     * longer than {@link #WRITE_TIMEOUT} means the spectator's connection 
+     * has stopped, so it is closed, which frees the writer.
+     */
+    private static final class Feed implements Runnable {
+        /**
+         * How many frames a writer writes before giving others a turn
+         */
+        private static final int BATCH = 32;
+
+        /**
+         * Every feed which is being written to right now
+         */
+        private static final Set<Feed> WRITING = 
+                ConcurrentHashMap.newKeySet();
+
+        /**
+         * The spectator
+         */
+        final Handler spectator;
+
+        /**
+         * Frames which haven't been written yet
+         */
+        private final ArrayDeque<byte[]> frames;
+
+        /**
+         * How many bytes haven't been written yet
+         */
+        private int backlog;
+
+        /**
+         * Whether a writer has this feed, and whether nothing more is 
+         * queued up
+         */
+        private boolean scheduled, closed;
+
+        /**
+         * When the frame being written started being written
+         */
+        private volatile long writingSince;
+
+        /**
+         * Creates a new Feed.
+         * @param spectator the spectator
+         */
+        Feed(Handler spectator) {
+            this.spectator = spectator;
+            frames = new ArrayDeque<>();
+            backlog = 0;
+            scheduled = closed = false;
+        }
+
+        /**
+         * Queues a frame up without waiting. The end of the match is the
+         * last frame queued up.
+         * @param frame the encoded frame
+         * @return whether the spectator is still being fed
+         */
+        synchronized boolean offer(byte[] frame) {
+            if(closed) return false;
+            if(backlog + frame.length > MAX_BACKLOG) {
+                // let whoever fell behind know once they catch up
+                frames.clear();
+                frames.add(END);
+                backlog = END.length;
+                closed = true;
+            } else {
+                frames.add(frame);
+                backlog += frame.length;
+                if(frame == END) closed = true;
+            }
+            if(!scheduled) {
+                scheduled = true;
+                WRITERS.execute(this);
+            }
+            return !closed;
+        }
+
+        /**
+         * Stops the feed right away and throws away what is waiting.
+         */
+        synchronized void close() {
+            closed = true;
+            frames.clear();
+            backlog = 0;
+        }
+
+        /**
+         * Writes some of the waiting frames. Run by one of the writers.
+         */
+        @Override
+        public void run() {
+            for(int i = 0; i < BATCH; i++) {
+                byte[] frame;
+                synchronized(this) {
+                    frame = frames.poll();
+                    if(frame == null) {
+                        scheduled = false;
+                        return;
+                    }
+                    backlog -= frame.length;
+                }
+                writingSince = System.nanoTime();
+                WRITING.add(this);
+                try {
+                    spectator.writeShared(frame);
+                } catch (IOException ex) {
+                    // the spectator is gone
+                    synchronized(this) {
+                        close();
+                        scheduled = false;
+                    }
+                    return;
+                } finally {
+                    WRITING.remove(this);
+                }
+            }
+            // give the other spectators a turn
+            WRITERS.execute(this);
+        }
+
+        /**
+         * Disconnects every spectator whose connection has stopped taking 
+         * frames. Only called by the fan-out thread.
+         * @param now the time, from {@link System#nanoTime()}
+         */
+        static void disconnectStalled(long now) {
+            for(Feed f : WRITING) {
+                if(now - f.writingSince < WRITE_TIMEOUT) continue;
+                WRITING.remove(f);
+                try {
+                    f.spectator.socket.close();
+                } catch (IOException ex) {
+                    // it is closed either way
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,475 @@
+package roomserver;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+
+/**
+ * Records a match into a compact binary replay.<br>
+ * A replay starts with a header: the magic {@code BTR}, the format
+ * version, the start time in milliseconds and both players' names.
+ * Then every frame of the match follows as one byte holding the event
+ * type, the side and a small argument, the time since the last event in
+ * centiseconds as a varint (left out when no time has passed, which the
+ * top bit of the event byte tells), and whatever else the event needs.
+ * Bags are packed at 3 bits per piece. Commands which aren't part of
+ * the game, like tick stamps, aren't recorded. Everything after the
+ * magic and the version is deflated as one stream.<br>
+ * Recording only fills a buffer in memory. Full chunks are compressed
+ * and handed to a single writer thread, shared by all matches, which
+ * appends them to one file per match. Once the match is over, the file
+ * is moved into the {@link ReplayArchive}.
+ * @author Jed Wang
+ */
+public class MatchRecorder {
+    /**
+     * The first bytes of every replay
+     */
+    public static final byte[] MAGIC = {'B', 'T', 'R'};
+
+    /**
+     * The version of the replay format
+     */
+    public static final int VERSION = 2;
+
+    /**
+     * Event: a move; the argument is the index into {@link #MOVES}
+     */
+    public static final int EV_MOVE = 0;
+
+    /**
+     * Event: a piece locked; followed by the x and y coordinates
+     */
+    public static final int EV_LOCK = 1;
+
+    /**
+     * Event: a new bag; followed by the packed bag
+     */
+    public static final int EV_BAG = 2;
+
+    /**
+     * Event: a starting bag, which starts a round; followed by the
+     * packed bag
+     */
+    public static final int EV_START_BAG = 3;
+
+    /**
+     * Event: garbage lines were dumped; followed by the number of
+     * pairs, then every hole and number of lines
+     */
+    public static final int EV_GARBAGE = 4;
+
+    /**
+     * Event: anything else; the argument is one of the {@code META_}
+     * values
+     */
+    public static final int EV_META = 5;
+
+    /**
+     * Meta event: gravity was paused
+     */
+    public static final int META_PAUSE = 0;
+
+    /**
+     * Meta event: gravity was resumed
+     */
+    public static final int META_RESUME = 1;
+
+    /**
+     * Meta event: the player on this side topped out
+     */
+    public static final int META_ROUND_OVER = 2;
+
+    /**
+     * Meta event: the match is over
+     */
+    public static final int META_END = 3;
+
+    /**
+     * The bit of the event byte which tells that a time delta follows
+     */
+    public static final int HAS_DELTA = 0x80;
+
+    /**
+     * The shorthand of every move, in the order they are encoded
+     */
+    public static final String[] MOVES =
+            {"L", "R", "HD", "SD", "RR", "RL", "H", "G"};
+
+    /**
+     * The pieces, in the order they are encoded
+     */
+    public static final String PIECES = "IJLOSTZ";
+
+    /**
+     * The directory all replays are saved in
+     */
+    public static final File REPLAY_DIR = new File("replays");
+
+    /**
+     * The file extension of replays
+     */
+    public static final String EXTENSION = ".btr";
+
+    /**
+     * How many bytes are buffered before they are handed to the writer
+     */
+    private static final int CHUNK_SIZE = 4096;
+
+    /**
+     * How many nanoseconds are in one time unit of a replay
+     */
+    private static final long NANOS_PER_TICK = 10_000_000L;
+
+    /**
+     * The thread which writes all replays to disk
+     */
+    private static final ExecutorService WRITER =
+            Executors.newSingleThreadExecutor((Runnable r) -> {
+                Thread t = new Thread(r, "Replay writer");
+                t.setDaemon(true);
+                return t;
+            });
+
+    /**
+     * Keeps the names of replays which start in the same second apart
+     */
+    private static final AtomicInteger COUNTER = new AtomicInteger();
+
+    /**
+     * The file this replay is written to
+     */
+    private final File file;
+
+    /**
+     * When the match started, in milliseconds
+     */
+    private final long start;
+
+    /**
+     * The names of both players
+     */
+    private final String[] names;
+
+    /**
+     * How many garbage lines each player sent
+     */
+    private final int[] linesSent;
+
+    /**
+     * How many rounds each player won
+     */
+    private final int[] roundsWon;
+
+    /**
+     * The bytes which haven't been handed to the writer yet
+     */
+    private byte[] buffer;
+
+    /**
+     * How many bytes at the start of the buffer go out uncompressed
+     */
+    private int raw;
+
+    /**
+     * Compresses the replay, one chunk after the other
+     */
+    private final Deflater deflater;
+
+    /**
+     * How many bytes of the buffer are used
+     */
+    private int size;
+
+    /**
+     * The time of the last event, in nanoseconds
+     */
+    private long lastTime;
+
+    /**
+     * Whether the match is over
+     */
+    private boolean finished;
+
+    /**
+     * Creates a new MatchRecorder and writes the header of the replay.
+     * @param first the name of the player on side 0
+     * @param second the name of the player on side 1
+     */
+    public MatchRecorder(String first, String second) {
+        start = System.currentTimeMillis();
+        names = new String[]{first, second};
+        linesSent = new int[2];
+        roundsWon = new int[2];
+        file = new File(REPLAY_DIR, String.format(
+                "%1$tY%1$tm%1$td-%1$tH%1$tM%1$tS-%2$d-%3$s-%4$s%5$s",
+                start, COUNTER.getAndIncrement(),
+                safe(first), safe(second), EXTENSION));
+        buffer = new byte[CHUNK_SIZE + 64];
+        size = 0;
+        lastTime = System.nanoTime();
+        finished = false;
+
+        deflater = new Deflater(Deflater.BEST_COMPRESSION);
+
+        for(byte b : MAGIC) writeByte(b);
+        writeByte(VERSION);
+        raw = size;
+        writeVarLong(start);
+        writeString(first);
+        writeString(second);
+    }
+
+    /**
+     * Records a frame of the match. Only called by the thread which
+     * sends the frames out, so frames are recorded in order.
+     * @param frame the frame: {@code SV[side][command]} or {@code SVEND}
+     * @param time when the frame came in, from {@link System#nanoTime()}
+     */
+    public void record(String frame, long time) {
+        if(finished) return;
+        if(frame.equals("SVEND")) {
+            writeEvent(EV_META, 0, META_END, time);
+            finish();
+            return;
+        }
+
+        int side = frame.charAt(2) - '0';
+        String command = frame.substring(3);
+        if(command.startsWith("M")) {
+            int move = Arrays.asList(MOVES).indexOf(command.substring(1));
+            if(move >= 0) {
+                writeEvent(EV_MOVE, side, move, time);
+                return;
+            }
+        } else if(command.startsWith("LOCK")) {
+            int[] data = parseInts(command.substring(4));
+            if(data != null && data.length == 2) {
+                writeEvent(EV_LOCK, side, 0, time);
+                writeVarInt(data[0]);
+                writeVarInt(data[1]);
+                return;
+            }
+        } else if(command.startsWith("NB") && isBag(command.substring(2))) {
+            writeEvent(EV_BAG, side, 0, time);
+            writeBag(command.substring(2));
+            return;
+        } else if(command.startsWith("SB")) {
+            // only this side's own bag; the other side sends theirs
+            String bag = command.substring(2).split(" ")[0];
+            if(isBag(bag)) {
+                writeEvent(EV_START_BAG, side, 0, time);
+                writeBag(bag);
+                return;
+            }
+        } else if(command.startsWith("GL")) {
+            int[] data = parseInts(command.substring(2));
+            if(data != null && data.length % 2 == 0) {
+                writeEvent(EV_GARBAGE, side, 0, time);
+                writeVarInt(data.length / 2);
+                for(int i : data) writeVarInt(i);
+                // the garbage on this side was sent by the other side
+                for(int i = 1; i < data.length; i += 2) {
+                    linesSent[1 - side] += data[i];
+                }
+                return;
+            }
+        } else if(command.equals("GCP") || command.equals("GCR")) {
+            writeEvent(EV_META, side, 
+                    command.equals("GCP") ? META_PAUSE : META_RESUME, time);
+            return;
+        } else if(command.equals("GAMEOVER")) {
+            writeEvent(EV_META, side, META_ROUND_OVER, time);
+            roundsWon[1 - side]++;
+        }
+    }
+
+    /**
+     * Returns the file this replay is written to.
+     * @return the file this replay is written to
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Hands everything left to the writer and stops recording.
+     */
+    private void finish() {
+        finished = true;
+        flush(true);
+        deflater.end();
+        buffer = null;
+        long duration = System.currentTimeMillis() - start;
+        WRITER.execute(() -> {
+            if(!file.exists()) return;
+            try {
+                ReplayArchive.getInstance().archive(file, start, duration,
+                        names, linesSent, roundsWon);
+            } catch (IOException ex) {
+                System.err.println("Unable to archive replay " + file);
+                ex.printStackTrace();
+            }
+        });
+    }
+
+    /**
+     * Compresses the buffered bytes and hands them to the writer thread.
+     * Every chunk is flushed through the compressor, so the file always 
+     * holds everything handed over so far.
+     * @param last whether this is the last chunk
+     */
+    private void flush(boolean last) {
+        byte[] compressed = new byte[size + 64];
+        System.arraycopy(buffer, 0, compressed, 0, raw);
+        int length = raw;
+        deflater.setInput(buffer, raw, size - raw);
+        if(last) deflater.finish();
+        while(true) {
+            length += deflater.deflate(compressed, length, 
+                    compressed.length - length, Deflater.SYNC_FLUSH);
+            if(last ? deflater.finished() : length < compressed.length) {
+                break;
+            }
+            if(length == compressed.length) {
+                compressed = Arrays.copyOf(compressed, length * 2);
+            }
+        }
+        byte[] chunk = Arrays.copyOf(compressed, length);
+        size = raw = 0;
+        WRITER.execute(() -> {
+            REPLAY_DIR.mkdirs();
+            try(FileOutputStream fos = new FileOutputStream(file, true)) {
+                fos.write(chunk);
+            } catch (IOException ex) {
+                System.err.println("Unable to save replay " + file);
+                ex.printStackTrace();
+            }
+        });
+    }
+
+    /**
+     * Writes the event byte and the time since the last event.
+     * @param type the event type
+     * @param side the side the event is about
+     * @param arg a small argument, from 0 to 7
+     * @param time when the event happened, in nanoseconds
+     */
+    private void writeEvent(int type, int side, int arg, long time) {
+        if(size >= CHUNK_SIZE) flush(false);
+        // both players' frames are timed on their own threads, so one 
+        // can come in just before the other
+        long ticks = Math.max(0, (time - lastTime) / NANOS_PER_TICK);
+        // keep the remainder so rounding never drifts
+        lastTime += ticks * NANOS_PER_TICK;
+        int event = type << 4 | side << 3 | arg;
+        if(ticks == 0) {
+            writeByte(event);
+        } else {
+            writeByte(event | HAS_DELTA);
+            writeVarLong(ticks);
+        }
+    }
+
+    /**
+     * Writes a bag packed at 3 bits per piece.
+     * @param bag the bag; see {@link #isBag(java.lang.String)}
+     */
+    private void writeBag(String bag) {
+        int packed = 0;
+        for(int i = 0; i < bag.length(); i++) {
+            packed |= PIECES.indexOf(bag.charAt(i)) << (3 * i);
+        }
+        writeByte(packed);
+        writeByte(packed >>> 8);
+        writeByte(packed >>> 16);
+    }
+
+    /**
+     * Determines whether a String is a bag which can be packed.
+     * @param bag the String to test
+     * @return whether it is made of exactly 7 pieces
+     */
+    private static boolean isBag(String bag) {
+        if(bag.length() != 7) return false;
+        for(int i = 0; i < bag.length(); i++) {
+            if(PIECES.indexOf(bag.charAt(i)) < 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Parses space-separated non-negative ints.
+     * @param s the String to parse
+     * @return the ints, or {@code null} if they can't be parsed
+     */
+    private static int[] parseInts(String s) {
+        String[] data = s.trim().split(" ");
+        int[] output = new int[data.length];
+        try {
+            for(int i = 0; i < data.length; i++) {
+                output[i] = Integer.parseInt(data[i]);
+                if(output[i] < 0) return null;
+            }
+        } catch (NumberFormatException nfe) {
+            return null;
+        }
+        return output;
+    }
+
+    /**
+     * Writes a String as its length and its UTF-8 bytes.
+     * @param s the String to write
+     */
+    private void writeString(String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length);
+        for(byte b : bytes) writeByte(b);
+    }
+
+    /**
+     * Writes a non-negative int using 7 bits per byte.
+     * @param value the value to write
+     */
+    private void writeVarInt(int value) {
+        writeVarLong(value & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Writes a non-negative long using 7 bits per byte.
+     * @param value the value to write
+     */
+    private void writeVarLong(long value) {
+        while((value & ~0x7FL) != 0) {
+            writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        writeByte((int) value);
+    }
+
+    /**
+     * Writes a single byte, growing the buffer if needed.
+     * @param b the byte to write
+     */
+    private void writeByte(int b) {
+        if(size == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        buffer[size++] = (byte) b;
+    }
+
+    /**
+     * Makes a name safe to use in a file name.
+     * @param name the name
+     * @return the name with only letters, digits, dashes and underscores
+     */
+    private static String safe(String name) {
+        return name.replaceAll("[^A-Za-z0-9_-]", "_");
+    }
+}
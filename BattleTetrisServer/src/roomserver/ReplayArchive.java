@@ -0,0 +1,456 @@
+package roomserver;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Keeps all finished replays.<br>
+ * Replays are appended to large segment files which are accessed through
+ * {@link MappedByteBuffer}s, so reading a replay never copies it. A
+ * compact index of every match is kept in its own file and loaded into
+ * per-player and per-date maps on startup, so lookups never have to scan
+ * the segments. The matches with the highest attack per minute are kept
+ * in order as they are archived, so asking for them never sorts.
+ * @author Jed Wang
+ */
+public class ReplayArchive {
+    /**
+     * The directory the archive is kept in
+     */
+    public static final File ARCHIVE_DIR =
+            new File(MatchRecorder.REPLAY_DIR, "archive");
+
+    /**
+     * The size of every segment file, in bytes
+     */
+    private static final int SEGMENT_SIZE = 16 << 20;
+
+    /**
+     * How many of the best matches are kept in order
+     */
+    public static final int TOP_COUNT = 100;
+
+    /**
+     * Puts the matches with the highest attack per minute first
+     */
+    private static final Comparator<Entry> BY_ATTACK = (Entry a, Entry b) ->
+            Double.compare(b.bestAttackPerMinute(), a.bestAttackPerMinute());
+
+    /**
+     * The one and only archive
+     */
+    private static ReplayArchive instance = null;
+
+    /**
+     * All mapped segments, in order
+     */
+    private final ArrayList<MappedByteBuffer> segments;
+
+    /**
+     * Where the next replay goes in the last segment
+     */
+    private int tail;
+
+    /**
+     * Every archived match, by id
+     */
+    private final ArrayList<Entry> entries;
+
+    /**
+     * The matches of each player, oldest first
+     */
+    private final HashMap<String, ArrayList<Entry>> byPlayer;
+
+    /**
+     * The matches started on each day, by epoch day
+     */
+    private final TreeMap<Long, ArrayList<Entry>> byDay;
+
+    /**
+     * The {@link #TOP_COUNT} matches with the highest attack per minute,
+     * best first
+     */
+    private final ArrayList<Entry> top;
+
+    /**
+     * The stream new index records are appended to
+     */
+    private DataOutputStream indexOut;
+
+    /**
+     * Returns the archive, opening it the first time.
+     * @return the archive
+     * @throws IOException if the archive can't be opened
+     */
+    public static synchronized ReplayArchive getInstance() throws IOException {
+        if(instance == null) {
+            instance = new ReplayArchive();
+        }
+        return instance;
+    }
+
+    /**
+     * Opens the archive: loads the index and maps every segment.
+     * @throws IOException if the archive can't be opened
+     */
+    private ReplayArchive() throws IOException {
+        segments = new ArrayList<>();
+        entries = new ArrayList<>();
+        byPlayer = new HashMap<>();
+        byDay = new TreeMap<>();
+        top = new ArrayList<>(TOP_COUNT + 1);
+        tail = 0;
+
+        ARCHIVE_DIR.mkdirs();
+        File index = new File(ARCHIVE_DIR, "index.dat");
+        if(index.exists()) {
+            byte[] records = Files.readAllBytes(index.toPath());
+            ByteArrayInputStream bais = new ByteArrayInputStream(records);
+            int good = 0;
+            try(DataInputStream in = new DataInputStream(bais)) {
+                while(bais.available() > 0) {
+                    Entry e = Entry.read(entries.size(), in);
+                    addToIndex(e);
+                    tail = e.offset + e.length;
+                    good = records.length - bais.available();
+                }
+            } catch (EOFException eof) {
+                // a record cut off by a crash; drop it
+                try(RandomAccessFile raf = new RandomAccessFile(index, "rw")) {
+                    raf.setLength(good);
+                }
+            }
+        }
+        int count = entries.isEmpty() ? 1
+                : entries.get(entries.size() - 1).segment + 1;
+        for(int i = 0; i < count; i++) {
+            segments.add(map(i));
+        }
+        indexOut = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(index, true)));
+    }
+
+    /**
+     * Archives a finished replay, then deletes its file.
+     * @param file the replay's file
+     * @param start when the match started, in milliseconds
+     * @param duration how long the match lasted, in milliseconds
+     * @param names the names of both players
+     * @param linesSent how many garbage lines each player sent
+     * @param roundsWon how many rounds each player won
+     * @throws IOException if the replay can't be archived
+     */
+    public synchronized void archive(File file, long start, long duration,
+            String[] names, int[] linesSent, int[] roundsWon)
+            throws IOException {
+        byte[] replay = Files.readAllBytes(file.toPath());
+        if(replay.length > SEGMENT_SIZE) {
+            throw new IOException("Replay too large to archive: " + file);
+        }
+        if(tail + replay.length > SEGMENT_SIZE) {
+            segments.add(map(segments.size()));
+            tail = 0;
+        }
+        int segment = segments.size() - 1;
+        MappedByteBuffer buffer = segments.get(segment);
+        ByteBuffer view = buffer.duplicate();
+        view.position(tail);
+        view.put(replay);
+        buffer.force();
+
+        Entry e = new Entry(entries.size(), segment, tail, replay.length,
+                start, duration, names, linesSent, roundsWon);
+        e.write(indexOut);
+        indexOut.flush();
+        addToIndex(e);
+        tail += replay.length;
+
+        Files.delete(file.toPath());
+    }
+
+    /**
+     * Returns a replay, straight from mapped memory.
+     * @param e the match
+     * @return a read-only view of the replay
+     */
+    public synchronized ByteBuffer read(Entry e) {
+        ByteBuffer view = segments.get(e.segment).duplicate();
+        view.position(e.offset);
+        view.limit(e.offset + e.length);
+        return view.slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns a match by its id.
+     * @param id the id of the match
+     * @return the match, or {@code null} if there is none
+     */
+    public synchronized Entry get(int id) {
+        return (id >= 0 && id < entries.size()) ? entries.get(id) : null;
+    }
+
+    /**
+     * Returns all matches of a player, oldest first.
+     * @param player the name of the player
+     * @return all matches of the player
+     */
+    public synchronized List<Entry> byPlayer(String player) {
+        ArrayList<Entry> list = byPlayer.get(player);
+        return (list == null) ? Collections.emptyList()
+                : new ArrayList<>(list);
+    }
+
+    /**
+     * Returns all matches started between two days, oldest day first.
+     * @param from the first day
+     * @param to the last day
+     * @return all matches in the range
+     */
+    public synchronized List<Entry> byDate(LocalDate from, LocalDate to) {
+        ArrayList<Entry> output = new ArrayList<>();
+        Collection<ArrayList<Entry>> days = byDay.subMap(
+                from.toEpochDay(), true, to.toEpochDay(), true).values();
+        for(ArrayList<Entry> day : days) {
+            output.addAll(day);
+        }
+        return output;
+    }
+
+    /**
+     * Returns the matches with the highest attack per minute.
+     * @param count how many matches to return, at most {@link #TOP_COUNT}
+     * @return the best matches, best first
+     */
+    public synchronized List<Entry> topAttack(int count) {
+        return new ArrayList<>(top.subList(0, Math.min(count, top.size())));
+    }
+
+    /**
+     * Returns how many matches are archived.
+     * @return how many matches are archived
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Adds a match to the in-memory indexes.
+     * @param e the match
+     */
+    private void addToIndex(Entry e) {
+        entries.add(e);
+        for(String name : e.names) {
+            byPlayer.computeIfAbsent(name, (String k) -> new ArrayList<>())
+                    .add(e);
+        }
+        byDay.computeIfAbsent(e.getDate().toEpochDay(),
+                (Long k) -> new ArrayList<>()).add(e);
+
+        int rank = Collections.binarySearch(top, e, BY_ATTACK);
+        if(rank < 0) rank = -rank - 1;
+        if(rank < TOP_COUNT) {
+            top.add(rank, e);
+            if(top.size() > TOP_COUNT) top.remove(TOP_COUNT);
+        }
+    }
+
+    /**
+     * Maps a segment file, creating it if needed.
+     * @param segment the number of the segment
+     * @return the mapped segment
+     * @throws IOException if the segment can't be mapped
+     */
+    private static MappedByteBuffer map(int segment) throws IOException {
+        File file = new File(ARCHIVE_DIR,
+                String.format("segment-%05d.dat", segment));
+        try(RandomAccessFile raf = new RandomAccessFile(file, "rw");
+                FileChannel channel = raf.getChannel()) {
+            // the mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_WRITE,
+                    0, SEGMENT_SIZE);
+        }
+    }
+
+    /**
+     * One archived match.
+     */
+    public static class Entry {
+        /**
+         * The id of this match
+         */
+        public final int id;
+
+        /**
+         * The segment the replay is in
+         */
+        private final int segment;
+
+        /**
+         * Where the replay starts in its segment
+         */
+        private final int offset;
+
+        /**
+         * The length of the replay, in bytes
+         */
+        private final int length;
+
+        /**
+         * When the match started, in milliseconds
+         */
+        public final long start;
+
+        /**
+         * How long the match lasted, in milliseconds
+         */
+        public final long duration;
+
+        /**
+         * The names of both players
+         */
+        private final String[] names;
+
+        /**
+         * How many garbage lines each player sent
+         */
+        private final int[] linesSent;
+
+        /**
+         * How many rounds each player won
+         */
+        private final int[] roundsWon;
+
+        /**
+         * Creates a new Entry.
+         * @param id the id of this match
+         * @param segment the segment the replay is in
+         * @param offset where the replay starts in its segment
+         * @param length the length of the replay
+         * @param start when the match started
+         * @param duration how long the match lasted
+         * @param names the names of both players
+         * @param linesSent how many garbage lines each player sent
+         * @param roundsWon how many rounds each player won
+         */
+        private Entry(int id, int segment, int offset, int length,
+                long start, long duration, String[] names, int[] linesSent,
+                int[] roundsWon) {
+            this.id = id;
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+            this.start = start;
+            this.duration = duration;
+            this.names = names.clone();
+            this.linesSent = linesSent.clone();
+            this.roundsWon = roundsWon.clone();
+        }
+
+        /**
+         * Returns the name of a player.
+         * @param side the side of the player
+         * @return the name of the player
+         */
+        public String getName(int side) {
+            return names[side];
+        }
+
+        /**
+         * Returns how many rounds a player won.
+         * @param side the side of the player
+         * @return how many rounds the player won
+         */
+        public int getRoundsWon(int side) {
+            return roundsWon[side];
+        }
+
+        /**
+         * Returns how many garbage lines a player sent per minute.
+         * @param side the side of the player
+         * @return the attack per minute of the player
+         */
+        public double getAttackPerMinute(int side) {
+            if(duration <= 0) return 0;
+            return linesSent[side] * 60000.0 / duration;
+        }
+
+        /**
+         * Returns the higher attack per minute of both players.
+         * @return the best attack per minute in this match
+         */
+        public double bestAttackPerMinute() {
+            return Math.max(getAttackPerMinute(0), getAttackPerMinute(1));
+        }
+
+        /**
+         * Returns the day this match started on.
+         * @return the day this match started on
+         */
+        public LocalDate getDate() {
+            return Instant.ofEpochMilli(start)
+                    .atZone(ZoneId.systemDefault()).toLocalDate();
+        }
+
+        /**
+         * Writes this Entry as an index record.
+         * @param out where to write to
+         * @throws IOException if something goes wrong
+         */
+        private void write(DataOutputStream out) throws IOException {
+            out.writeInt(segment);
+            out.writeInt(offset);
+            out.writeInt(length);
+            out.writeLong(start);
+            out.writeLong(duration);
+            for(int side = 0; side < 2; side++) {
+                out.writeUTF(names[side]);
+                out.writeInt(linesSent[side]);
+                out.writeByte(roundsWon[side]);
+            }
+        }
+
+        /**
+         * Reads an Entry from an index record.
+         * @param id the id of the match
+         * @param in where to read from
+         * @return the Entry
+         * @throws IOException if something goes wrong
+         */
+        private static Entry read(int id, DataInputStream in)
+                throws IOException {
+            int segment = in.readInt(), offset = in.readInt(),
+                    length = in.readInt();
+            long start = in.readLong(), duration = in.readLong();
+            String[] names = new String[2];
+            int[] linesSent = new int[2], roundsWon = new int[2];
+            for(int side = 0; side < 2; side++) {
+                names[side] = in.readUTF();
+                linesSent[side] = in.readInt();
+                roundsWon[side] = in.readByte();
+            }
+            return new Entry(id, segment, offset, length, start, duration,
+                    names, linesSent, roundsWon);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package roomserver;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import static roomserver.MatchRecorder.*;
+
+/**
+ * What happened in a recorded match, read back from its replay.<br>
+ * The replay is decoded straight from the buffer it is kept in, a few
+ * kilobytes at a time, so an archived replay is never copied whole.
+ * Replays of both versions of the format can be read.
+ * @author Jed Wang
+ * @see MatchRecorder
+ */
+public class ReplaySummary {
+    /**
+     * The meta event which, in the first version, was followed by any
+     * other command
+     */
+    private static final int META_OTHER_V1 = 4;
+
+    /**
+     * How many bytes are taken from the buffer at once
+     */
+    private static final int READ_SIZE = 4096;
+
+    /**
+     * When the match started, in milliseconds
+     */
+    public final long start;
+
+    /**
+     * How long the match lasted, in milliseconds
+     */
+    public final long length;
+
+    /**
+     * How many events there are
+     */
+    public final int events;
+
+    /**
+     * The names of both players
+     */
+    private final String[] names;
+
+    /**
+     * How many moves, locks, garbage lines received and rounds lost each
+     * player has
+     */
+    private final int[] moves, locks, linesReceived, roundsLost;
+
+    /**
+     * Reads a replay.
+     * @param replay the replay, from its start to its end
+     * @throws IOException if the replay is corrupt
+     */
+    public ReplaySummary(ByteBuffer replay) throws IOException {
+        InputStream raw = new InputStream() {
+            @Override
+            public int read() {
+                return replay.hasRemaining() ? replay.get() & 0xFF : -1;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if(!replay.hasRemaining()) return -1;
+                len = Math.min(len, replay.remaining());
+                replay.get(b, off, len);
+                return len;
+            }
+        };
+        for(byte b : MAGIC) {
+            if(raw.read() != b) throw new IOException("Not a replay");
+        }
+        int version = raw.read();
+        if(version != 1 && version != VERSION) {
+            throw new IOException("Unknown replay version " + version);
+        }
+        DataInputStream in = new DataInputStream((version == 1) ? raw
+                : new InflaterInputStream(raw, new Inflater(), READ_SIZE));
+
+        moves = new int[2];
+        locks = new int[2];
+        linesReceived = new int[2];
+        roundsLost = new int[2];
+        try {
+            start = readVarLong(in);
+            names = new String[]{readString(in), readString(in)};
+            long ticks = 0;
+            int count = 0;
+            int event;
+            while((event = in.read()) != -1) {
+                count++;
+                if((event & HAS_DELTA) != 0) ticks += readVarLong(in);
+                int type = event >> 4 & 7, side = event >> 3 & 1,
+                        arg = event & 7;
+                switch(type) {
+                    case EV_MOVE:
+                        moves[side]++;
+                        break;
+                    case EV_LOCK:
+                        readVarLong(in);
+                        readVarLong(in);
+                        locks[side]++;
+                        break;
+                    case EV_BAG:
+                    case EV_START_BAG:
+                        in.readFully(new byte[3]);
+                        break;
+                    case EV_GARBAGE:
+                        int dumps = (int) readVarLong(in);
+                        for(int i = 0; i < dumps; i++) {
+                            readVarLong(in);
+                            linesReceived[side] += (int) readVarLong(in);
+                        }
+                        break;
+                    case EV_META:
+                        if(arg == META_ROUND_OVER) roundsLost[side]++;
+                        else if(arg == META_OTHER_V1 && version == 1) {
+                            readString(in);
+                        }
+                        break;
+                    default:
+                        throw new IOException("Unknown event " + event);
+                }
+                if(type == EV_META && arg == META_END) break;
+            }
+            events = count;
+            // a tick of the replay is a centisecond
+            length = ticks * 10;
+        } catch (EOFException eof) {
+            throw new IOException("Replay cut off", eof);
+        }
+    }
+
+    /**
+     * Returns the name of a player.
+     * @param side the side of the player
+     * @return the name of the player
+     */
+    public String getName(int side) {
+        return names[side];
+    }
+
+    /**
+     * Returns how many moves a player made.
+     * @param side the side of the player
+     * @return how many moves the player made
+     */
+    public int getMoves(int side) {
+        return moves[side];
+    }
+
+    /**
+     * Returns how many pieces a player locked.
+     * @param side the side of the player
+     * @return how many pieces the player locked
+     */
+    public int getLocks(int side) {
+        return locks[side];
+    }
+
+    /**
+     * Returns how many garbage lines a player received.
+     * @param side the side of the player
+     * @return how many garbage lines the player received
+     */
+    public int getLinesReceived(int side) {
+        return linesReceived[side];
+    }
+
+    /**
+     * Returns how many rounds a player lost.
+     * @param side the side of the player
+     * @return how many rounds the player lost
+     */
+    public int getRoundsLost(int side) {
+        return roundsLost[side];
+    }
+
+    /**
+     * Reads a non-negative long written 7 bits per byte.
+     * @param in where to read from
+     * @return the value
+     * @throws IOException if it can't be read
+     */
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for(int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Varint too long");
+    }
+
+    /**
+     * Reads a String written as its length and its UTF-8 bytes.
+     * @param in where to read from
+     * @return the String
+     * @throws IOException if it can't be read
+     */
+    private static String readString(DataInputStream in) throws IOException {
+        long length = readVarLong(in);
+        if(length > READ_SIZE) throw new IOException("String too long");
+        byte[] bytes = new byte[(int) length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
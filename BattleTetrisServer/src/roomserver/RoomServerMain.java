@@ -3,6 +3,7 @@ package roomserver;
 import java.io.IOException;
 import java.net.BindException;
 import java.net.ServerSocket;
+import java.net.Socket;
 import roomserver.ClientCommunication.Handler;
 
 /**
@@ -10,6 +11,12 @@ import roomserver.ClientCommunication.Handler;
  * @author Jed Wang
  */
 public class RoomServerMain {
+    /**
+     * The number of pending connections the OS may queue up 
+     * before refusing new ones.
+     */
+    public static final int ACCEPT_BACKLOG = 50;
+    
     /**
      * The main method
      * @param args the command line arguments
@@ -20,9 +27,16 @@ public class RoomServerMain {
         
         ClientCommunication.startServerUI();
         
-        try(ServerSocket listener = new ServerSocket(ClientCommunication.PORT)) {
+        try(ServerSocket listener = new ServerSocket(ClientCommunication.PORT, 
+                ACCEPT_BACKLOG)) {
             while(true) {
-                Handler h = new Handler(listener.accept());
+                Socket socket = listener.accept();
+                // Turn away clients before anything is spent on them
+                if(!ClientCommunication.tryAcquireSlot()) {
+                    ClientCommunication.rejectFull(socket);
+                    continue;
+                }
+                Handler h = new Handler(socket);
                 h.start();
                 // mw.addHandler(h);
             }